@@ -284,28 +284,31 @@ public class ApiGrabber {
 
 	/**
 	 * This method creates a request on a filehoster if the refactoring was
-	 * performed with issues from a analysis tool.
+	 * performed with issues from a analysis tool. All issues were refactored on
+	 * the given branch.
 	 *
-	 * @param issue
+	 * @param title
+	 * @param refactorings
+	 *            list of the refactorings that is appended to the description
 	 * @param gitConfig
 	 * @param newBranch
 	 * @throws Exception
 	 */
-	public void makeCreateRequestWithAnalysisService(BotIssue issue, GitConfiguration gitConfig, String newBranch)
-			throws Exception {
+	public void makeCreateRequestWithAnalysisService(String title, String refactorings, GitConfiguration gitConfig,
+			String newBranch) throws Exception {
 		// Pick filehoster
 		switch (gitConfig.getRepoService()) {
 		case github:
 			// Create PR object
-			GithubCreateRequest createRequest = githubTranslator.makeCreateRequestWithAnalysisService(issue, gitConfig,
-					newBranch);
+			GithubCreateRequest createRequest = githubTranslator.makeCreateRequestWithAnalysisService(title,
+					refactorings, gitConfig, newBranch);
 			// Create PR on filehoster
 			githubGrabber.createRequest(createRequest, gitConfig);
 			break;
 		case gitlab:
 			// Create PR Object
-			GitLabCreateRequest gitlabCreateRequest = gitlabTranslator.makeCreateRequestWithAnalysisService(issue,
-					gitConfig, newBranch);
+			GitLabCreateRequest gitlabCreateRequest = gitlabTranslator.makeCreateRequestWithAnalysisService(title,
+					refactorings, gitConfig, newBranch);
 			// Create PR on filehoster
 			gitlabGrabber.createRequest(gitlabCreateRequest, gitConfig);
 			break;
@@ -3,6 +3,8 @@ package de.refactoringbot.configuration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import de.refactoringbot.model.botissue.BotIssueGrouping;
+
 /**
  * This class is used within the application.yml file.
  * 
@@ -15,6 +17,14 @@ public class BotConfiguration {
 
 	private String botRefactoringDirectory = "";
 	private String witClientToken = "";
+	private Integer compilationUnitCacheSizeInMB = 64;
+	private Integer parsingThreads = 0;
+	private BotIssueGrouping analysisIssueGrouping = BotIssueGrouping.NONE;
+	private Boolean resolveDependencyJars = false;
+	private Integer analysisIssueParallelism = 1;
+	private Long repositoryCacheIdleTimeInMS = 600000L;
+	private Boolean inMemoryCommits = false;
+	private Boolean upstreamMirrors = false;
 
 	public String getBotRefactoringDirectory() {
 		return botRefactoringDirectory;
@@ -32,4 +42,118 @@ public class BotConfiguration {
 		this.witClientToken = witClientToken;
 	}
 
+	/**
+	 * Memory budget of the cache for parsed Java files, measured in megabytes of
+	 * cached source code.
+	 * 
+	 * @return compilationUnitCacheSizeInMB
+	 */
+	public Integer getCompilationUnitCacheSizeInMB() {
+		return compilationUnitCacheSizeInMB;
+	}
+
+	public void setCompilationUnitCacheSizeInMB(Integer compilationUnitCacheSizeInMB) {
+		this.compilationUnitCacheSizeInMB = compilationUnitCacheSizeInMB;
+	}
+
+	/**
+	 * Number of threads that parse Java files in parallel. 0 uses one thread per
+	 * available processor.
+	 * 
+	 * @return parsingThreads
+	 */
+	public Integer getParsingThreads() {
+		return parsingThreads;
+	}
+
+	public void setParsingThreads(Integer parsingThreads) {
+		this.parsingThreads = parsingThreads;
+	}
+
+	/**
+	 * Grouping of the issues of the analysis service into pull requests (none,
+	 * rule, file or package).
+	 * 
+	 * @return analysisIssueGrouping
+	 */
+	public BotIssueGrouping getAnalysisIssueGrouping() {
+		return analysisIssueGrouping;
+	}
+
+	public void setAnalysisIssueGrouping(BotIssueGrouping analysisIssueGrouping) {
+		this.analysisIssueGrouping = analysisIssueGrouping;
+	}
+
+	/**
+	 * Whether types of the dependencies of a repository are solved from the JARs
+	 * in the local Maven repository and Gradle cache. Nothing is downloaded.
+	 * 
+	 * @return resolveDependencyJars
+	 */
+	public Boolean getResolveDependencyJars() {
+		return resolveDependencyJars;
+	}
+
+	public void setResolveDependencyJars(Boolean resolveDependencyJars) {
+		this.resolveDependencyJars = resolveDependencyJars;
+	}
+
+	/**
+	 * Number of issue groups of an analysis service that are refactored at the
+	 * same time, each in a worktree of its own. 1 refactors them one after
+	 * another in the workspace of the configuration.
+	 * 
+	 * @return analysisIssueParallelism
+	 */
+	public Integer getAnalysisIssueParallelism() {
+		return analysisIssueParallelism;
+	}
+
+	public void setAnalysisIssueParallelism(Integer analysisIssueParallelism) {
+		this.analysisIssueParallelism = analysisIssueParallelism;
+	}
+
+	/**
+	 * Time after which a git repository of a workspace that is no longer used by
+	 * any job is closed.
+	 * 
+	 * @return repositoryCacheIdleTimeInMS
+	 */
+	public Long getRepositoryCacheIdleTimeInMS() {
+		return repositoryCacheIdleTimeInMS;
+	}
+
+	public void setRepositoryCacheIdleTimeInMS(Long repositoryCacheIdleTimeInMS) {
+		this.repositoryCacheIdleTimeInMS = repositoryCacheIdleTimeInMS;
+	}
+
+	/**
+	 * Whether the refactorings of an analysis service are committed without
+	 * checking out a new branch. The commit is built in the object database on
+	 * top of the remote branch and only the changed files are written back.
+	 * 
+	 * @return inMemoryCommits
+	 */
+	public Boolean getInMemoryCommits() {
+		return inMemoryCommits;
+	}
+
+	public void setInMemoryCommits(Boolean inMemoryCommits) {
+		this.inMemoryCommits = inMemoryCommits;
+	}
+
+	/**
+	 * Whether the workspaces borrow the objects of a shared mirror of their
+	 * upstream, which is fetched at most once per scheduling delay.
+	 * 
+	 * @return upstreamMirrors
+	 */
+	public Boolean getUpstreamMirrors() {
+		return upstreamMirrors;
+	}
+
+	public void setUpstreamMirrors(Boolean upstreamMirrors) {
+		this.upstreamMirrors = upstreamMirrors;
+	}
+
 }
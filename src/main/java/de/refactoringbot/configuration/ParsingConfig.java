@@ -0,0 +1,38 @@
+package de.refactoringbot.configuration;
+
+import java.io.File;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
+import de.refactoringbot.refactoring.parsing.ParallelParser;
+import de.refactoringbot.refactoring.resolution.JarClassIndex;
+import de.refactoringbot.refactoring.resolution.WorkspaceSymbolSolver;
+
+/**
+ * This class applies the bot configuration to the parsing infrastructure that
+ * is shared by all refactorings.
+ *
+ */
+@Configuration
+public class ParsingConfig {
+
+	@Autowired
+	BotConfiguration botConfig;
+
+	@PostConstruct
+	public void configureParsing() {
+		CompilationUnitCache.getInstance()
+				.setMaxSourceBytes(botConfig.getCompilationUnitCacheSizeInMB() * 1024L * 1024L);
+		ParallelParser.getInstance().setParallelism(botConfig.getParsingThreads());
+		WorkspaceSymbolSolver.setResolveDependencyJars(Boolean.TRUE.equals(botConfig.getResolveDependencyJars()));
+		if (!botConfig.getBotRefactoringDirectory().isEmpty()) {
+			JarClassIndex.getInstance()
+					.setIndexDirectory(new File(botConfig.getBotRefactoringDirectory(), "dependency-index"));
+		}
+	}
+
+}
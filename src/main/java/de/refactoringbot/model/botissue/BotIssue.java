@@ -13,6 +13,7 @@ public class BotIssue {
 	private String commitMessage;
 	private List<String> allJavaFiles;
 	private List<String> javaRoots;
+	private List<String> modifiedFiles;
 
 	/**
 	 * The refactoring operation describes the refactoring that will be performed.
@@ -107,4 +108,19 @@ public class BotIssue {
 		this.javaRoots = javaRoots;
 	}
 
+	/**
+	 * This method returns the absolute paths of the files that were changed by the
+	 * refactoring of the issue. It is null if the refactoring did not report its
+	 * changes.
+	 * 
+	 * @return modifiedFiles
+	 */
+	public List<String> getModifiedFiles() {
+		return modifiedFiles;
+	}
+
+	public void setModifiedFiles(List<String> modifiedFiles) {
+		this.modifiedFiles = modifiedFiles;
+	}
+
 }
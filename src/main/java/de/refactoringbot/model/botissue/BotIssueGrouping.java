@@ -0,0 +1,48 @@
+package de.refactoringbot.model.botissue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Grouping of the issues of an analysis service. All issues of a group are
+ * refactored on the same branch and proposed with a single pull request.
+ */
+public enum BotIssueGrouping {
+
+	/**
+	 * One pull request per issue
+	 */
+	NONE,
+	/**
+	 * One pull request per rule of the analysis service, i.e. per refactoring
+	 * operation
+	 */
+	RULE,
+	/**
+	 * One pull request per file
+	 */
+	FILE,
+	/**
+	 * One pull request per folder of the files, i.e. per package
+	 */
+	PACKAGE;
+
+	/**
+	 * @param issue
+	 * @return key of the group of the given issue, null if every issue is a group
+	 *         of its own
+	 */
+	public String getGroupKey(BotIssue issue) {
+		switch (this) {
+		case RULE:
+			return issue.getRefactoringOperation();
+		case FILE:
+			return issue.getFilePath();
+		case PACKAGE:
+			Path folder = Paths.get(issue.getFilePath()).getParent();
+			return folder != null ? folder.toString() : "";
+		default:
+			return null;
+		}
+	}
+}
@@ -30,6 +30,8 @@ public class GitConfiguration {
 	private String analysisServiceProjectKey;
 	private String analysisServiceApiLink;
 	private Integer maxAmountRequests;
+	private Boolean singleBranchClone;
+	private Boolean sparseCheckout;
 
 	public Long getConfigurationId() {
 		return configurationId;
@@ -155,4 +157,50 @@ public class GitConfiguration {
 		this.analysisServiceApiLink = analysisServiceApiLink;
 	}
 
+	public Boolean getSingleBranchClone() {
+		return singleBranchClone;
+	}
+
+	public void setSingleBranchClone(Boolean singleBranchClone) {
+		this.singleBranchClone = singleBranchClone;
+	}
+
+	public Boolean getSparseCheckout() {
+		return sparseCheckout;
+	}
+
+	public void setSparseCheckout(Boolean sparseCheckout) {
+		this.sparseCheckout = sparseCheckout;
+	}
+
+	/**
+	 * Creates a copy of this configuration that works in another folder, e.g. in
+	 * the worktree of a job. The copy must not be saved.
+	 * 
+	 * @param repoFolder
+	 * @return copy
+	 */
+	public GitConfiguration copyWithRepoFolder(String repoFolder) {
+		GitConfiguration copy = new GitConfiguration();
+		copy.configurationId = configurationId;
+		copy.repoName = repoName;
+		copy.repoOwner = repoOwner;
+		copy.repoApiLink = repoApiLink;
+		copy.repoGitLink = repoGitLink;
+		copy.repoService = repoService;
+		copy.repoFolder = repoFolder;
+		copy.botName = botName;
+		copy.botEmail = botEmail;
+		copy.botToken = botToken;
+		copy.forkApiLink = forkApiLink;
+		copy.forkGitLink = forkGitLink;
+		copy.analysisService = analysisService;
+		copy.analysisServiceProjectKey = analysisServiceProjectKey;
+		copy.analysisServiceApiLink = analysisServiceApiLink;
+		copy.maxAmountRequests = maxAmountRequests;
+		copy.singleBranchClone = singleBranchClone;
+		copy.sparseCheckout = sparseCheckout;
+		return copy;
+	}
+
 }
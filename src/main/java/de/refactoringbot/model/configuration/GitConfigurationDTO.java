@@ -14,6 +14,8 @@ public class GitConfigurationDTO {
 	private String analysisServiceProjectKey;
 	private String analysisServiceApiLink;
 	private Integer maxAmountRequests;
+	private Boolean singleBranchClone;
+	private Boolean sparseCheckout;
 
 	public String getRepoName() {
 		return repoName;
@@ -103,4 +105,20 @@ public class GitConfigurationDTO {
 		this.filehosterApiLink = filehosterApiLink;
 	}
 
+	public Boolean getSingleBranchClone() {
+		return singleBranchClone;
+	}
+
+	public void setSingleBranchClone(Boolean singleBranchClone) {
+		this.singleBranchClone = singleBranchClone;
+	}
+
+	public Boolean getSparseCheckout() {
+		return sparseCheckout;
+	}
+
+	public void setSparseCheckout(Boolean sparseCheckout) {
+		this.sparseCheckout = sparseCheckout;
+	}
+
 }
@@ -0,0 +1,116 @@
+package de.refactoringbot.model.job;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import de.refactoringbot.model.refactoredissue.RefactoredIssue;
+
+/**
+ * An asynchronous refactoring of a configuration with comments or with an
+ * analysis service. The job collects the progress messages of the refactoring
+ * and, once finished, its refactored issues.
+ */
+public class RefactoringJob {
+
+	private final String jobId;
+	private final Long configurationId;
+	private final boolean commentRefactoring;
+	private final Date createdAt = new Date();
+	private final List<String> progress = new ArrayList<>();
+	private RefactoringJobStatus status = RefactoringJobStatus.QUEUED;
+	private Date startedAt;
+	private Date finishedAt;
+	private String errorMessage;
+	private List<RefactoredIssue> refactoredIssues = Collections.emptyList();
+
+	public RefactoringJob(String jobId, Long configurationId, boolean commentRefactoring) {
+		this.jobId = jobId;
+		this.configurationId = configurationId;
+		this.commentRefactoring = commentRefactoring;
+	}
+
+	public String getJobId() {
+		return jobId;
+	}
+
+	public Long getConfigurationId() {
+		return configurationId;
+	}
+
+	public boolean isCommentRefactoring() {
+		return commentRefactoring;
+	}
+
+	public Date getCreatedAt() {
+		return createdAt;
+	}
+
+	public synchronized RefactoringJobStatus getStatus() {
+		return status;
+	}
+
+	public synchronized Date getStartedAt() {
+		return startedAt;
+	}
+
+	public synchronized Date getFinishedAt() {
+		return finishedAt;
+	}
+
+	public synchronized String getErrorMessage() {
+		return errorMessage;
+	}
+
+	/**
+	 * @return all progress messages so far
+	 */
+	public synchronized List<String> getProgress() {
+		return new ArrayList<>(progress);
+	}
+
+	/**
+	 * @return number of refactored issues of a finished job
+	 */
+	public synchronized int getRefactoredIssueCount() {
+		return refactoredIssues.size();
+	}
+
+	/**
+	 * @return refactored issues of a finished job, empty otherwise
+	 */
+	@JsonIgnore
+	public synchronized List<RefactoredIssue> getRefactoredIssues() {
+		return refactoredIssues;
+	}
+
+	public synchronized void addProgress(String message) {
+		progress.add(message);
+	}
+
+	public synchronized void start() {
+		status = RefactoringJobStatus.RUNNING;
+		startedAt = new Date();
+	}
+
+	/**
+	 * @param refactoredIssues
+	 */
+	public synchronized void finish(List<RefactoredIssue> refactoredIssues) {
+		this.refactoredIssues = new ArrayList<>(refactoredIssues);
+		status = RefactoringJobStatus.FINISHED;
+		finishedAt = new Date();
+	}
+
+	/**
+	 * @param errorMessage
+	 */
+	public synchronized void fail(String errorMessage) {
+		this.errorMessage = errorMessage;
+		status = RefactoringJobStatus.FAILED;
+		finishedAt = new Date();
+	}
+}
@@ -0,0 +1,31 @@
+package de.refactoringbot.model.job;
+
+/**
+ * Status of an asynchronous refactoring job.
+ */
+public enum RefactoringJobStatus {
+
+	/**
+	 * The job waits for a worker or for another job of its configuration
+	 */
+	QUEUED,
+	/**
+	 * The job is running
+	 */
+	RUNNING,
+	/**
+	 * The job finished, its refactored issues are available
+	 */
+	FINISHED,
+	/**
+	 * The job failed or timed out, see its error message
+	 */
+	FAILED;
+
+	/**
+	 * @return true if the job will not change anymore
+	 */
+	public boolean isDone() {
+		return this == FINISHED || this == FAILED;
+	}
+}
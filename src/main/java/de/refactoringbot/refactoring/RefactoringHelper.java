@@ -1,40 +1,29 @@
 package de.refactoringbot.refactoring;
 
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.nio.file.InvalidPathException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import com.github.javaparser.Position;
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
-import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
-import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
-import com.github.javaparser.resolution.types.ResolvedReferenceType;
 
 import de.refactoringbot.model.exceptions.BotRefactoringException;
+import de.refactoringbot.refactoring.index.TypeHierarchyIndex;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
+import de.refactoringbot.refactoring.parsing.DeclarationLineIndex;
 
 /**
  * Utility methods for use in performing refactorings
  */
 public class RefactoringHelper {
 
-	private static final Logger logger = LoggerFactory.getLogger(RefactoringHelper.class);
-
 	private RefactoringHelper() {
 	}
 
@@ -76,9 +65,7 @@ public class RefactoringHelper {
 			ResolvedMethodDeclaration resolvedMethod = methodDeclaration.resolve();
 			return resolvedMethod.getQualifiedSignature();
 		} catch (Exception e) {
-			throw new BotRefactoringException("Method '" + methodDeclaration.getSignature().asString()
-					+ "' can't be resolved. It might have parameters from external projects/libraries or method might be"
-					+ " inside a class that extends a generic class! Error: " + e);
+			throw createUnresolvedMethodException(methodDeclaration, e);
 		}
 	}
 
@@ -91,14 +78,7 @@ public class RefactoringHelper {
 	 * @return MethodDeclaration or null if none found
 	 */
 	public static MethodDeclaration getMethodDeclarationByLineNumber(int lineNumber, CompilationUnit cu) {
-		MethodDeclaration result = null;
-		List<MethodDeclaration> methods = cu.findAll(MethodDeclaration.class);
-		for (MethodDeclaration method : methods) {
-			if (isMethodDeclarationAtLine(method, lineNumber)) {
-				result = method;
-			}
-		}
-		return result;
+		return getLast(DeclarationLineIndex.of(cu).getMethodDeclarationsAtLine(lineNumber));
 	}
 
 	/**
@@ -120,14 +100,7 @@ public class RefactoringHelper {
 	 * @return FieldDeclaration or null if none found
 	 */
 	public static FieldDeclaration getFieldDeclarationByLineNumber(int lineNumber, CompilationUnit cu) {
-		FieldDeclaration result = null;
-		List<FieldDeclaration> fields = cu.findAll(FieldDeclaration.class);
-		for (FieldDeclaration field : fields) {
-			if (isFieldDeclarationAtLine(field, lineNumber)) {
-				result = field;
-			}
-		}
-		return result;
+		return getLast(DeclarationLineIndex.of(cu).getFieldDeclarationsAtLine(lineNumber));
 	}
 
 	/**
@@ -140,6 +113,14 @@ public class RefactoringHelper {
 		return (beginPositionOfField.isPresent() && beginPositionOfField.get().line == lineNumber);
 	}
 
+	/**
+	 * @param nodes
+	 * @return last of the given nodes or null if there is none
+	 */
+	private static <T> T getLast(List<T> nodes) {
+		return nodes.isEmpty() ? null : nodes.get(nodes.size() - 1);
+	}
+
 	/**
 	 * @param methodDeclaration
 	 * @return parent node of the given method declaration as
@@ -162,8 +143,7 @@ public class RefactoringHelper {
 	 */
 	public static List<ClassOrInterfaceDeclaration> getAllClassesAndInterfacesFromFile(String filePath)
 			throws FileNotFoundException {
-		FileInputStream is = new FileInputStream(filePath);
-		CompilationUnit cu = LexicalPreservingPrinter.setup(StaticJavaParser.parse(is));
+		CompilationUnit cu = CompilationUnitCache.getInstance().getCompilationUnit(filePath);
 		return cu.findAll(ClassOrInterfaceDeclaration.class);
 	}
 
@@ -175,127 +155,64 @@ public class RefactoringHelper {
 	 *         the inheritance hierarchy of the given class (ancestors, descendants,
 	 *         siblings, ...) and contain the given target method
 	 * @throws BotRefactoringException
-	 * @throws FileNotFoundException
 	 */
 	public static Set<String> findRelatedClassesAndInterfaces(List<String> allJavaFiles,
-			ClassOrInterfaceDeclaration targetClass, MethodDeclaration targetMethod)
-			throws BotRefactoringException, FileNotFoundException {
-		Set<ResolvedReferenceTypeDeclaration> relatedClassesAndInterfaces = new HashSet<>();
-		relatedClassesAndInterfaces.add(targetClass.resolve());
-
-		addQualifiedNamesToRelatedClassesAndInterfacesRecursively(relatedClassesAndInterfaces, allJavaFiles,
-				targetClass, targetMethod);
-
-		Set<String> result = new HashSet<>();
-		for (ResolvedReferenceTypeDeclaration declaration : relatedClassesAndInterfaces) {
-			result.add(declaration.getQualifiedName());
-		}
-
-		return result;
-	}
-
-	private static void addQualifiedNamesToRelatedClassesAndInterfacesRecursively(
-			Set<ResolvedReferenceTypeDeclaration> relatedClassesAndInterfaces, List<String> allJavaFiles,
-			ClassOrInterfaceDeclaration targetClass, MethodDeclaration targetMethod)
-			throws FileNotFoundException, BotRefactoringException {
-		Set<ResolvedReferenceTypeDeclaration> ancestorsOfTargetClass = findAllAncestors(targetClass, targetMethod);
-		relatedClassesAndInterfaces.addAll(ancestorsOfTargetClass);
-
-		for (String file : allJavaFiles) {
-			List<ClassOrInterfaceDeclaration> classesOrInterfaces = RefactoringHelper
-					.getAllClassesAndInterfacesFromFile(file);
-
-			for (ClassOrInterfaceDeclaration currentClassOrInterface : classesOrInterfaces) {
-				if (relatedClassesAndInterfaces.contains(currentClassOrInterface.resolve())) {
-					continue;
-				}
-				Set<ResolvedReferenceTypeDeclaration> ancestorsOfCurrentClassOrInterface = findAllAncestors(
-						currentClassOrInterface, targetMethod);
-				if (!Collections.disjoint(relatedClassesAndInterfaces, ancestorsOfCurrentClassOrInterface)) {
-					// descendant found
-					relatedClassesAndInterfaces.add(currentClassOrInterface.resolve());
-					addQualifiedNamesToRelatedClassesAndInterfacesRecursively(relatedClassesAndInterfaces, allJavaFiles,
-							currentClassOrInterface, targetMethod);
-				}
-			}
-		}
+			ClassOrInterfaceDeclaration targetClass, MethodDeclaration targetMethod) throws BotRefactoringException {
+		return findRelatedClassesAndInterfaces(TypeHierarchyIndex.createTransient(), allJavaFiles, null, targetClass,
+				targetMethod);
 	}
 
 	/**
+	 * Finds the related classes and interfaces with the given type hierarchy index,
+	 * which is brought up to date with the given files first.
+	 * 
+	 * @param typeHierarchy
+	 * @param allJavaFiles
+	 * @param javaRoots
+	 *            roots to parse changed files in parallel with, may be null
 	 * @param targetClass
 	 * @param targetMethod
-	 * @return list of resolved classes and interfaces which are ancestors of the
-	 *         given classes (not including java.lang.Object or external
-	 *         dependencies) and contain the given target method
+	 * @return list of qualified class or interface names which are reachable via
+	 *         the inheritance hierarchy of the given class (ancestors, descendants,
+	 *         siblings, ...) and contain the given target method
 	 * @throws BotRefactoringException
 	 */
-	private static Set<ResolvedReferenceTypeDeclaration> findAllAncestors(ClassOrInterfaceDeclaration targetClass,
+	public static Set<String> findRelatedClassesAndInterfaces(TypeHierarchyIndex typeHierarchy,
+			List<String> allJavaFiles, List<String> javaRoots, ClassOrInterfaceDeclaration targetClass,
 			MethodDeclaration targetMethod) throws BotRefactoringException {
-		List<ResolvedReferenceType> ancestors = new ArrayList<>();
-		Set<ResolvedReferenceTypeDeclaration> result = new HashSet<>();
-
+		String qualifiedNameOfTargetClass;
 		try {
-			ancestors = targetClass.resolve().getAllAncestors();
-		} catch (UnsolvedSymbolException u) {
-			ancestors = RefactoringHelper.getAllResolvableAncestors(targetClass.resolve());
-			logger.warn("Refactored classes might extend/implement classes or interfaces from external dependency! "
-					+ "Please validate the correctness of the refactoring.");
-			// TODO propagate warning
+			qualifiedNameOfTargetClass = targetClass.resolve().getQualifiedName();
 		} catch (InvalidPathException i) {
 			throw new BotRefactoringException("Javaparser could not parse file: " + i.getMessage());
 		} catch (Exception e) {
 			throw new BotRefactoringException("Error while resolving superclasses occured!");
 		}
 
-		for (ResolvedReferenceType ancestor : ancestors) {
-			if (!ancestor.getQualifiedName().equals("java.lang.Object")) {
-				for (ResolvedMethodDeclaration method : ancestor.getAllMethods()) {
-					if (method.getSignature().equals(targetMethod.resolve().getSignature())) {
-						Optional<ResolvedReferenceTypeDeclaration> typeDeclaration = ancestor.getTypeDeclaration();
-						if (typeDeclaration.isPresent()) {
-							result.add(typeDeclaration.get());
-						}
-						
-					}
-				}
-			}
-		}
-
-		return result;
+		typeHierarchy.update(allJavaFiles, javaRoots);
+		return typeHierarchy.findRelatedTypes(qualifiedNameOfTargetClass,
+				getResolvedMethodSignatureAsString(targetMethod));
 	}
 
 	/**
-	 * Get all direct and indirect ancestors of a given class if possible (if
-	 * ancestor is not a external dependency for example).
-	 * 
-	 * This is a modified (fallback) implementation of
-	 * ResolvedReferenceTypeDeclaration.getAllAncestors() that we use in case, for
-	 * example, that external classes are extended (which would throw an
-	 * UnresolvedSymbolException).
-	 * 
-	 * @param resolvedClass
-	 * @return ancestors
+	 * @param methodDeclaration
+	 * @return resolved signature (name and qualified parameter types) of the given
+	 *         method
+	 * @throws BotRefactoringException
 	 */
-	private static List<ResolvedReferenceType> getAllResolvableAncestors(
-			ResolvedReferenceTypeDeclaration resolvedClass) {
-		List<ResolvedReferenceType> ancestors = new ArrayList<>();
-
-		if (!(Object.class.getCanonicalName().equals(resolvedClass.getQualifiedName()))) {
-			// Get all direct ancestors that can be resolved
-			for (ResolvedReferenceType ancestor : resolvedClass.getAncestors(true)) {
-				ancestors.add(ancestor);
-				// Get indirect ancestors recursively
-				Optional<ResolvedReferenceTypeDeclaration> typeDeclaration = ancestor.getTypeDeclaration();
-				if (typeDeclaration.isPresent()) {
-					for (ResolvedReferenceType inheritedAncestor : getAllResolvableAncestors(typeDeclaration.get())) {
-						if (!ancestors.contains(inheritedAncestor)) {
-							ancestors.add(inheritedAncestor);
-						}
-					}
-				}
-			}
+	public static String getResolvedMethodSignatureAsString(MethodDeclaration methodDeclaration)
+			throws BotRefactoringException {
+		try {
+			return methodDeclaration.resolve().getSignature();
+		} catch (Exception e) {
+			throw createUnresolvedMethodException(methodDeclaration, e);
 		}
+	}
 
-		return ancestors;
+	private static BotRefactoringException createUnresolvedMethodException(MethodDeclaration methodDeclaration,
+			Exception cause) {
+		return new BotRefactoringException("Method '" + methodDeclaration.getSignature().asString()
+				+ "' can't be resolved. It might have parameters from external projects/libraries or method might be"
+				+ " inside a class that extends a generic class! Error: " + cause);
 	}
 }
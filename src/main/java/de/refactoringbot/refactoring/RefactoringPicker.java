@@ -1,7 +1,11 @@
 package de.refactoringbot.refactoring;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,10 +15,17 @@ import org.springframework.stereotype.Component;
 import de.refactoringbot.model.botissue.BotIssue;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
+import de.refactoringbot.refactoring.edit.SourceFile;
+import de.refactoringbot.refactoring.index.WorkspaceIndexUpdater;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
 
 /**
  * This class checks which refactoring needs to be performed.
  * 
+ * Refactorings resolve symbols with the global configuration of the
+ * StaticJavaParser, so only one refactoring runs at a time, even if jobs of
+ * several configurations run in parallel.
+ * 
  * @author Stefan Basaric
  *
  */
@@ -29,37 +40,122 @@ public class RefactoringPicker {
 	/**
 	 * This method checks which refactoring needs to be performed. It transfers the
 	 * refactoring request to the correct refactoring class and returns a commit
-	 * message.
+	 * message. The files changed by the refactoring are set at the issue.
 	 * 
 	 * @param issue
 	 * @return commitMessage
 	 * @throws BotRefactoringException
 	 */
-	public String pickAndRefactor(BotIssue issue, GitConfiguration gitConfig) throws BotRefactoringException {
+	public synchronized String pickAndRefactor(BotIssue issue, GitConfiguration gitConfig)
+			throws BotRefactoringException {
 
+		CompilationUnitCache.getInstance().startRecordingSavedFiles();
+		Set<String> savedFiles = null;
 		try {
-			// Get rule to class mapping
-			Map<String, Class<? extends RefactoringImpl>> ruleToClassMapping = operations.getRuleToClassMapping();
-			// Get class of the mapping
-			Class<? extends RefactoringImpl> refactoringClass = ruleToClassMapping.get(issue.getRefactoringOperation());
-
-			// If class for refactoring exists
-			if (refactoringClass != null) {
-				Constructor<? extends RefactoringImpl> constructor = refactoringClass.getConstructor();
-				RefactoringImpl refactoring = constructor.newInstance();
-				return refactoring.performRefactoring(issue, gitConfig);
-			} else {
-				throw new BotRefactoringException("Bot does not support specified refactoring yet!");
+			String commitMessage = createRefactoring(issue).performRefactoring(issue, gitConfig);
+			savedFiles = CompilationUnitCache.getInstance().stopRecordingSavedFiles();
+			issue.setModifiedFiles(new ArrayList<>(savedFiles));
+			return commitMessage;
+		} catch (Exception e) {
+			throw toBotRefactoringException(e);
+		} finally {
+			if (savedFiles == null) {
+				savedFiles = CompilationUnitCache.getInstance().stopRecordingSavedFiles();
 			}
+			// files written by failed refactorings have changed as well
+			WorkspaceIndexUpdater.updateWorkingTreeFiles(gitConfig.getRepoFolder(), savedFiles);
+		}
+	}
+
+	/**
+	 * @param issue
+	 * @return true if the refactoring of the given issue only edits the file of the
+	 *         issue, so that it can be refactored together with other issues of
+	 *         that file
+	 */
+	public boolean isTextEditRefactoring(BotIssue issue) {
+		Class<? extends RefactoringImpl> refactoringClass = operations.getRuleToClassMapping()
+				.get(issue.getRefactoringOperation());
+		return refactoringClass != null && TextEditRefactoring.class.isAssignableFrom(refactoringClass);
+	}
+
+	/**
+	 * This method refactors all given issues of the same file with a single parse
+	 * and a single write of the file. The line numbers of all issues refer to the
+	 * file before the refactoring. The commit message of every successful issue is
+	 * set together with the file as its changed file, failed issues get an error
+	 * message and leave the file unchanged.
+	 * 
+	 * @param issues
+	 *            issues of the same file with text edit refactorings
+	 * @param gitConfig
+	 * @throws BotRefactoringException
+	 *             if the file can not be read or written
+	 */
+	public synchronized void pickAndRefactorFile(List<BotIssue> issues, GitConfiguration gitConfig)
+			throws BotRefactoringException {
+		SourceFile sourceFile;
+		try {
+			sourceFile = CompilationUnitCache.getInstance()
+					.getSourceFile(TextEditRefactoring.getFilePath(issues.get(0), gitConfig));
 		} catch (Exception e) {
-			if (e.getCause() != null) {
-				logger.error(e.getCause().getMessage(), e.getCause());
-				throw new BotRefactoringException(e.getCause().getMessage());
-			} else {
-				logger.error(e.getMessage(), e);
-				throw new BotRefactoringException(e.getMessage());
+			throw toBotRefactoringException(e);
+		}
+
+		for (BotIssue issue : issues) {
+			int editCount = sourceFile.getEditCount();
+			try {
+				TextEditRefactoring refactoring = (TextEditRefactoring) createRefactoring(issue);
+				String commitMessage = refactoring.collectEdits(issue, sourceFile);
+				// edits of different issues must not change the same code
+				sourceFile.validateEdits();
+				issue.setCommitMessage(commitMessage);
+			} catch (Exception e) {
+				sourceFile.discardEditsAfter(editCount);
+				issue.setErrorMessage(toBotRefactoringException(e).getMessage());
+			}
+		}
+
+		if (sourceFile.hasEdits()) {
+			try {
+				CompilationUnitCache.getInstance().saveSourceFile(sourceFile);
+			} catch (Exception e) {
+				throw toBotRefactoringException(e);
+			} finally {
+				WorkspaceIndexUpdater.updateWorkingTreeFiles(gitConfig.getRepoFolder(),
+						Collections.singleton(sourceFile.getFilePath()));
+			}
+		}
+		for (BotIssue issue : issues) {
+			if (issue.getCommitMessage() != null) {
+				issue.setModifiedFiles(sourceFile.hasEdits() ? Collections.singletonList(sourceFile.getFilePath())
+						: Collections.emptyList());
 			}
+		}
+	}
+
+	private RefactoringImpl createRefactoring(BotIssue issue) throws Exception {
+		// Get rule to class mapping
+		Map<String, Class<? extends RefactoringImpl>> ruleToClassMapping = operations.getRuleToClassMapping();
+		// Get class of the mapping
+		Class<? extends RefactoringImpl> refactoringClass = ruleToClassMapping.get(issue.getRefactoringOperation());
+
+		// If class for refactoring exists
+		if (refactoringClass != null) {
+			Constructor<? extends RefactoringImpl> constructor = refactoringClass.getConstructor();
+			return constructor.newInstance();
+		} else {
+			throw new BotRefactoringException("Bot does not support specified refactoring yet!");
+		}
+	}
 
+	private BotRefactoringException toBotRefactoringException(Exception e) {
+		if (e.getCause() != null) {
+			logger.error(e.getCause().getMessage(), e.getCause());
+			return new BotRefactoringException(e.getCause().getMessage());
+		} else {
+			logger.error(e.getMessage(), e);
+			return new BotRefactoringException(e.getMessage());
 		}
 	}
 }
@@ -0,0 +1,48 @@
+package de.refactoringbot.refactoring;
+
+import java.io.File;
+
+import de.refactoringbot.model.botissue.BotIssue;
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+import de.refactoringbot.refactoring.edit.SourceFile;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
+
+/**
+ * A refactoring that only changes the file of its issue and describes its
+ * changes as text edits of that file. Several issues of the same file can
+ * therefore be refactored with a single parse and a single write of the file,
+ * as the line numbers of all issues refer to the unchanged file.
+ */
+public interface TextEditRefactoring extends RefactoringImpl {
+
+	/**
+	 * Adds the edits that refactor the given issue to the given source file
+	 *
+	 * @param issue
+	 * @param sourceFile
+	 *            file of the issue
+	 * @return commitMessage
+	 * @throws BotRefactoringException
+	 */
+	String collectEdits(BotIssue issue, SourceFile sourceFile) throws BotRefactoringException;
+
+	@Override
+	default String performRefactoring(BotIssue issue, GitConfiguration gitConfig) throws Exception {
+		SourceFile sourceFile = CompilationUnitCache.getInstance().getSourceFile(getFilePath(issue, gitConfig));
+		String commitMessage = collectEdits(issue, sourceFile);
+
+		// Save changes to file
+		CompilationUnitCache.getInstance().saveSourceFile(sourceFile);
+		return commitMessage;
+	}
+
+	/**
+	 * @param issue
+	 * @param gitConfig
+	 * @return path of the file of the given issue
+	 */
+	static String getFilePath(BotIssue issue, GitConfiguration gitConfig) {
+		return gitConfig.getRepoFolder() + File.separator + issue.getFilePath();
+	}
+}
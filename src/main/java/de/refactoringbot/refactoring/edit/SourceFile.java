@@ -0,0 +1,102 @@
+package de.refactoringbot.refactoring.edit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+
+/**
+ * A source file together with the compilation unit parsed from its content and
+ * the text edits collected for it. The compilation unit is only read: changes
+ * are described as edits of the original text, which leaves everything outside
+ * of the edited ranges untouched.
+ */
+public class SourceFile {
+
+	private final String filePath;
+	private final SourceText text;
+	private final CompilationUnit compilationUnit;
+	private final List<TextEdit> edits = new ArrayList<>();
+
+	public SourceFile(String filePath, SourceText text, CompilationUnit compilationUnit) {
+		this.filePath = filePath;
+		this.text = text;
+		this.compilationUnit = compilationUnit;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public SourceText getText() {
+		return text;
+	}
+
+	public CompilationUnit getCompilationUnit() {
+		return compilationUnit;
+	}
+
+	/**
+	 * Replaces the text of the given node
+	 *
+	 * @param node
+	 * @param replacement
+	 */
+	public void replace(Node node, String replacement) {
+		edits.add(text.replace(node, replacement));
+	}
+
+	/**
+	 * Inserts the given text before the given position
+	 *
+	 * @param position
+	 * @param insertion
+	 */
+	public void insert(Position position, String insertion) {
+		edits.add(text.insert(position, insertion));
+	}
+
+	/**
+	 * @return all edits collected so far
+	 */
+	public List<TextEdit> getEdits() {
+		return Collections.unmodifiableList(edits);
+	}
+
+	/**
+	 * @return number of edits collected so far
+	 */
+	public int getEditCount() {
+		return edits.size();
+	}
+
+	/**
+	 * Discards all edits that were collected after the given number of edits, e.g.
+	 * the edits of a refactoring that failed
+	 *
+	 * @param editCount
+	 */
+	public void discardEditsAfter(int editCount) {
+		edits.subList(editCount, edits.size()).clear();
+	}
+
+	/**
+	 * @throws BotRefactoringException
+	 *             if the collected edits overlap
+	 */
+	public void validateEdits() throws BotRefactoringException {
+		text.validateEdits(edits);
+	}
+
+	/**
+	 * @return true if edits were collected
+	 */
+	public boolean hasEdits() {
+		return !edits.isEmpty();
+	}
+}
@@ -0,0 +1,164 @@
+package de.refactoringbot.refactoring.edit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+
+/**
+ * Content of a source file that maps the positions of the JavaParser (lines and
+ * columns starting at 1, a line terminator and a tab count as one character) to
+ * offsets and applies text edits to the content.
+ */
+public class SourceText {
+
+	private final String content;
+	private final int[] lineOffsets;
+	private final String lineSeparator;
+
+	public SourceText(String content) {
+		this.content = content;
+
+		List<Integer> offsets = new ArrayList<>();
+		offsets.add(0);
+		String firstLineSeparator = null;
+		for (int i = 0; i < content.length(); i++) {
+			char c = content.charAt(i);
+			if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+				firstLineSeparator = firstLineSeparator == null ? "\r\n" : firstLineSeparator;
+				i++;
+				offsets.add(i + 1);
+			} else if (c == '\n' || c == '\r') {
+				firstLineSeparator = firstLineSeparator == null ? String.valueOf(c) : firstLineSeparator;
+				offsets.add(i + 1);
+			}
+		}
+		this.lineOffsets = offsets.stream().mapToInt(Integer::intValue).toArray();
+		this.lineSeparator = firstLineSeparator != null ? firstLineSeparator : System.lineSeparator();
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	/**
+	 * @return the first line separator of the content or the one of the system if
+	 *         the content has a single line
+	 */
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	/**
+	 * @param position
+	 * @return offset of the character at the given position
+	 */
+	public int getOffset(Position position) {
+		if (position.line < 1 || position.line > lineOffsets.length) {
+			throw new IllegalArgumentException("Position " + position + " is outside of the source text");
+		}
+		int offset = lineOffsets[position.line - 1] + position.column - 1;
+		if (offset > content.length()) {
+			throw new IllegalArgumentException("Position " + position + " is outside of the source text");
+		}
+		return offset;
+	}
+
+	/**
+	 * @param range
+	 * @return offset after the last character of the given range
+	 */
+	public int getEndOffset(Range range) {
+		return getOffset(range.end) + 1;
+	}
+
+	/**
+	 * @param line
+	 * @return whitespace at the beginning of the given line
+	 */
+	public String getIndentation(int line) {
+		int begin = getOffset(new Position(line, 1));
+		int end = begin;
+		while (end < content.length() && (content.charAt(end) == ' ' || content.charAt(end) == '\t')) {
+			end++;
+		}
+		return content.substring(begin, end);
+	}
+
+	/**
+	 * @param node
+	 * @param replacement
+	 * @return edit that replaces the text of the given node
+	 */
+	public TextEdit replace(Node node, String replacement) {
+		Range range = getRange(node);
+		int offset = getOffset(range.begin);
+		return new TextEdit(offset, getEndOffset(range) - offset, replacement);
+	}
+
+	/**
+	 * @param position
+	 * @param text
+	 * @return edit that inserts the given text before the given position
+	 */
+	public TextEdit insert(Position position, String text) {
+		return new TextEdit(getOffset(position), 0, text);
+	}
+
+	/**
+	 * Applies the given edits to the content in one pass. The edits refer to the
+	 * offsets of the original content.
+	 *
+	 * @param edits
+	 * @return content with all edits applied
+	 * @throws BotRefactoringException
+	 *             if edits overlap or exceed the content
+	 */
+	public String applyEdits(Collection<TextEdit> edits) throws BotRefactoringException {
+		StringBuilder result = new StringBuilder(content.length());
+		int copiedUntil = 0;
+		for (TextEdit edit : sortAndValidate(edits)) {
+			result.append(content, copiedUntil, edit.getOffset()).append(edit.getReplacement());
+			copiedUntil = edit.getEnd();
+		}
+		result.append(content, copiedUntil, content.length());
+		return result.toString();
+	}
+
+	/**
+	 * @param edits
+	 * @throws BotRefactoringException
+	 *             if edits overlap or exceed the content
+	 */
+	public void validateEdits(Collection<TextEdit> edits) throws BotRefactoringException {
+		sortAndValidate(edits);
+	}
+
+	private List<TextEdit> sortAndValidate(Collection<TextEdit> edits) throws BotRefactoringException {
+		List<TextEdit> sortedEdits = new ArrayList<>(edits);
+		Collections.sort(sortedEdits);
+
+		TextEdit previous = null;
+		for (TextEdit edit : sortedEdits) {
+			if (previous != null && previous.overlaps(edit)) {
+				throw new BotRefactoringException("Overlapping changes " + previous + " and " + edit + "!");
+			}
+			if (edit.getEnd() > content.length()) {
+				throw new BotRefactoringException("Change " + edit + " exceeds the source text!");
+			}
+			previous = edit;
+		}
+		return sortedEdits;
+	}
+
+	private Range getRange(Node node) {
+		return node.getRange()
+				.orElseThrow(() -> new IllegalArgumentException("Node '" + node + "' has no position in the source"));
+	}
+}
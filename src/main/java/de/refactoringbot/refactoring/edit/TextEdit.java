@@ -0,0 +1,70 @@
+package de.refactoringbot.refactoring.edit;
+
+/**
+ * Replacement of a range of characters of a source text. Insertions are
+ * replacements of an empty range.
+ */
+public class TextEdit implements Comparable<TextEdit> {
+
+	private final int offset;
+	private final int length;
+	private final String replacement;
+
+	/**
+	 * @param offset
+	 *            offset of the first replaced character
+	 * @param length
+	 *            number of replaced characters
+	 * @param replacement
+	 */
+	public TextEdit(int offset, int length, String replacement) {
+		if (offset < 0 || length < 0) {
+			throw new IllegalArgumentException("Invalid range of text edit: " + offset + "+" + length);
+		}
+		this.offset = offset;
+		this.length = length;
+		this.replacement = replacement;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return offset after the last replaced character
+	 */
+	public int getEnd() {
+		return offset + length;
+	}
+
+	public String getReplacement() {
+		return replacement;
+	}
+
+	/**
+	 * @param other
+	 * @return true if both edits change the same characters or insert text at the
+	 *         same offset, in which case the result would depend on their order
+	 */
+	public boolean overlaps(TextEdit other) {
+		if (offset == other.offset) {
+			return true;
+		}
+		return offset < other.getEnd() && other.offset < getEnd();
+	}
+
+	@Override
+	public int compareTo(TextEdit other) {
+		int result = Integer.compare(offset, other.offset);
+		return result != 0 ? result : Integer.compare(length, other.length);
+	}
+
+	@Override
+	public String toString() {
+		return "[" + offset + ", " + getEnd() + ") -> '" + replacement + "'";
+	}
+}
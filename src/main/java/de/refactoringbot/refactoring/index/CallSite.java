@@ -0,0 +1,78 @@
+package de.refactoringbot.refactoring.index;
+
+import com.github.javaparser.Range;
+
+/**
+ * Location of a method call inside an indexed Java file
+ */
+public class CallSite {
+
+	private String qualifiedSignature;
+	private int beginLine;
+	private int beginColumn;
+	private int endLine;
+	private int endColumn;
+
+	public CallSite() {
+	}
+
+	public CallSite(String qualifiedSignature, Range range) {
+		this.qualifiedSignature = qualifiedSignature;
+		this.beginLine = range.begin.line;
+		this.beginColumn = range.begin.column;
+		this.endLine = range.end.line;
+		this.endColumn = range.end.column;
+	}
+
+	/**
+	 * @return qualified signature of the called method, e.g.
+	 *         <code>a.b.C.foo(java.lang.String)</code>
+	 */
+	public String getQualifiedSignature() {
+		return qualifiedSignature;
+	}
+
+	public void setQualifiedSignature(String qualifiedSignature) {
+		this.qualifiedSignature = qualifiedSignature;
+	}
+
+	public int getBeginLine() {
+		return beginLine;
+	}
+
+	public void setBeginLine(int beginLine) {
+		this.beginLine = beginLine;
+	}
+
+	public int getBeginColumn() {
+		return beginColumn;
+	}
+
+	public void setBeginColumn(int beginColumn) {
+		this.beginColumn = beginColumn;
+	}
+
+	public int getEndLine() {
+		return endLine;
+	}
+
+	public void setEndLine(int endLine) {
+		this.endLine = endLine;
+	}
+
+	public int getEndColumn() {
+		return endColumn;
+	}
+
+	public void setEndColumn(int endColumn) {
+		this.endColumn = endColumn;
+	}
+
+	/**
+	 * @return range of the method call expression
+	 */
+	public Range toRange() {
+		return Range.range(beginLine, beginColumn, endLine, endColumn);
+	}
+
+}
@@ -0,0 +1,76 @@
+package de.refactoringbot.refactoring.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Java file inside the call site index with the resolved method calls it
+ * contains
+ */
+public class CallSiteFile extends FileFingerprint {
+
+	private List<CallSite> callSites = new ArrayList<>();
+	private Set<String> calledMethodNames = new HashSet<>();
+	private Set<String> unresolvedMethodNames = new HashSet<>();
+	private Set<String> declaredMethods = new HashSet<>();
+	private Map<String, Set<String>> declaredTypes = new HashMap<>();
+
+	public List<CallSite> getCallSites() {
+		return callSites;
+	}
+
+	public void setCallSites(List<CallSite> callSites) {
+		this.callSites = callSites;
+	}
+
+	/**
+	 * @return simple names of all called methods, including calls that could not
+	 *         be resolved
+	 */
+	public Set<String> getCalledMethodNames() {
+		return calledMethodNames;
+	}
+
+	public void setCalledMethodNames(Set<String> calledMethodNames) {
+		this.calledMethodNames = calledMethodNames;
+	}
+
+	/**
+	 * @return simple names of all called methods that could not be resolved
+	 */
+	public Set<String> getUnresolvedMethodNames() {
+		return unresolvedMethodNames;
+	}
+
+	public void setUnresolvedMethodNames(Set<String> unresolvedMethodNames) {
+		this.unresolvedMethodNames = unresolvedMethodNames;
+	}
+
+	/**
+	 * @return qualified signatures of all methods declared in the file
+	 */
+	public Set<String> getDeclaredMethods() {
+		return declaredMethods;
+	}
+
+	public void setDeclaredMethods(Set<String> declaredMethods) {
+		this.declaredMethods = declaredMethods;
+	}
+
+	/**
+	 * @return qualified names of all types declared in the file, mapped to the
+	 *         qualified names of their ancestors (without java.lang.Object)
+	 */
+	public Map<String, Set<String>> getDeclaredTypes() {
+		return declaredTypes;
+	}
+
+	public void setDeclaredTypes(Map<String, Set<String>> declaredTypes) {
+		this.declaredTypes = declaredTypes;
+	}
+
+}
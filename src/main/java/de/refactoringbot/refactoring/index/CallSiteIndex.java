@@ -0,0 +1,619 @@
+package de.refactoringbot.refactoring.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+
+import de.refactoringbot.refactoring.parsing.ParallelParser;
+
+/**
+ * Reverse index from the qualified signature of a method to the files that
+ * call it, so that refactorings which have to adapt all calls of a method only
+ * need to parse and resolve the files that actually contain such calls.
+ *
+ * The index is built in the background, persisted inside the workspace and
+ * updated incrementally: only files that changed since they were indexed are
+ * parsed again. If the methods declared in a file change, files calling
+ * methods with the same names are indexed again as well, as their calls might
+ * resolve differently now. The same applies to files calling methods of types
+ * that were added, removed or got other ancestors, of their old and new
+ * ancestors and of types with the same simple name, as such calls might be
+ * bound to another type now. When the HEAD of the workspace moves, the files
+ * changed by the new commits are indexed again right away. Files that are not
+ * (yet) indexed or have changed since are always reported as candidates, so a
+ * lookup never misses a call site.
+ */
+public class CallSiteIndex implements CommitTrackingIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(CallSiteIndex.class);
+
+	private static final String INDEX_FILE_NAME = "call-sites.json";
+	private static final String JAVA_LANG_OBJECT = "java.lang.Object";
+
+	private static final Map<String, CallSiteIndex> workspaceIndexes = new ConcurrentHashMap<>();
+
+	private static final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "call-site-indexer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final File indexFile;
+	private final Map<String, CallSiteFile> files = new HashMap<>();
+	private final AtomicReference<PendingUpdate> pendingUpdate = new AtomicReference<>();
+	private String indexedCommit;
+	private List<String> lastJavaRoots;
+	private boolean discarded;
+
+	// derived from the indexed files
+	private final Map<String, Set<String>> callers = new HashMap<>();
+
+	private CallSiteIndex(File indexFile) {
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Returns the index of the given workspace. A persisted index is loaded on
+	 * first access.
+	 *
+	 * @param workspaceFolder
+	 * @return index
+	 */
+	public static CallSiteIndex forWorkspace(String workspaceFolder) {
+		return workspaceIndexes.computeIfAbsent(new File(workspaceFolder).getAbsolutePath(), folder -> {
+			CallSiteIndex index = new CallSiteIndex(IndexStorage.getIndexFile(folder, INDEX_FILE_NAME));
+			index.load();
+			return index;
+		});
+	}
+
+	/**
+	 * Drops the index of the given workspace, e.g. because the workspace was
+	 * deleted. A running update of the index is not persisted anymore.
+	 *
+	 * @param workspaceFolder
+	 */
+	public static void removeWorkspace(String workspaceFolder) {
+		CallSiteIndex index = workspaceIndexes.remove(new File(workspaceFolder).getAbsolutePath());
+		if (index != null) {
+			index.discard();
+		}
+	}
+
+	/**
+	 * Seeds the index of a new worktree with the index of its workspace, so that
+	 * only files that differ between both are indexed again.
+	 *
+	 * @param workspaceFolder
+	 * @param worktreeFolder
+	 */
+	public static void copyWorkspace(String workspaceFolder, String worktreeFolder) {
+		CallSiteIndex source = forWorkspace(workspaceFolder);
+		PersistedCallSites persisted;
+		synchronized (source) {
+			persisted = IndexStorage.copy(source.toPersisted(), PersistedCallSites.class);
+		}
+		persisted.getFiles()
+				.removeIf(indexedFile -> !IndexStorage.relocate(indexedFile, workspaceFolder, worktreeFolder));
+
+		removeWorkspace(worktreeFolder);
+		String folder = new File(worktreeFolder).getAbsolutePath();
+		CallSiteIndex index = new CallSiteIndex(IndexStorage.getIndexFile(folder, INDEX_FILE_NAME));
+		synchronized (index) {
+			index.load(persisted);
+			index.persist();
+		}
+		workspaceIndexes.put(folder, index);
+	}
+
+	/**
+	 * @return index that is neither shared nor persisted
+	 */
+	public static CallSiteIndex createTransient() {
+		return new CallSiteIndex(null);
+	}
+
+	/**
+	 * Schedules an update of the index with the given files. Updates that are
+	 * requested while another one is still pending are merged into the pending
+	 * one.
+	 *
+	 * @param allJavaFiles
+	 * @param javaRoots
+	 */
+	public void updateInBackground(List<String> allJavaFiles, List<String> javaRoots) {
+		PendingUpdate update = new PendingUpdate(new ArrayList<>(allJavaFiles), new ArrayList<>(javaRoots));
+		if (pendingUpdate.getAndSet(update) == null) {
+			indexer.execute(() -> {
+				PendingUpdate latest = pendingUpdate.getAndSet(null);
+				if (latest != null) {
+					try {
+						update(latest.allJavaFiles, latest.javaRoots);
+					} catch (Exception e) {
+						logger.error("Could not update call site index!", e);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Brings the index up to date with the given files. Only files that are new or
+	 * changed since they were indexed are parsed, in parallel and with parsers of
+	 * their own so that running refactorings are not affected.
+	 *
+	 * @param allJavaFiles
+	 * @param javaRoots
+	 */
+	public void update(List<String> allJavaFiles, List<String> javaRoots) {
+		Set<String> filesToIndex = new HashSet<>();
+		synchronized (this) {
+			lastJavaRoots = new ArrayList<>(javaRoots);
+			for (String javaFile : allJavaFiles) {
+				CallSiteFile indexedFile = files.get(javaFile);
+				if (indexedFile == null || !indexedFile.isComplete() || !indexedFile.isUpToDate()) {
+					filesToIndex.add(javaFile);
+				}
+			}
+			if (filesToIndex.isEmpty() && files.size() == allJavaFiles.size()) {
+				return;
+			}
+		}
+
+		// parse and resolve without holding the lock, lookups stay possible meanwhile
+		Map<String, CallSiteFile> indexedFiles = ParallelParser.getInstance().analyzeAll(filesToIndex, javaRoots,
+				(javaFile, parser) -> indexJavaFile(parser, javaFile));
+
+		synchronized (this) {
+			Set<String> changedMethodNames = new HashSet<>();
+			TypeChanges typeChanges = new TypeChanges();
+			Set<String> currentFiles = new HashSet<>(allJavaFiles);
+			for (String removedFile : new ArrayList<>(files.keySet())) {
+				if (!currentFiles.contains(removedFile)) {
+					CallSiteFile removed = files.remove(removedFile);
+					changedMethodNames.addAll(getMethodNames(removed.getDeclaredMethods()));
+					typeChanges.collect(removed.getDeclaredTypes(), Collections.emptyMap());
+				}
+			}
+			for (String javaFile : filesToIndex) {
+				CallSiteFile indexedFile = indexedFiles.computeIfAbsent(javaFile, CallSiteIndex::createIncompleteFile);
+				CallSiteFile previous = files.put(indexedFile.getFilePath(), indexedFile);
+				if (previous != null) {
+					changedMethodNames.addAll(getChangedMethodNames(previous, indexedFile));
+				}
+				typeChanges.collect(previous != null ? previous.getDeclaredTypes() : Collections.emptyMap(),
+						indexedFile.getDeclaredTypes());
+			}
+			invalidateCallersOf(changedMethodNames, filesToIndex);
+			invalidateCallersOf(typeChanges, filesToIndex);
+			rebuildCallers();
+			persist();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String getIndexedCommit() {
+		return indexedCommit;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Changed files are indexed again in the background with the Java roots of the
+	 * last update.
+	 */
+	@Override
+	public void applyChanges(String commitId, Set<String> changedFiles, Set<String> deletedFiles) {
+		List<String> allJavaFiles;
+		List<String> javaRoots;
+		synchronized (this) {
+			Set<String> changedMethodNames = new HashSet<>();
+			TypeChanges typeChanges = new TypeChanges();
+			for (String deletedFile : deletedFiles) {
+				CallSiteFile removed = files.remove(deletedFile);
+				if (removed != null) {
+					changedMethodNames.addAll(getMethodNames(removed.getDeclaredMethods()));
+					typeChanges.collect(removed.getDeclaredTypes(), Collections.emptyMap());
+				}
+			}
+			for (String changedFile : changedFiles) {
+				CallSiteFile indexedFile = files.get(changedFile);
+				if (indexedFile != null) {
+					indexedFile.setComplete(false);
+				}
+			}
+			invalidateCallersOf(changedMethodNames, Collections.emptySet());
+			invalidateCallersOf(typeChanges, Collections.emptySet());
+			indexedCommit = commitId;
+			rebuildCallers();
+			persist();
+
+			if (lastJavaRoots == null || (files.isEmpty() && changedFiles.isEmpty())) {
+				// nothing indexed yet, the first update builds the index
+				return;
+			}
+			Set<String> currentFiles = new HashSet<>(files.keySet());
+			currentFiles.addAll(changedFiles);
+			allJavaFiles = new ArrayList<>(currentFiles);
+			javaRoots = lastJavaRoots;
+		}
+		updateInBackground(allJavaFiles, javaRoots);
+	}
+
+	/**
+	 * Finds all files that might contain a call of one of the given methods. These
+	 * are all indexed files with a matching call site, files with a call of a
+	 * method with the same name that could not be resolved and all files that are
+	 * not indexed or have changed since they were indexed.
+	 *
+	 * @param qualifiedSignatures
+	 *            qualified method signatures, e.g.
+	 *            <code>a.b.C.foo(java.lang.String)</code>
+	 * @param allJavaFiles
+	 * @return candidate files
+	 */
+	public synchronized Set<String> findFilesWithCallSites(Set<String> qualifiedSignatures,
+			List<String> allJavaFiles) {
+		Set<String> callingFiles = new HashSet<>();
+		for (String qualifiedSignature : qualifiedSignatures) {
+			callingFiles.addAll(callers.getOrDefault(qualifiedSignature, Collections.emptySet()));
+		}
+		Set<String> methodNames = getMethodNames(qualifiedSignatures);
+
+		Set<String> result = new HashSet<>();
+		for (String javaFile : allJavaFiles) {
+			CallSiteFile indexedFile = files.get(javaFile);
+			if (indexedFile == null || !indexedFile.isComplete() || !indexedFile.isUpToDate()
+					|| callingFiles.contains(javaFile)
+					|| !Collections.disjoint(indexedFile.getUnresolvedMethodNames(), methodNames)) {
+				result.add(javaFile);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param qualifiedSignature
+	 * @return indexed call sites of the given method, grouped by file
+	 */
+	public synchronized Map<String, List<CallSite>> getCallSites(String qualifiedSignature) {
+		Map<String, List<CallSite>> result = new HashMap<>();
+		for (String javaFile : callers.getOrDefault(qualifiedSignature, Collections.emptySet())) {
+			for (CallSite callSite : files.get(javaFile).getCallSites()) {
+				if (callSite.getQualifiedSignature().equals(qualifiedSignature)) {
+					result.computeIfAbsent(javaFile, k -> new ArrayList<>()).add(callSite);
+				}
+			}
+		}
+		return result;
+	}
+
+	private CallSiteFile indexJavaFile(JavaParser parser, String javaFile) {
+		CallSiteFile indexedFile = new CallSiteFile();
+		indexedFile.setFilePath(javaFile);
+		try {
+			indexedFile.readFingerprint();
+			CompilationUnit cu = ParallelParser.parse(parser, javaFile);
+
+			for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+				type.getFullyQualifiedName().ifPresent(
+						qualifiedName -> indexedFile.getDeclaredTypes().put(qualifiedName, getAncestors(type)));
+			}
+
+			for (MethodDeclaration method : cu.findAll(MethodDeclaration.class)) {
+				try {
+					indexedFile.getDeclaredMethods().add(method.resolve().getQualifiedSignature());
+				} catch (Exception e) {
+					logger.debug("Could not resolve method declaration '{}' in '{}'", method.getNameAsString(),
+							javaFile);
+				}
+			}
+
+			for (MethodCallExpr methodCall : cu.findAll(MethodCallExpr.class)) {
+				indexedFile.getCalledMethodNames().add(methodCall.getNameAsString());
+				try {
+					String qualifiedSignature = methodCall.resolve().getQualifiedSignature();
+					methodCall.getRange().ifPresent(
+							range -> indexedFile.getCallSites().add(new CallSite(qualifiedSignature, range)));
+				} catch (Exception e) {
+					// e.g. calls of methods from external dependencies
+					indexedFile.getUnresolvedMethodNames().add(methodCall.getNameAsString());
+				}
+			}
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			indexedFile.setComplete(false);
+		} catch (Exception e) {
+			logger.warn("Could not index call sites of '{}': {}", javaFile, e.getMessage());
+			indexedFile.setComplete(false);
+		}
+		return indexedFile;
+	}
+
+	/**
+	 * @param type
+	 * @return qualified names of all ancestors of the given type that can be
+	 *         resolved
+	 */
+	private Set<String> getAncestors(TypeDeclaration<?> type) {
+		Set<String> ancestors = new HashSet<>();
+		try {
+			for (ResolvedReferenceType ancestor : type.resolve().getAllAncestors()) {
+				ancestors.add(ancestor.getQualifiedName());
+			}
+		} catch (Exception e) {
+			logger.debug("Could not resolve ancestors of '{}'", type.getNameAsString());
+		}
+		ancestors.remove(JAVA_LANG_OBJECT);
+		return ancestors;
+	}
+
+	private static CallSiteFile createIncompleteFile(String javaFile) {
+		CallSiteFile indexedFile = new CallSiteFile();
+		indexedFile.setFilePath(javaFile);
+		indexedFile.setComplete(false);
+		return indexedFile;
+	}
+
+	/**
+	 * @param previous
+	 * @param current
+	 * @return names of all methods that were added to or removed from the file
+	 */
+	private Set<String> getChangedMethodNames(CallSiteFile previous, CallSiteFile current) {
+		Set<String> added = new HashSet<>(current.getDeclaredMethods());
+		added.removeAll(previous.getDeclaredMethods());
+		Set<String> removed = new HashSet<>(previous.getDeclaredMethods());
+		removed.removeAll(current.getDeclaredMethods());
+
+		Set<String> changedMethodNames = getMethodNames(added);
+		changedMethodNames.addAll(getMethodNames(removed));
+		return changedMethodNames;
+	}
+
+	/**
+	 * Marks all files which call methods with the given names as incomplete, so
+	 * that they are indexed again with the next update
+	 *
+	 * @param methodNames
+	 * @param indexedFiles
+	 *            files that were just indexed
+	 */
+	private void invalidateCallersOf(Set<String> methodNames, Set<String> indexedFiles) {
+		if (methodNames.isEmpty()) {
+			return;
+		}
+		for (CallSiteFile indexedFile : files.values()) {
+			if (!indexedFiles.contains(indexedFile.getFilePath())
+					&& !Collections.disjoint(indexedFile.getCalledMethodNames(), methodNames)) {
+				indexedFile.setComplete(false);
+			}
+		}
+	}
+
+	/**
+	 * Marks all files which call methods of the changed types as incomplete, so
+	 * that they are indexed again with the next update. These are calls bound to
+	 * a changed type, to one of its old or new ancestors or to a type with the
+	 * same simple name as an added or removed type, and calls of methods with the
+	 * same names as the methods declared in these types.
+	 *
+	 * @param typeChanges
+	 * @param indexedFiles
+	 *            files that were just indexed
+	 */
+	private void invalidateCallersOf(TypeChanges typeChanges, Set<String> indexedFiles) {
+		if (typeChanges.isEmpty()) {
+			return;
+		}
+		Set<String> changedTypes = new HashSet<>(typeChanges.types);
+		for (CallSiteFile indexedFile : files.values()) {
+			for (Map.Entry<String, Set<String>> type : indexedFile.getDeclaredTypes().entrySet()) {
+				if (typeChanges.simpleNames.contains(getSimpleName(type.getKey()))) {
+					changedTypes.add(type.getKey());
+					changedTypes.addAll(type.getValue());
+				}
+			}
+		}
+		Set<String> methodNames = new HashSet<>();
+		for (CallSiteFile indexedFile : files.values()) {
+			for (String declaredMethod : indexedFile.getDeclaredMethods()) {
+				if (changedTypes.contains(getDeclaringType(declaredMethod))) {
+					methodNames.addAll(getMethodNames(Collections.singleton(declaredMethod)));
+				}
+			}
+		}
+
+		for (CallSiteFile indexedFile : files.values()) {
+			if (indexedFiles.contains(indexedFile.getFilePath())) {
+				continue;
+			}
+			boolean bindsChangedType = !Collections.disjoint(indexedFile.getCalledMethodNames(), methodNames);
+			for (CallSite callSite : indexedFile.getCallSites()) {
+				if (bindsChangedType) {
+					break;
+				}
+				String declaringType = getDeclaringType(callSite.getQualifiedSignature());
+				bindsChangedType = changedTypes.contains(declaringType)
+						|| typeChanges.simpleNames.contains(getSimpleName(declaringType));
+			}
+			if (bindsChangedType) {
+				indexedFile.setComplete(false);
+			}
+		}
+	}
+
+	/**
+	 * @param qualifiedSignature
+	 * @return qualified name of the type that declares the given method
+	 */
+	private static String getDeclaringType(String qualifiedSignature) {
+		int parametersStart = qualifiedSignature.indexOf('(');
+		String qualifiedName = parametersStart < 0 ? qualifiedSignature
+				: qualifiedSignature.substring(0, parametersStart);
+		int nameStart = qualifiedName.lastIndexOf('.');
+		return nameStart < 0 ? "" : qualifiedName.substring(0, nameStart);
+	}
+
+	/**
+	 * @param qualifiedTypeName
+	 * @return simple name of the given type
+	 */
+	private static String getSimpleName(String qualifiedTypeName) {
+		return qualifiedTypeName.substring(qualifiedTypeName.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * @param qualifiedSignatures
+	 * @return simple method names of the given signatures
+	 */
+	private static Set<String> getMethodNames(Set<String> qualifiedSignatures) {
+		Set<String> methodNames = new HashSet<>();
+		for (String qualifiedSignature : qualifiedSignatures) {
+			int parametersStart = qualifiedSignature.indexOf('(');
+			String qualifiedName = parametersStart < 0 ? qualifiedSignature
+					: qualifiedSignature.substring(0, parametersStart);
+			methodNames.add(qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+		}
+		return methodNames;
+	}
+
+	private void rebuildCallers() {
+		callers.clear();
+		for (CallSiteFile indexedFile : files.values()) {
+			for (CallSite callSite : indexedFile.getCallSites()) {
+				callers.computeIfAbsent(callSite.getQualifiedSignature(), k -> new HashSet<>())
+						.add(indexedFile.getFilePath());
+			}
+		}
+	}
+
+	private synchronized void discard() {
+		discarded = true;
+		pendingUpdate.set(null);
+	}
+
+	private void load() {
+		PersistedCallSites persisted = IndexStorage.read(indexFile, PersistedCallSites.class);
+		if (persisted != null) {
+			load(persisted);
+		}
+	}
+
+	private void load(PersistedCallSites persisted) {
+		for (CallSiteFile indexedFile : persisted.getFiles()) {
+			files.put(indexedFile.getFilePath(), indexedFile);
+		}
+		indexedCommit = persisted.getIndexedCommit();
+		rebuildCallers();
+	}
+
+	private void persist() {
+		if (!discarded) {
+			IndexStorage.write(indexFile, toPersisted());
+		}
+	}
+
+	private PersistedCallSites toPersisted() {
+		PersistedCallSites persisted = new PersistedCallSites();
+		persisted.setFiles(new ArrayList<>(files.values()));
+		persisted.setIndexedCommit(indexedCommit);
+		return persisted;
+	}
+
+	/**
+	 * Types that were added, removed or got other ancestors since the files
+	 * declaring them were indexed
+	 */
+	private static class TypeChanges {
+		// changed types with their old and new ancestors
+		private final Set<String> types = new HashSet<>();
+		// simple names of added and removed types
+		private final Set<String> simpleNames = new HashSet<>();
+
+		void collect(Map<String, Set<String>> previousTypes, Map<String, Set<String>> currentTypes) {
+			Set<String> typeNames = new HashSet<>(previousTypes.keySet());
+			typeNames.addAll(currentTypes.keySet());
+			for (String typeName : typeNames) {
+				Set<String> previousAncestors = previousTypes.get(typeName);
+				Set<String> currentAncestors = currentTypes.get(typeName);
+				if (Objects.equals(previousAncestors, currentAncestors)) {
+					continue;
+				}
+				types.add(typeName);
+				if (previousAncestors == null || currentAncestors == null) {
+					simpleNames.add(getSimpleName(typeName));
+				}
+				if (previousAncestors != null) {
+					types.addAll(previousAncestors);
+				}
+				if (currentAncestors != null) {
+					types.addAll(currentAncestors);
+				}
+			}
+		}
+
+		boolean isEmpty() {
+			return types.isEmpty();
+		}
+	}
+
+	private static class PendingUpdate {
+		private final List<String> allJavaFiles;
+		private final List<String> javaRoots;
+
+		PendingUpdate(List<String> allJavaFiles, List<String> javaRoots) {
+			this.allJavaFiles = allJavaFiles;
+			this.javaRoots = javaRoots;
+		}
+	}
+
+	/**
+	 * Persisted form of the call site index
+	 */
+	public static class PersistedCallSites {
+
+		private List<CallSiteFile> files = new ArrayList<>();
+		private String indexedCommit;
+
+		public List<CallSiteFile> getFiles() {
+			return files;
+		}
+
+		public void setFiles(List<CallSiteFile> files) {
+			this.files = files;
+		}
+
+		public String getIndexedCommit() {
+			return indexedCommit;
+		}
+
+		public void setIndexedCommit(String indexedCommit) {
+			this.indexedCommit = indexedCommit;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package de.refactoringbot.refactoring.index;
+
+import java.util.Set;
+
+/**
+ * Workspace index that records the commit it was last brought up to date with,
+ * so that it can be maintained with the changes between two commits instead of
+ * being checked file by file.
+ */
+public interface CommitTrackingIndex {
+
+	/**
+	 * @return id of the commit the index was last updated to or null if the index
+	 *         has never been updated from a commit
+	 */
+	String getIndexedCommit();
+
+	/**
+	 * Applies the changes between the indexed commit and the given commit to the
+	 * index. Deleted files are removed from the index and changed files are
+	 * indexed again.
+	 *
+	 * @param commitId
+	 * @param changedFiles
+	 *            absolute paths of all added and modified Java files
+	 * @param deletedFiles
+	 *            absolute paths of all deleted Java files
+	 */
+	void applyChanges(String commitId, Set<String> changedFiles, Set<String> deletedFiles);
+
+}
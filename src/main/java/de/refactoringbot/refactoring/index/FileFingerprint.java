@@ -0,0 +1,123 @@
+package de.refactoringbot.refactoring.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Base class of the per-file entries of the workspace indexes. The size,
+ * modification time and content hash of the file at indexing time are used to
+ * detect whether the indexed data is still up to date.
+ */
+public abstract class FileFingerprint {
+
+	private String filePath;
+	private long size;
+	private long lastModified;
+	private String hash;
+	private boolean complete = true;
+
+	/**
+	 * Reads the current size, modification time and content hash of the file
+	 * 
+	 * @throws IOException
+	 */
+	public void readFingerprint() throws IOException {
+		Path path = Paths.get(filePath);
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		size = attributes.size();
+		lastModified = attributes.lastModifiedTime().toMillis();
+		hash = hash(path);
+	}
+
+	/**
+	 * Checks if the file has not changed since it was indexed. The content hash is
+	 * only computed if the size or modification time differ.
+	 * 
+	 * @return true if the file is unchanged, false otherwise
+	 */
+	@JsonIgnore
+	public boolean isUpToDate() {
+		if (hash == null) {
+			return false;
+		}
+		Path path = Paths.get(filePath);
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+			if (attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified) {
+				return true;
+			}
+			if (attributes.size() == size && hash(path).equals(hash)) {
+				// content is unchanged although the file was touched
+				lastModified = attributes.lastModifiedTime().toMillis();
+				return true;
+			}
+		} catch (IOException e) {
+			return false;
+		}
+		return false;
+	}
+
+	private static String hash(Path path) throws IOException {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(Files.readAllBytes(path));
+			return Base64.getEncoder().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not supported by the JVM", e);
+		}
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public void setFilePath(String filePath) {
+		this.filePath = filePath;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(long lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public void setHash(String hash) {
+		this.hash = hash;
+	}
+
+	/**
+	 * A file is incomplete if it could not be indexed completely (e.g. because it
+	 * could not be parsed). Such files are indexed again on every update.
+	 * 
+	 * @return complete
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	public void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+
+}
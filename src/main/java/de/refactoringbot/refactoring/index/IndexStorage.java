@@ -0,0 +1,118 @@
+package de.refactoringbot.refactoring.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Persists workspace indexes inside the git folder of the workspace, which is
+ * located in the bot refactoring directory. Indexes of folders that are not git
+ * repositories (e.g. in tests) are not persisted.
+ */
+class IndexStorage {
+
+	private static final Logger logger = LoggerFactory.getLogger(IndexStorage.class);
+
+	private static final String INDEX_FOLDER = ".git" + File.separator + "refactoring-bot";
+
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private IndexStorage() {
+	}
+
+	/**
+	 * @param workspaceFolder
+	 * @param fileName
+	 * @return index file inside the given workspace or null if the index can not be
+	 *         persisted
+	 */
+	static File getIndexFile(String workspaceFolder, String fileName) {
+		if (workspaceFolder == null || !new File(workspaceFolder, ".git").isDirectory()) {
+			return null;
+		}
+		return new File(new File(workspaceFolder, INDEX_FOLDER), fileName);
+	}
+
+	/**
+	 * @param indexFile
+	 * @param type
+	 * @return persisted index or null if none exists or it can not be read
+	 */
+	static <T> T read(File indexFile, Class<T> type) {
+		if (indexFile == null || !indexFile.isFile()) {
+			return null;
+		}
+		try {
+			return mapper.readValue(indexFile, type);
+		} catch (IOException e) {
+			logger.warn("Could not read index '{}'. It will be rebuilt.", indexFile, e);
+			return null;
+		}
+	}
+
+	/**
+	 * @param indexFile
+	 * @param index
+	 */
+	static void write(File indexFile, Object index) {
+		if (indexFile == null) {
+			return;
+		}
+		try {
+			indexFile.getParentFile().mkdirs();
+			// write to a temporary file first so that a crash never leaves a broken index
+			File tempFile = new File(indexFile.getPath() + ".tmp");
+			mapper.writeValue(tempFile, index);
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			logger.error("Could not persist index '{}'!", indexFile, e);
+		}
+	}
+
+	/**
+	 * @param index
+	 * @param type
+	 * @return deep copy of the given index
+	 */
+	static <T> T copy(T index, Class<T> type) {
+		return mapper.convertValue(index, type);
+	}
+
+	/**
+	 * Moves the given file entry from one workspace to another, e.g. from a
+	 * workspace to one of its worktrees.
+	 *
+	 * @param indexedFile
+	 * @param fromFolder
+	 * @param toFolder
+	 * @return false if the file is not located inside the first workspace
+	 */
+	static boolean relocate(FileFingerprint indexedFile, String fromFolder, String toFolder) {
+		Path filePath = Paths.get(indexedFile.getFilePath());
+		try {
+			for (boolean canonical : new boolean[] { false, true }) {
+				Path from = canonical ? new File(fromFolder).getCanonicalFile().toPath()
+						: new File(fromFolder).getAbsoluteFile().toPath();
+				if (filePath.startsWith(from)) {
+					Path to = canonical ? new File(toFolder).getCanonicalFile().toPath()
+							: new File(toFolder).getAbsoluteFile().toPath();
+					indexedFile.setFilePath(to.resolve(from.relativize(filePath)).toString());
+					return true;
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Could not relocate '{}': {}", filePath, e.getMessage());
+		}
+		return false;
+	}
+}
@@ -0,0 +1,22 @@
+package de.refactoringbot.refactoring.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Java file inside the type hierarchy index with the classes and interfaces
+ * it declares.
+ */
+public class IndexedFile extends FileFingerprint {
+
+	private List<IndexedType> types = new ArrayList<>();
+
+	public List<IndexedType> getTypes() {
+		return types;
+	}
+
+	public void setTypes(List<IndexedType> types) {
+		this.types = types;
+	}
+
+}
@@ -0,0 +1,56 @@
+package de.refactoringbot.refactoring.index;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A class or interface inside the type hierarchy index with its direct
+ * supertypes and the signatures of its declared methods.
+ */
+public class IndexedType {
+
+	private String qualifiedName;
+	private List<String> superTypes = new ArrayList<>();
+	private Set<String> methodSignatures = new HashSet<>();
+
+	public IndexedType() {
+	}
+
+	public IndexedType(String qualifiedName) {
+		this.qualifiedName = qualifiedName;
+	}
+
+	public String getQualifiedName() {
+		return qualifiedName;
+	}
+
+	public void setQualifiedName(String qualifiedName) {
+		this.qualifiedName = qualifiedName;
+	}
+
+	/**
+	 * @return qualified names of the direct supertypes (without java.lang.Object)
+	 */
+	public List<String> getSuperTypes() {
+		return superTypes;
+	}
+
+	public void setSuperTypes(List<String> superTypes) {
+		this.superTypes = superTypes;
+	}
+
+	/**
+	 * @return resolved signatures of the declared methods, e.g.
+	 *         <code>foo(java.lang.String)</code>
+	 */
+	public Set<String> getMethodSignatures() {
+		return methodSignatures;
+	}
+
+	public void setMethodSignatures(Set<String> methodSignatures) {
+		this.methodSignatures = methodSignatures;
+	}
+
+}
@@ -0,0 +1,569 @@
+package de.refactoringbot.refactoring.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+import de.refactoringbot.refactoring.RefactoringHelper;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
+import de.refactoringbot.refactoring.parsing.ParallelParser;
+import de.refactoringbot.refactoring.resolution.DependencyJarTypeSolver;
+import de.refactoringbot.refactoring.resolution.JarClassIndex;
+import de.refactoringbot.refactoring.resolution.WorkspaceSymbolSolver;
+
+/**
+ * Type hierarchy of all classes and interfaces of a workspace. For every type
+ * the index holds its direct supertypes and the signatures of its declared
+ * methods, so that related types of a method can be found with a graph
+ * traversal instead of resolving every type of the workspace again.
+ *
+ * The index is built once per workspace and persisted inside the workspace. On
+ * every update only files that changed since they were indexed are parsed
+ * again. Supertypes outside of the workspace (e.g. from the JDK) are indexed as
+ * external types. When the HEAD of the workspace moves, the files changed by
+ * the new commits are indexed again with the next update.
+ */
+public class TypeHierarchyIndex implements CommitTrackingIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(TypeHierarchyIndex.class);
+
+	private static final String INDEX_FILE_NAME = "type-hierarchy.json";
+	private static final String JAVA_LANG_OBJECT = "java.lang.Object";
+
+	private static final Map<String, TypeHierarchyIndex> workspaceIndexes = new ConcurrentHashMap<>();
+
+	private final File indexFile;
+	private final String workspaceFolder;
+	private final Map<String, IndexedFile> files = new HashMap<>();
+	private final Map<String, IndexedType> externalTypes = new HashMap<>();
+	private String indexedCommit;
+
+	// derived from the indexed files
+	private final Map<String, IndexedType> workspaceTypes = new HashMap<>();
+	private final Map<String, Set<String>> subTypes = new HashMap<>();
+
+	private TypeHierarchyIndex(File indexFile, String workspaceFolder) {
+		this.indexFile = indexFile;
+		this.workspaceFolder = workspaceFolder;
+	}
+
+	/**
+	 * Returns the index of the given workspace. A persisted index is loaded on
+	 * first access.
+	 *
+	 * @param workspaceFolder
+	 * @return index
+	 */
+	public static TypeHierarchyIndex forWorkspace(String workspaceFolder) {
+		return workspaceIndexes.computeIfAbsent(new File(workspaceFolder).getAbsolutePath(), folder -> {
+			TypeHierarchyIndex index = new TypeHierarchyIndex(IndexStorage.getIndexFile(folder, INDEX_FILE_NAME),
+					folder);
+			index.load();
+			return index;
+		});
+	}
+
+	/**
+	 * Drops the index of the given workspace, e.g. because the workspace was
+	 * deleted
+	 *
+	 * @param workspaceFolder
+	 */
+	public static void removeWorkspace(String workspaceFolder) {
+		workspaceIndexes.remove(new File(workspaceFolder).getAbsolutePath());
+	}
+
+	/**
+	 * Seeds the index of a new worktree with the index of its workspace, so that
+	 * only files that differ between both are indexed again.
+	 *
+	 * @param workspaceFolder
+	 * @param worktreeFolder
+	 */
+	public static void copyWorkspace(String workspaceFolder, String worktreeFolder) {
+		TypeHierarchyIndex source = forWorkspace(workspaceFolder);
+		PersistedTypeHierarchy persisted;
+		synchronized (source) {
+			persisted = IndexStorage.copy(source.toPersisted(), PersistedTypeHierarchy.class);
+		}
+		persisted.getFiles()
+				.removeIf(indexedFile -> !IndexStorage.relocate(indexedFile, workspaceFolder, worktreeFolder));
+
+		String folder = new File(worktreeFolder).getAbsolutePath();
+		TypeHierarchyIndex index = new TypeHierarchyIndex(IndexStorage.getIndexFile(folder, INDEX_FILE_NAME), folder);
+		synchronized (index) {
+			index.load(persisted);
+			index.persist();
+		}
+		workspaceIndexes.put(folder, index);
+	}
+
+	/**
+	 * @return index that is neither shared nor persisted
+	 */
+	public static TypeHierarchyIndex createTransient() {
+		return new TypeHierarchyIndex(null, null);
+	}
+
+	/**
+	 * Brings the index up to date with the given files. Only files that are new or
+	 * changed since they were indexed are parsed, using the symbol resolver of the
+	 * StaticJavaParser. Files that are not part of the given list anymore are
+	 * removed from the index.
+	 *
+	 * @param allJavaFiles
+	 */
+	public void update(List<String> allJavaFiles) {
+		update(allJavaFiles, null);
+	}
+
+	/**
+	 * Brings the index up to date with the given files. If Java roots are given,
+	 * new or changed files are parsed in parallel with a symbol solver for these
+	 * roots per thread, which also solves supertypes from the dependency JARs of
+	 * the workspace if enabled.
+	 *
+	 * @param allJavaFiles
+	 * @param javaRoots
+	 *            may be null
+	 */
+	public synchronized void update(List<String> allJavaFiles, List<String> javaRoots) {
+		Set<String> currentFiles = new HashSet<>(allJavaFiles);
+		boolean changed = files.keySet().retainAll(currentFiles);
+
+		List<String> filesToIndex = new ArrayList<>();
+		for (String javaFile : currentFiles) {
+			IndexedFile indexedFile = files.get(javaFile);
+			if (indexedFile != null && indexedFile.isComplete()) {
+				long lastModified = indexedFile.getLastModified();
+				if (indexedFile.isUpToDate()) {
+					changed |= lastModified != indexedFile.getLastModified();
+					continue;
+				}
+			}
+			filesToIndex.add(javaFile);
+		}
+
+		Map<String, ResolvedReferenceTypeDeclaration> referencedSuperTypes = new ConcurrentHashMap<>();
+		if (javaRoots == null) {
+			for (String javaFile : filesToIndex) {
+				files.put(javaFile, indexJavaFile(javaFile, null, referencedSuperTypes));
+			}
+		} else {
+			List<Path> dependencyJars = workspaceFolder != null
+					? WorkspaceSymbolSolver.forWorkspace(workspaceFolder).getDependencyJars()
+					: Collections.emptyList();
+			files.putAll(ParallelParser.getInstance().analyzeAll(filesToIndex, javaRoots,
+					() -> dependencyJars.isEmpty() ? Collections.<TypeSolver>emptyList()
+							: Collections.singletonList(
+									new DependencyJarTypeSolver(dependencyJars, JarClassIndex.getInstance())),
+					(javaFile, parser) -> indexJavaFile(javaFile, parser, referencedSuperTypes)));
+		}
+		changed |= !filesToIndex.isEmpty();
+
+		if (changed) {
+			rebuildWorkspaceTypes();
+			for (Map.Entry<String, ResolvedReferenceTypeDeclaration> superType : referencedSuperTypes.entrySet()) {
+				indexExternalType(superType.getKey(), superType.getValue());
+			}
+			pruneExternalTypes();
+			persist();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String getIndexedCommit() {
+		return indexedCommit;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Changed files are indexed again with the next update, as indexing requires
+	 * the symbol resolver of the refactoring.
+	 */
+	@Override
+	public synchronized void applyChanges(String commitId, Set<String> changedFiles, Set<String> deletedFiles) {
+		files.keySet().removeAll(deletedFiles);
+		for (String changedFile : changedFiles) {
+			IndexedFile indexedFile = files.get(changedFile);
+			if (indexedFile != null) {
+				indexedFile.setComplete(false);
+			}
+		}
+		indexedCommit = commitId;
+
+		rebuildWorkspaceTypes();
+		pruneExternalTypes();
+		persist();
+	}
+
+	/**
+	 * Finds all types that are reachable via the inheritance hierarchy of the
+	 * given type (ancestors, descendants, siblings, ...) and contain a method with
+	 * the given signature. The given type is always part of the result.
+	 *
+	 * @param qualifiedTypeName
+	 * @param methodSignature
+	 *            resolved method signature, e.g. <code>foo(java.lang.String)</code>
+	 * @return qualified names of the related types
+	 */
+	public synchronized Set<String> findRelatedTypes(String qualifiedTypeName, String methodSignature) {
+		Set<String> relatedTypes = new HashSet<>();
+		Map<String, Boolean> containsMethod = new HashMap<>();
+		Deque<String> typesToVisit = new ArrayDeque<>();
+
+		addRelatedType(qualifiedTypeName, methodSignature, relatedTypes, containsMethod, typesToVisit);
+		while (!typesToVisit.isEmpty()) {
+			String relatedType = typesToVisit.poll();
+			for (String subType : subTypes.getOrDefault(relatedType, Collections.emptySet())) {
+				// descendant found
+				addRelatedType(subType, methodSignature, relatedTypes, containsMethod, typesToVisit);
+			}
+		}
+
+		return relatedTypes;
+	}
+
+	/**
+	 * @param qualifiedTypeName
+	 * @return indexed type with the given name
+	 */
+	public synchronized Optional<IndexedType> getType(String qualifiedTypeName) {
+		IndexedType type = workspaceTypes.get(qualifiedTypeName);
+		if (type == null) {
+			type = externalTypes.get(qualifiedTypeName);
+		}
+		return Optional.ofNullable(type);
+	}
+
+	/**
+	 * @param qualifiedTypeNames
+	 * @return paths of all indexed files that declare at least one of the given
+	 *         types and of all files that could not be indexed completely
+	 */
+	public synchronized Set<String> getFilesDeclaringTypes(Set<String> qualifiedTypeNames) {
+		Set<String> result = new HashSet<>();
+		for (IndexedFile indexedFile : files.values()) {
+			if (!indexedFile.isComplete()) {
+				result.add(indexedFile.getFilePath());
+				continue;
+			}
+			for (IndexedType type : indexedFile.getTypes()) {
+				if (qualifiedTypeNames.contains(type.getQualifiedName())) {
+					result.add(indexedFile.getFilePath());
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param qualifiedTypeName
+	 * @return qualified names of all direct and indirect supertypes (without
+	 *         java.lang.Object)
+	 */
+	public synchronized Set<String> getAllAncestors(String qualifiedTypeName) {
+		Set<String> ancestors = new HashSet<>();
+		Deque<String> typesToVisit = new ArrayDeque<>();
+		typesToVisit.add(qualifiedTypeName);
+		while (!typesToVisit.isEmpty()) {
+			Optional<IndexedType> type = getType(typesToVisit.poll());
+			if (type.isPresent()) {
+				for (String superType : type.get().getSuperTypes()) {
+					if (ancestors.add(superType)) {
+						typesToVisit.add(superType);
+					}
+				}
+			}
+		}
+		ancestors.remove(qualifiedTypeName);
+		return ancestors;
+	}
+
+	private void addRelatedType(String qualifiedTypeName, String methodSignature, Set<String> relatedTypes,
+			Map<String, Boolean> containsMethod, Deque<String> typesToVisit) {
+		if (!relatedTypes.add(qualifiedTypeName)) {
+			return;
+		}
+		typesToVisit.add(qualifiedTypeName);
+
+		// ancestors that contain the method are related as well
+		for (String ancestor : getAllAncestors(qualifiedTypeName)) {
+			if (containsMethod(ancestor, methodSignature, containsMethod) && relatedTypes.add(ancestor)) {
+				typesToVisit.add(ancestor);
+			}
+		}
+	}
+
+	/**
+	 * @param qualifiedTypeName
+	 * @param methodSignature
+	 * @param containsMethod
+	 *            memo of already checked types
+	 * @return true if the given type declares or inherits a method with the given
+	 *         signature
+	 */
+	private boolean containsMethod(String qualifiedTypeName, String methodSignature,
+			Map<String, Boolean> containsMethod) {
+		Boolean memo = containsMethod.get(qualifiedTypeName);
+		if (memo != null) {
+			return memo;
+		}
+		// guards against cyclic hierarchies
+		containsMethod.put(qualifiedTypeName, false);
+
+		boolean result = false;
+		Optional<IndexedType> type = getType(qualifiedTypeName);
+		if (type.isPresent()) {
+			result = type.get().getMethodSignatures().contains(methodSignature);
+			for (String superType : type.get().getSuperTypes()) {
+				if (result) {
+					break;
+				}
+				result = containsMethod(superType, methodSignature, containsMethod);
+			}
+		}
+
+		containsMethod.put(qualifiedTypeName, result);
+		return result;
+	}
+
+	/**
+	 * @param javaFile
+	 * @param parser
+	 *            parser of the current thread or null to use the compilation unit
+	 *            cache
+	 * @param referencedSuperTypes
+	 * @return indexed file
+	 */
+	private IndexedFile indexJavaFile(String javaFile, JavaParser parser,
+			Map<String, ResolvedReferenceTypeDeclaration> referencedSuperTypes) {
+		IndexedFile indexedFile = new IndexedFile();
+		indexedFile.setFilePath(javaFile);
+		try {
+			indexedFile.readFingerprint();
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			indexedFile.setComplete(false);
+			return indexedFile;
+		}
+
+		try {
+			CompilationUnit cu = parser != null ? ParallelParser.parse(parser, javaFile)
+					: CompilationUnitCache.getInstance().getCompilationUnit(javaFile);
+			for (ClassOrInterfaceDeclaration declaration : cu.findAll(ClassOrInterfaceDeclaration.class)) {
+				indexedFile.getTypes().add(indexType(declaration, referencedSuperTypes));
+			}
+		} catch (Exception e) {
+			logger.warn("Could not index '{}' completely: {}", javaFile, e.getMessage());
+			indexedFile.setComplete(false);
+		}
+
+		return indexedFile;
+	}
+
+	private IndexedType indexType(ClassOrInterfaceDeclaration declaration,
+			Map<String, ResolvedReferenceTypeDeclaration> referencedSuperTypes) {
+		ResolvedReferenceTypeDeclaration resolvedType = declaration.resolve();
+		IndexedType type = new IndexedType(resolvedType.getQualifiedName());
+
+		for (ResolvedReferenceType ancestor : getDirectAncestors(resolvedType)) {
+			String qualifiedName = ancestor.getQualifiedName();
+			if (!JAVA_LANG_OBJECT.equals(qualifiedName)) {
+				type.getSuperTypes().add(qualifiedName);
+				ancestor.getTypeDeclaration().ifPresent(d -> referencedSuperTypes.putIfAbsent(qualifiedName, d));
+			}
+		}
+
+		for (MethodDeclaration method : declaration.getMethods()) {
+			type.getMethodSignatures().add(getMethodSignature(method));
+		}
+
+		return type;
+	}
+
+	/**
+	 * @param method
+	 * @return resolved signature of the given method, or its local signature if it
+	 *         can not be resolved
+	 */
+	private String getMethodSignature(MethodDeclaration method) {
+		try {
+			return RefactoringHelper.getResolvedMethodSignatureAsString(method);
+		} catch (BotRefactoringException e) {
+			return RefactoringHelper.getLocalMethodSignatureAsString(method);
+		}
+	}
+
+	/**
+	 * Indexes the given type from outside of the workspace and all of its
+	 * ancestors, as far as they can be resolved.
+	 *
+	 * @param qualifiedName
+	 * @param declaration
+	 */
+	private void indexExternalType(String qualifiedName, ResolvedReferenceTypeDeclaration declaration) {
+		if (JAVA_LANG_OBJECT.equals(qualifiedName) || workspaceTypes.containsKey(qualifiedName)
+				|| externalTypes.containsKey(qualifiedName)) {
+			return;
+		}
+		IndexedType type = new IndexedType(qualifiedName);
+		externalTypes.put(qualifiedName, type);
+
+		try {
+			for (ResolvedMethodDeclaration method : declaration.getDeclaredMethods()) {
+				type.getMethodSignatures().add(method.getSignature());
+			}
+		} catch (Exception e) {
+			logger.warn("Could not resolve methods of '{}': {}", qualifiedName, e.getMessage());
+		}
+
+		for (ResolvedReferenceType ancestor : getDirectAncestors(declaration)) {
+			String ancestorName = ancestor.getQualifiedName();
+			if (!JAVA_LANG_OBJECT.equals(ancestorName)) {
+				type.getSuperTypes().add(ancestorName);
+				ancestor.getTypeDeclaration().ifPresent(d -> indexExternalType(ancestorName, d));
+			}
+		}
+	}
+
+	/**
+	 * @param resolvedType
+	 * @return all direct ancestors of the given type that can be resolved
+	 */
+	private List<ResolvedReferenceType> getDirectAncestors(ResolvedReferenceTypeDeclaration resolvedType) {
+		try {
+			return resolvedType.getAncestors();
+		} catch (UnsolvedSymbolException u) {
+			logger.warn("Refactored classes might extend/implement classes or interfaces from external dependency! "
+					+ "Please validate the correctness of the refactoring.");
+		} catch (Exception e) {
+			logger.warn("Could not resolve ancestors of '{}': {}", resolvedType.getQualifiedName(), e.getMessage());
+		}
+
+		try {
+			return resolvedType.getAncestors(true);
+		} catch (Exception e) {
+			return new ArrayList<>();
+		}
+	}
+
+	private void rebuildWorkspaceTypes() {
+		workspaceTypes.clear();
+		subTypes.clear();
+		for (IndexedFile indexedFile : files.values()) {
+			for (IndexedType type : indexedFile.getTypes()) {
+				workspaceTypes.put(type.getQualifiedName(), type);
+				for (String superType : type.getSuperTypes()) {
+					subTypes.computeIfAbsent(superType, k -> new HashSet<>()).add(type.getQualifiedName());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all external types that are not reachable from the workspace types
+	 * anymore
+	 */
+	private void pruneExternalTypes() {
+		Set<String> reachable = new HashSet<>();
+		for (String workspaceType : workspaceTypes.keySet()) {
+			reachable.addAll(getAllAncestors(workspaceType));
+		}
+		externalTypes.keySet().retainAll(reachable);
+	}
+
+	private void load() {
+		PersistedTypeHierarchy persisted = IndexStorage.read(indexFile, PersistedTypeHierarchy.class);
+		if (persisted != null) {
+			load(persisted);
+		}
+	}
+
+	private void load(PersistedTypeHierarchy persisted) {
+		for (IndexedFile indexedFile : persisted.getFiles()) {
+			files.put(indexedFile.getFilePath(), indexedFile);
+		}
+		for (IndexedType type : persisted.getExternalTypes()) {
+			externalTypes.put(type.getQualifiedName(), type);
+		}
+		indexedCommit = persisted.getIndexedCommit();
+		rebuildWorkspaceTypes();
+	}
+
+	private void persist() {
+		IndexStorage.write(indexFile, toPersisted());
+	}
+
+	private PersistedTypeHierarchy toPersisted() {
+		PersistedTypeHierarchy persisted = new PersistedTypeHierarchy();
+		persisted.setFiles(new ArrayList<>(files.values()));
+		persisted.setExternalTypes(new ArrayList<>(externalTypes.values()));
+		persisted.setIndexedCommit(indexedCommit);
+		return persisted;
+	}
+
+	/**
+	 * Persisted form of the type hierarchy index
+	 */
+	public static class PersistedTypeHierarchy {
+
+		private List<IndexedFile> files = new ArrayList<>();
+		private List<IndexedType> externalTypes = new ArrayList<>();
+		private String indexedCommit;
+
+		public List<IndexedFile> getFiles() {
+			return files;
+		}
+
+		public void setFiles(List<IndexedFile> files) {
+			this.files = files;
+		}
+
+		public List<IndexedType> getExternalTypes() {
+			return externalTypes;
+		}
+
+		public void setExternalTypes(List<IndexedType> externalTypes) {
+			this.externalTypes = externalTypes;
+		}
+
+		public String getIndexedCommit() {
+			return indexedCommit;
+		}
+
+		public void setIndexedCommit(String indexedCommit) {
+			this.indexedCommit = indexedCommit;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package de.refactoringbot.refactoring.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.refactoringbot.refactoring.resolution.WorkspaceSymbolSolver;
+
+/**
+ * Keeps the indexes and the symbol solver of a workspace in sync with its git
+ * history. Whenever the HEAD of the workspace moves (fetch, checkout, commit),
+ * the tree diff between the commit an index was last updated to and the new
+ * HEAD tells which Java files have to be indexed again or removed from the
+ * index.
+ */
+public class WorkspaceIndexUpdater {
+
+	private static final Logger logger = LoggerFactory.getLogger(WorkspaceIndexUpdater.class);
+
+	private WorkspaceIndexUpdater() {
+	}
+
+	/**
+	 * Applies the changes up to the current HEAD of the given repository to all
+	 * indexes of the given workspace
+	 *
+	 * @param repository
+	 * @param workspaceFolder
+	 */
+	public static void updateToHead(Repository repository, String workspaceFolder) {
+		List<CommitTrackingIndex> indexes = Arrays.asList(TypeHierarchyIndex.forWorkspace(workspaceFolder),
+				CallSiteIndex.forWorkspace(workspaceFolder), WorkspaceSymbolSolver.forWorkspace(workspaceFolder));
+		try {
+			ObjectId head = repository.resolve(Constants.HEAD);
+			if (head == null) {
+				// empty repository
+				return;
+			}
+
+			// indexes updated to the same commit share the diff
+			Map<String, JavaFileChanges> changesByIndexedCommit = new HashMap<>();
+			for (CommitTrackingIndex index : indexes) {
+				String indexedCommit = index.getIndexedCommit();
+				if (head.name().equals(indexedCommit)) {
+					continue;
+				}
+				JavaFileChanges changes = changesByIndexedCommit.get(indexedCommit);
+				if (changes == null) {
+					changes = diff(repository, indexedCommit, head);
+					changesByIndexedCommit.put(indexedCommit, changes);
+				}
+				index.applyChanges(head.name(), changes.changedFiles, changes.deletedFiles);
+			}
+		} catch (IOException e) {
+			logger.error("Could not update indexes of workspace '" + workspaceFolder + "'!", e);
+		}
+	}
+
+	/**
+	 * Applies changes of the given files of the working tree that are not part of
+	 * a commit, e.g. files that were written by a refactoring or restored. The
+	 * indexes check the fingerprints of their files, only the symbol solver has to
+	 * drop the types of the files.
+	 *
+	 * @param workspaceFolder
+	 * @param filePaths
+	 *            absolute paths of the changed files
+	 */
+	public static void updateWorkingTreeFiles(String workspaceFolder, Collection<String> filePaths) {
+		if (!filePaths.isEmpty()) {
+			WorkspaceSymbolSolver.forWorkspace(workspaceFolder).invalidateFiles(new HashSet<>(filePaths));
+		}
+	}
+
+	/**
+	 * Drops the indexes and the symbol solver of the given workspace, e.g. because
+	 * the workspace was deleted or is cloned again
+	 *
+	 * @param workspaceFolder
+	 */
+	public static void removeWorkspace(String workspaceFolder) {
+		TypeHierarchyIndex.removeWorkspace(workspaceFolder);
+		CallSiteIndex.removeWorkspace(workspaceFolder);
+		WorkspaceSymbolSolver.removeWorkspace(workspaceFolder);
+	}
+
+	/**
+	 * Seeds the indexes of a new worktree with the indexes of its workspace. The
+	 * next update to the HEAD of the worktree applies the differences.
+	 *
+	 * @param workspaceFolder
+	 * @param worktreeFolder
+	 */
+	public static void copyIndexes(String workspaceFolder, String worktreeFolder) {
+		TypeHierarchyIndex.copyWorkspace(workspaceFolder, worktreeFolder);
+		CallSiteIndex.copyWorkspace(workspaceFolder, worktreeFolder);
+	}
+
+	/**
+	 * @param repository
+	 * @param fromCommit
+	 *            may be null
+	 * @param toCommit
+	 * @return changed and deleted Java files between the given commits. If the
+	 *         first commit is unknown, no changes are returned and the indexes
+	 *         rely on their file fingerprints.
+	 * @throws IOException
+	 */
+	private static JavaFileChanges diff(Repository repository, String fromCommit, ObjectId toCommit)
+			throws IOException {
+		JavaFileChanges changes = new JavaFileChanges();
+		ObjectId from = fromCommit != null ? repository.resolve(fromCommit) : null;
+		if (from == null || !repository.hasObject(from)) {
+			return changes;
+		}
+
+		File workTree = repository.getWorkTree();
+		try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+			treeWalk.addTree(revWalk.parseCommit(from).getTree());
+			treeWalk.addTree(revWalk.parseCommit(toCommit).getTree());
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathSuffixFilter.create(".java")));
+
+			for (DiffEntry entry : DiffEntry.scan(treeWalk)) {
+				if (entry.getChangeType() == ChangeType.DELETE) {
+					changes.deletedFiles.add(new File(workTree, entry.getOldPath()).getCanonicalPath());
+				} else {
+					changes.changedFiles.add(new File(workTree, entry.getNewPath()).getCanonicalPath());
+				}
+			}
+		}
+		logger.info("Applying {} changed and {} deleted Java files since commit {} to the workspace indexes.",
+				changes.changedFiles.size(), changes.deletedFiles.size(), fromCommit);
+		return changes;
+	}
+
+	private static class JavaFileChanges {
+		private final Set<String> changedFiles = new HashSet<>();
+		private final Set<String> deletedFiles = new HashSet<>();
+	}
+}
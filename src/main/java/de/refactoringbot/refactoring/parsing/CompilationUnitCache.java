@@ -0,0 +1,424 @@
+package de.refactoringbot.refactoring.parsing;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+import de.refactoringbot.refactoring.edit.SourceFile;
+import de.refactoringbot.refactoring.edit.SourceText;
+
+/**
+ * Cache of parsed compilation units that is shared by all refactorings and
+ * helpers, so that a file is only parsed again after it has changed.
+ *
+ * Entries are keyed by the absolute path of the file and validated against its
+ * size and modification time. If those differ, the content hash decides whether
+ * the cached compilation unit can still be used. The cache is bounded by a
+ * memory budget (estimated by the source size of the cached files), evicts the
+ * least recently used entries first and only holds the compilation units softly
+ * so that they can be reclaimed under memory pressure.
+ *
+ * Compilation units returned by {@link #getCompilationUnit(String)} are shared
+ * and must not be modified. They are parsed for analysis only, i.e. without
+ * lexical preservation, which keeps them small. Refactorings that
+ * change a file have to use {@link #getCompilationUnitForModification(String)}
+ * and {@link #saveCompilationUnit(String, CompilationUnit)}: only those
+ * compilation units are set up for lexical preservation. Refactorings that can
+ * describe their changes as text edits use {@link #getSourceFile(String)} and
+ * {@link #saveSourceFile(SourceFile)} instead and work on the shared units.
+ *
+ * The files saved by a refactoring can be recorded, so that only those files
+ * have to be committed afterwards.
+ */
+public class CompilationUnitCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(CompilationUnitCache.class);
+
+	/**
+	 * Default memory budget, measured in bytes of cached source code
+	 */
+	public static final long DEFAULT_MAX_SOURCE_BYTES = 64L * 1024 * 1024;
+
+	private static final CompilationUnitCache INSTANCE = new CompilationUnitCache(DEFAULT_MAX_SOURCE_BYTES);
+
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long maxSourceBytes;
+	private long cachedSourceBytes = 0;
+	// running recordings of the files saved on the current thread, innermost first
+	private final ThreadLocal<Deque<Set<String>>> savedFiles = new ThreadLocal<>();
+
+	CompilationUnitCache(long maxSourceBytes) {
+		this.maxSourceBytes = maxSourceBytes;
+	}
+
+	/**
+	 * @return the cache shared by all refactorings
+	 */
+	public static CompilationUnitCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the parsed compilation unit of the given file. The returned
+	 * compilation unit is shared and must only be read.
+	 *
+	 * @param filePath
+	 * @return compilationUnit
+	 * @throws FileNotFoundException
+	 */
+	public CompilationUnit getCompilationUnit(String filePath) throws FileNotFoundException {
+		String key = getKey(filePath);
+		FileState state = readFileState(key);
+
+		CompilationUnit cached = lookup(key, state);
+		if (cached != null) {
+			return cached;
+		}
+
+		return getCompilationUnit(key, state, readContent(key));
+	}
+
+	/**
+	 * Reads the given file together with the shared compilation unit of its
+	 * content. Changes of the file are collected as text edits and written with
+	 * {@link #saveSourceFile(SourceFile)}, so no lexical preservation is needed.
+	 *
+	 * @param filePath
+	 * @return sourceFile
+	 * @throws FileNotFoundException
+	 */
+	public SourceFile getSourceFile(String filePath) throws FileNotFoundException {
+		String key = getKey(filePath);
+		FileState state = readFileState(key);
+		byte[] content = readContent(key);
+		CompilationUnit compilationUnit = getCompilationUnit(key, state, content);
+		return new SourceFile(key, new SourceText(new String(content, StandardCharsets.UTF_8)), compilationUnit);
+	}
+
+	/**
+	 * Applies the edits of the given source file to its original content, writes
+	 * the result to the file and invalidates the cached entry of that file.
+	 *
+	 * @param sourceFile
+	 * @throws BotRefactoringException
+	 *             if the edits overlap
+	 * @throws IOException
+	 */
+	public void saveSourceFile(SourceFile sourceFile) throws BotRefactoringException, IOException {
+		String content = sourceFile.getText().applyEdits(sourceFile.getEdits());
+		invalidate(sourceFile.getFilePath());
+		Files.write(Paths.get(sourceFile.getFilePath()), content.getBytes(StandardCharsets.UTF_8));
+		recordSavedFile(sourceFile.getFilePath());
+	}
+
+	/**
+	 * Parses the given file for modification with lexical preservation. The
+	 * returned compilation unit is not shared and the cached entry of the file is
+	 * removed, as the file is about to change.
+	 *
+	 * @param filePath
+	 * @return compilationUnit
+	 * @throws FileNotFoundException
+	 */
+	public CompilationUnit getCompilationUnitForModification(String filePath) throws FileNotFoundException {
+		String key = getKey(filePath);
+		invalidate(key);
+		return LexicalPreservingPrinter.setup(StaticJavaParser.parse(new ByteArrayInputStream(readContent(key))));
+	}
+
+	/**
+	 * Prints the given compilation unit to the given file and invalidates the
+	 * cached entry of that file.
+	 *
+	 * @param filePath
+	 * @param compilationUnit
+	 * @throws FileNotFoundException
+	 */
+	public void saveCompilationUnit(String filePath, CompilationUnit compilationUnit) throws FileNotFoundException {
+		invalidate(filePath);
+		try (PrintWriter out = new PrintWriter(filePath)) {
+			out.println(LexicalPreservingPrinter.print(compilationUnit));
+		}
+		recordSavedFile(filePath);
+	}
+
+	/**
+	 * Starts to record the files that are saved on the current thread. Recordings
+	 * can be nested, a saved file is recorded by all running recordings.
+	 */
+	public void startRecordingSavedFiles() {
+		Deque<Set<String>> recordings = savedFiles.get();
+		if (recordings == null) {
+			recordings = new ArrayDeque<>();
+			savedFiles.set(recordings);
+		}
+		recordings.push(new LinkedHashSet<>());
+	}
+
+	/**
+	 * Stops the recording that was started last on the current thread
+	 *
+	 * @return absolute paths of the files saved since the recording was started
+	 */
+	public Set<String> stopRecordingSavedFiles() {
+		Deque<Set<String>> recordings = savedFiles.get();
+		if (recordings == null) {
+			return Collections.emptySet();
+		}
+		Set<String> files = recordings.pop();
+		if (recordings.isEmpty()) {
+			savedFiles.remove();
+		}
+		return files;
+	}
+
+	private void recordSavedFile(String filePath) {
+		Deque<Set<String>> recordings = savedFiles.get();
+		if (recordings != null) {
+			for (Set<String> files : recordings) {
+				files.add(getKey(filePath));
+			}
+		}
+	}
+
+	/**
+	 * Removes the cached entry of the given file
+	 *
+	 * @param filePath
+	 */
+	public synchronized void invalidate(String filePath) {
+		remove(getKey(filePath));
+	}
+
+	/**
+	 * Removes all cached entries of files inside the given folder
+	 *
+	 * @param folderPath
+	 */
+	public synchronized void invalidateFolder(String folderPath) {
+		String prefix = getKey(folderPath) + File.separator;
+		Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, CacheEntry> entry = it.next();
+			if (entry.getKey().startsWith(prefix)) {
+				cachedSourceBytes -= entry.getValue().sourceBytes;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached entries
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		cachedSourceBytes = 0;
+	}
+
+	/**
+	 * Sets the memory budget of the cache, measured in bytes of cached source code
+	 *
+	 * @param maxSourceBytes
+	 */
+	public synchronized void setMaxSourceBytes(long maxSourceBytes) {
+		this.maxSourceBytes = maxSourceBytes;
+		evict();
+	}
+
+	/**
+	 * @return number of cached compilation units
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private CompilationUnit getCompilationUnit(String key, FileState state, byte[] content) {
+		byte[] hash = hash(content);
+		CompilationUnit cached = lookupByHash(key, hash, state);
+		if (cached != null) {
+			return cached;
+		}
+
+		CompilationUnit compilationUnit = parseForAnalysis(content);
+		store(key, new CacheEntry(state, hash, content.length, compilationUnit));
+		return compilationUnit;
+	}
+
+	private synchronized CompilationUnit lookup(String key, FileState state) {
+		CacheEntry entry = entries.get(key);
+		if (entry == null || !entry.state.equals(state)) {
+			return null;
+		}
+		return getValidCompilationUnit(key, entry);
+	}
+
+	private synchronized CompilationUnit lookupByHash(String key, byte[] hash, FileState state) {
+		CacheEntry entry = entries.get(key);
+		if (entry == null || !MessageDigest.isEqual(entry.hash, hash)) {
+			return null;
+		}
+		// content is unchanged although the file was touched
+		entry.state = state;
+		return getValidCompilationUnit(key, entry);
+	}
+
+	private CompilationUnit getValidCompilationUnit(String key, CacheEntry entry) {
+		CompilationUnit compilationUnit = entry.compilationUnit.get();
+		if (compilationUnit == null) {
+			// reclaimed by the garbage collector
+			remove(key);
+			return null;
+		}
+		attachCurrentSymbolResolver(compilationUnit);
+		return compilationUnit;
+	}
+
+	private synchronized void store(String key, CacheEntry entry) {
+		remove(key);
+		entries.put(key, entry);
+		cachedSourceBytes += entry.sourceBytes;
+		evict();
+	}
+
+	private void remove(String key) {
+		CacheEntry removed = entries.remove(key);
+		if (removed != null) {
+			cachedSourceBytes -= removed.sourceBytes;
+		}
+	}
+
+	private void evict() {
+		Iterator<CacheEntry> it = entries.values().iterator();
+		while (cachedSourceBytes > maxSourceBytes && it.hasNext()) {
+			cachedSourceBytes -= it.next().sourceBytes;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Compilation units keep the symbol resolver that was configured while they
+	 * were parsed. Cached units have to use the one of the current refactoring.
+	 *
+	 * @param compilationUnit
+	 */
+	private void attachCurrentSymbolResolver(CompilationUnit compilationUnit) {
+		StaticJavaParser.getConfiguration().getSymbolResolver()
+				.ifPresent(resolver -> compilationUnit.setData(Node.SYMBOL_RESOLVER_KEY, resolver));
+	}
+
+	/**
+	 * Parses the given content for analysis. No lexical preservation is set up, as
+	 * it keeps a copy of the text of every node and registers an observer on it.
+	 *
+	 * @param content
+	 * @return compilationUnit
+	 */
+	private CompilationUnit parseForAnalysis(byte[] content) {
+		return StaticJavaParser.parse(new ByteArrayInputStream(content));
+	}
+
+	private String getKey(String filePath) {
+		return Paths.get(filePath).toAbsolutePath().normalize().toString();
+	}
+
+	private FileState readFileState(String key) throws FileNotFoundException {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(Paths.get(key), BasicFileAttributes.class);
+			return new FileState(attributes.size(), attributes.lastModifiedTime().toMillis());
+		} catch (IOException e) {
+			throw createFileNotFoundException(key, e);
+		}
+	}
+
+	private byte[] readContent(String key) throws FileNotFoundException {
+		Path path = Paths.get(key);
+		try {
+			return Files.readAllBytes(path);
+		} catch (IOException e) {
+			throw createFileNotFoundException(key, e);
+		}
+	}
+
+	private FileNotFoundException createFileNotFoundException(String key, IOException cause) {
+		logger.error(cause.getMessage(), cause);
+		FileNotFoundException exception = new FileNotFoundException(key + " could not be read!");
+		exception.initCause(cause);
+		return exception;
+	}
+
+	private byte[] hash(byte[] content) {
+		try {
+			return MessageDigest.getInstance("SHA-1").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not supported by the JVM", e);
+		}
+	}
+
+	/**
+	 * Size and modification time of a file
+	 */
+	private static class FileState {
+		private final long size;
+		private final long lastModified;
+
+		FileState(long size, long lastModified) {
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof FileState)) {
+				return false;
+			}
+			FileState other = (FileState) obj;
+			return size == other.size && lastModified == other.lastModified;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(size) * 31 + Long.hashCode(lastModified);
+		}
+	}
+
+	private static class CacheEntry {
+		private FileState state;
+		private final byte[] hash;
+		private final long sourceBytes;
+		private final SoftReference<CompilationUnit> compilationUnit;
+
+		CacheEntry(FileState state, byte[] hash, long sourceBytes, CompilationUnit compilationUnit) {
+			this.state = state;
+			this.hash = hash;
+			this.sourceBytes = sourceBytes;
+			this.compilationUnit = new SoftReference<>(compilationUnit);
+		}
+	}
+}
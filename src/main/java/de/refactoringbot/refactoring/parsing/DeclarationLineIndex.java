@@ -0,0 +1,162 @@
+package de.refactoringbot.refactoring.parsing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.comments.Comment;
+
+/**
+ * Index of the declarations and comments of a compilation unit by line number.
+ * The index is built once per parse and stored in the compilation unit, so that
+ * every lookup is a binary search instead of a scan of the whole tree.
+ *
+ * The index reflects the positions of the parse. Compilation units that are
+ * modified have to be looked up before they are changed.
+ */
+public class DeclarationLineIndex {
+
+	private static final DataKey<DeclarationLineIndex> DATA_KEY = new DataKey<DeclarationLineIndex>() {
+	};
+
+	private final LineTable<MethodDeclaration> methodsByNameLine;
+	private final LineTable<ConstructorDeclaration> constructorsByNameLine;
+	private final LineTable<FieldDeclaration> fieldsByBeginLine;
+	private final List<Comment> comments;
+	private final int[] commentEndLines;
+
+	private DeclarationLineIndex(CompilationUnit compilationUnit) {
+		List<MethodDeclaration> methods = new ArrayList<>();
+		List<ConstructorDeclaration> constructors = new ArrayList<>();
+		List<FieldDeclaration> fields = new ArrayList<>();
+		compilationUnit.walk(Node.TreeTraversal.PREORDER, node -> {
+			if (node instanceof MethodDeclaration) {
+				methods.add((MethodDeclaration) node);
+			} else if (node instanceof ConstructorDeclaration) {
+				constructors.add((ConstructorDeclaration) node);
+			} else if (node instanceof FieldDeclaration) {
+				fields.add((FieldDeclaration) node);
+			}
+		});
+		methodsByNameLine = new LineTable<>(methods, method -> method.getName().getBegin());
+		constructorsByNameLine = new LineTable<>(constructors, constructor -> constructor.getName().getBegin());
+		fieldsByBeginLine = new LineTable<>(fields, Node::getBegin);
+
+		// comments do not overlap, so sorting them by position sorts their ends too
+		comments = new ArrayList<>();
+		for (Comment comment : compilationUnit.getAllContainedComments()) {
+			if (comment.getBegin().isPresent() && comment.getEnd().isPresent()) {
+				comments.add(comment);
+			}
+		}
+		comments.sort(Comparator.comparing(comment -> comment.getBegin().get()));
+		commentEndLines = comments.stream().mapToInt(comment -> comment.getEnd().get().line).toArray();
+	}
+
+	/**
+	 * @param compilationUnit
+	 * @return index of the given compilation unit, which is built on first use
+	 */
+	public static DeclarationLineIndex of(CompilationUnit compilationUnit) {
+		synchronized (compilationUnit) {
+			if (compilationUnit.containsData(DATA_KEY)) {
+				return compilationUnit.getData(DATA_KEY);
+			}
+			DeclarationLineIndex index = new DeclarationLineIndex(compilationUnit);
+			compilationUnit.setData(DATA_KEY, index);
+			return index;
+		}
+	}
+
+	/**
+	 * @param line
+	 * @return method declarations whose name starts at the given line, in the order
+	 *         of the source
+	 */
+	public List<MethodDeclaration> getMethodDeclarationsAtLine(int line) {
+		return methodsByNameLine.getNodesAtLine(line);
+	}
+
+	/**
+	 * @param line
+	 * @return constructor declarations whose name starts at the given line, in the
+	 *         order of the source
+	 */
+	public List<ConstructorDeclaration> getConstructorDeclarationsAtLine(int line) {
+		return constructorsByNameLine.getNodesAtLine(line);
+	}
+
+	/**
+	 * @param line
+	 * @return field declarations that start at the given line, in the order of the
+	 *         source
+	 */
+	public List<FieldDeclaration> getFieldDeclarationsAtLine(int line) {
+		return fieldsByBeginLine.getNodesAtLine(line);
+	}
+
+	/**
+	 * @param line
+	 * @return all comments that end at or after the given line, in the order of the
+	 *         source
+	 */
+	public List<Comment> getCommentsFromLine(int line) {
+		return Collections.unmodifiableList(comments.subList(lowerBound(commentEndLines, line), comments.size()));
+	}
+
+	/**
+	 * @param sortedLines
+	 * @param line
+	 * @return index of the first entry that is greater than or equal to the given
+	 *         line
+	 */
+	private static int lowerBound(int[] sortedLines, int line) {
+		int low = 0;
+		int high = sortedLines.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sortedLines[middle] < line) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Nodes sorted by the line of a position, nodes of the same line keep the order
+	 * of the source
+	 */
+	private static class LineTable<T extends Node> {
+		private final List<T> nodes = new ArrayList<>();
+		private final int[] lines;
+
+		LineTable(List<T> allNodes, Function<T, Optional<Position>> position) {
+			for (T node : allNodes) {
+				if (position.apply(node).isPresent()) {
+					nodes.add(node);
+				}
+			}
+			// stable sort keeps the order of the source within a line
+			nodes.sort(Comparator.comparingInt(node -> position.apply(node).get().line));
+			lines = nodes.stream().mapToInt(node -> position.apply(node).get().line).toArray();
+		}
+
+		List<T> getNodesAtLine(int line) {
+			int from = lowerBound(lines, line);
+			int to = lowerBound(lines, line + 1);
+			return Collections.unmodifiableList(nodes.subList(from, to));
+		}
+	}
+}
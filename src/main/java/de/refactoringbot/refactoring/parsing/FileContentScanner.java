@@ -0,0 +1,91 @@
+package de.refactoringbot.refactoring.parsing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Searches the bytes of a file for words without decoding or parsing it. The
+ * file is read in chunks, so the scan stops as soon as one of the words is
+ * found. Words are matched by their UTF-8 bytes, i.e. Unicode escapes inside
+ * of the source code are not recognized.
+ */
+public class FileContentScanner {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private FileContentScanner() {
+	}
+
+	/**
+	 * @param file
+	 * @param words
+	 * @return true if the content of the given file contains at least one of the
+	 *         given words
+	 * @throws IOException
+	 */
+	public static boolean containsAny(Path file, Collection<String> words) throws IOException {
+		List<byte[]> patterns = new ArrayList<>();
+		int longestPattern = 0;
+		for (String word : words) {
+			byte[] pattern = word.getBytes(StandardCharsets.UTF_8);
+			if (pattern.length == 0) {
+				return true;
+			}
+			patterns.add(pattern);
+			longestPattern = Math.max(longestPattern, pattern.length);
+		}
+		if (patterns.isEmpty()) {
+			return false;
+		}
+
+		// the end of each chunk is kept so that words spanning two chunks are found
+		byte[] buffer = new byte[BUFFER_SIZE + longestPattern - 1];
+		int carriedOver = 0;
+		try (InputStream in = Files.newInputStream(file)) {
+			int read;
+			while ((read = in.read(buffer, carriedOver, buffer.length - carriedOver)) != -1) {
+				int length = carriedOver + read;
+				for (byte[] pattern : patterns) {
+					if (indexOf(buffer, length, pattern) >= 0) {
+						return true;
+					}
+				}
+				carriedOver = Math.min(longestPattern - 1, length);
+				System.arraycopy(buffer, length - carriedOver, buffer, 0, carriedOver);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param buffer
+	 * @param length
+	 *            number of valid bytes in the buffer
+	 * @param pattern
+	 * @return first index of the pattern inside the valid bytes of the buffer or
+	 *         -1 if it is not contained
+	 */
+	private static int indexOf(byte[] buffer, int length, byte[] pattern) {
+		byte first = pattern[0];
+		int last = length - pattern.length;
+		for (int i = 0; i <= last; i++) {
+			if (buffer[i] != first) {
+				continue;
+			}
+			int j = 1;
+			while (j < pattern.length && buffer[i + j] == pattern[j]) {
+				j++;
+			}
+			if (j == pattern.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
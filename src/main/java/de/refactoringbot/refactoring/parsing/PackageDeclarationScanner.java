@@ -0,0 +1,198 @@
+package de.refactoringbot.refactoring.parsing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Reads the package name of a Java file without parsing the whole file. Only
+ * the start of the file is read: comments, annotations and whitespace are
+ * skipped until the package declaration or the first other token (import,
+ * modifier, type declaration, ...) is found.
+ */
+public class PackageDeclarationScanner {
+
+	private static final int BYTE_ORDER_MARK = 0xFEFF;
+
+	private final PushbackReader reader;
+
+	PackageDeclarationScanner(Reader reader) {
+		this.reader = new PushbackReader(reader, 2);
+	}
+
+	/**
+	 * @param javaFile
+	 * @return package name of the given file or an empty optional if the file is
+	 *         inside the default package
+	 * @throws IOException
+	 *             if the file can not be read or its header is malformed
+	 */
+	public static Optional<String> scan(Path javaFile) throws IOException {
+		try (Reader reader = new BufferedReader(
+				new InputStreamReader(Files.newInputStream(javaFile), StandardCharsets.UTF_8), 1024)) {
+			return new PackageDeclarationScanner(reader).scanPackageName();
+		} catch (IOException e) {
+			throw new IOException("Could not scan header of '" + javaFile + "': " + e.getMessage(), e);
+		}
+	}
+
+	Optional<String> scanPackageName() throws IOException {
+		if (peek() == BYTE_ORDER_MARK) {
+			reader.read();
+		}
+		while (true) {
+			skipWhitespaceAndComments();
+			int c = peek();
+			if (c == -1) {
+				return Optional.empty();
+			} else if (c == '@') {
+				reader.read();
+				if ("interface".equals(readQualifiedName())) {
+					// annotation type declaration
+					return Optional.empty();
+				}
+				skipWhitespaceAndComments();
+				if (peek() == '(') {
+					skipAnnotationArguments();
+				}
+			} else if (c == ';') {
+				reader.read();
+			} else if (Character.isJavaIdentifierStart(c)) {
+				if (!"package".equals(readIdentifier())) {
+					return Optional.empty();
+				}
+				String packageName = readQualifiedName();
+				skipWhitespaceAndComments();
+				expect(';');
+				return Optional.of(packageName);
+			} else {
+				throw new IOException("Unexpected character '" + (char) c + "'");
+			}
+		}
+	}
+
+	private String readQualifiedName() throws IOException {
+		StringBuilder name = new StringBuilder();
+		skipWhitespaceAndComments();
+		name.append(readIdentifier());
+		while (true) {
+			skipWhitespaceAndComments();
+			if (peek() != '.') {
+				return name.toString();
+			}
+			reader.read();
+			skipWhitespaceAndComments();
+			name.append('.').append(readIdentifier());
+		}
+	}
+
+	private String readIdentifier() throws IOException {
+		int c = peek();
+		if (c == -1 || !Character.isJavaIdentifierStart(c)) {
+			throw new IOException("Identifier expected");
+		}
+		StringBuilder identifier = new StringBuilder();
+		while (c != -1 && Character.isJavaIdentifierPart(c)) {
+			identifier.append((char) reader.read());
+			c = peek();
+		}
+		return identifier.toString();
+	}
+
+	/**
+	 * Skips the parenthesized arguments of an annotation, including nested
+	 * annotations, string and character literals
+	 *
+	 * @throws IOException
+	 */
+	private void skipAnnotationArguments() throws IOException {
+		int depth = 0;
+		do {
+			skipWhitespaceAndComments();
+			int c = reader.read();
+			if (c == -1) {
+				throw new IOException("Unexpected end of file inside annotation");
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (c == '"' || c == '\'') {
+				skipLiteral(c);
+			}
+		} while (depth > 0);
+	}
+
+	private void skipLiteral(int quote) throws IOException {
+		int c = reader.read();
+		while (c != quote) {
+			if (c == -1 || c == '\n') {
+				throw new IOException("Unterminated literal");
+			}
+			if (c == '\\') {
+				reader.read();
+			}
+			c = reader.read();
+		}
+	}
+
+	private void skipWhitespaceAndComments() throws IOException {
+		while (true) {
+			int c = peek();
+			if (Character.isWhitespace(c)) {
+				reader.read();
+			} else if (c == '/') {
+				reader.read();
+				int next = reader.read();
+				if (next == '/') {
+					skipLineComment();
+				} else if (next == '*') {
+					skipBlockComment();
+				} else {
+					throw new IOException("Unexpected character '/'");
+				}
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void skipLineComment() throws IOException {
+		int c = reader.read();
+		while (c != -1 && c != '\n' && c != '\r') {
+			c = reader.read();
+		}
+	}
+
+	private void skipBlockComment() throws IOException {
+		int previous = 0;
+		int c = reader.read();
+		while (!(previous == '*' && c == '/')) {
+			if (c == -1) {
+				throw new IOException("Unterminated comment");
+			}
+			previous = c;
+			c = reader.read();
+		}
+	}
+
+	private void expect(char expected) throws IOException {
+		int c = reader.read();
+		if (c != expected) {
+			throw new IOException("'" + expected + "' expected");
+		}
+	}
+
+	private int peek() throws IOException {
+		int c = reader.read();
+		if (c != -1) {
+			reader.unread(c);
+		}
+		return c;
+	}
+}
@@ -0,0 +1,184 @@
+package de.refactoringbot.refactoring.parsing;
+
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+/**
+ * Parses and analyzes many Java files in parallel. Every worker thread uses a
+ * parser of its own with its own configuration and symbol solver, so neither
+ * the global configuration of the StaticJavaParser nor a symbol solver is
+ * shared between threads.
+ *
+ * Compilation units created by the workers must not leave the analysis, as they
+ * are bound to the symbol solver of their worker.
+ */
+public class ParallelParser {
+
+	private static final Logger logger = LoggerFactory.getLogger(ParallelParser.class);
+
+	private static final ParallelParser INSTANCE = new ParallelParser(0);
+
+	private int parallelism;
+
+	ParallelParser(int parallelism) {
+		setParallelism(parallelism);
+	}
+
+	/**
+	 * @return the parser shared by all refactorings and indexes
+	 */
+	public static ParallelParser getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Sets the number of worker threads
+	 *
+	 * @param parallelism
+	 *            number of threads or 0 to use one thread per available processor
+	 */
+	public synchronized void setParallelism(int parallelism) {
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @return number of worker threads
+	 */
+	public synchronized int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Runs the given analysis for all given files in parallel. Files for which the
+	 * analysis fails or returns null are missing in the result.
+	 *
+	 * @param javaFiles
+	 * @param javaRoots
+	 *            roots of the symbol solver of each worker, no symbols are resolved
+	 *            if empty
+	 * @param analysis
+	 * @return results of the analysis by file
+	 */
+	public <T> Map<String, T> analyzeAll(Collection<String> javaFiles, List<String> javaRoots,
+			FileAnalysis<T> analysis) {
+		return analyzeAll(javaFiles, javaRoots, Collections::emptyList, analysis);
+	}
+
+	/**
+	 * Runs the given analysis for all given files in parallel. Files for which the
+	 * analysis fails or returns null are missing in the result.
+	 *
+	 * @param javaFiles
+	 * @param javaRoots
+	 *            roots of the symbol solver of each worker, no symbols are resolved
+	 *            if empty
+	 * @param externalSolvers
+	 *            creates additional type solvers for each worker, which are asked
+	 *            after the roots and the JDK
+	 * @param analysis
+	 * @return results of the analysis by file
+	 */
+	public <T> Map<String, T> analyzeAll(Collection<String> javaFiles, List<String> javaRoots,
+			Supplier<List<TypeSolver>> externalSolvers, FileAnalysis<T> analysis) {
+		Map<String, T> results = new ConcurrentHashMap<>();
+		if (javaFiles.isEmpty()) {
+			return results;
+		}
+
+		ThreadLocal<JavaParser> parsers = ThreadLocal.withInitial(() -> createParser(javaRoots, externalSolvers));
+		ForkJoinPool pool = new ForkJoinPool(getParallelism());
+		try {
+			pool.submit(() -> javaFiles.parallelStream().forEach(javaFile -> {
+				try {
+					T result = analysis.analyze(javaFile, parsers.get());
+					if (result != null) {
+						results.put(javaFile, result);
+					}
+				} catch (Exception e) {
+					logger.warn("Could not analyze '{}': {}", javaFile, e.getMessage());
+				}
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Parsing was interrupted!", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Parsing failed!", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		return results;
+	}
+
+	/**
+	 * Parses the given file with the given parser
+	 *
+	 * @param parser
+	 * @param javaFile
+	 * @return compilationUnit
+	 * @throws Exception
+	 *             if the file can not be read or parsed
+	 */
+	public static CompilationUnit parse(JavaParser parser, String javaFile) throws Exception {
+		ParseResult<CompilationUnit> parseResult = parser.parse(Paths.get(javaFile));
+		if (!parseResult.isSuccessful() || !parseResult.getResult().isPresent()) {
+			throw new ParseProblemException(parseResult.getProblems());
+		}
+		return parseResult.getResult().get();
+	}
+
+	private JavaParser createParser(List<String> javaRoots, Supplier<List<TypeSolver>> externalSolvers) {
+		ParserConfiguration configuration = new ParserConfiguration();
+		if (!javaRoots.isEmpty()) {
+			CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+			for (String javaRoot : javaRoots) {
+				typeSolver.add(new JavaParserTypeSolver(javaRoot));
+			}
+			typeSolver.add(new ReflectionTypeSolver());
+			for (TypeSolver externalSolver : externalSolvers.get()) {
+				typeSolver.add(externalSolver);
+			}
+			configuration.setSymbolResolver(new JavaSymbolSolver(typeSolver));
+		}
+		return new JavaParser(configuration);
+	}
+
+	/**
+	 * Analysis of a single Java file
+	 *
+	 * @param <T>
+	 *            result of the analysis
+	 */
+	@FunctionalInterface
+	public interface FileAnalysis<T> {
+
+		/**
+		 * @param javaFile
+		 * @param parser
+		 *            parser of the current worker
+		 * @return result of the analysis
+		 * @throws Exception
+		 */
+		T analyze(String javaFile, JavaParser parser) throws Exception;
+	}
+}
@@ -0,0 +1,397 @@
+package de.refactoringbot.refactoring.resolution;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Finds the JARs of the dependencies of a workspace in the local Maven
+ * repository and the Gradle cache, without resolving anything over the network.
+ *
+ * The dependencies are read from all <code>pom.xml</code>,
+ * <code>build.gradle</code> and <code>build.gradle.kts</code> files of the
+ * workspace. Versions are taken from the dependency, the dependency management
+ * or the properties of the POMs. If a version is missing or can not be
+ * determined, the highest version available locally is used. Only declared
+ * dependencies are found, transitive dependencies are not resolved. Dependencies
+ * that are not available locally are skipped.
+ */
+public class DependencyJarLocator {
+
+	private static final Logger logger = LoggerFactory.getLogger(DependencyJarLocator.class);
+
+	private static final Set<String> SKIPPED_FOLDERS = new HashSet<>(
+			Arrays.asList(".git", ".gradle", ".idea", "target", "build", "node_modules"));
+	private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)\\}");
+	private static final Pattern GRADLE_DEPENDENCY = Pattern
+			.compile("[\"']([\\w.\\-]+):([\\w.\\-]+):([\\w.\\-+\\[\\]]+)(?::[\\w.\\-]+)?(?:@jar)?[\"']");
+	private static final Pattern GRADLE_MAP_DEPENDENCY = Pattern.compile(
+			"group\\s*[:=]\\s*[\"']([\\w.\\-]+)[\"']\\s*,\\s*name\\s*[:=]\\s*[\"']([\\w.\\-]+)[\"']"
+					+ "(?:\\s*,\\s*version\\s*[:=]\\s*[\"']([\\w.\\-+]+)[\"'])?");
+
+	private static final DependencyJarLocator INSTANCE = new DependencyJarLocator(
+			Paths.get(System.getProperty("user.home"), ".m2", "repository"),
+			Paths.get(System.getProperty("user.home"), ".gradle", "caches", "modules-2", "files-2.1"));
+
+	private final Path mavenRepository;
+	private final Path gradleCache;
+
+	DependencyJarLocator(Path mavenRepository, Path gradleCache) {
+		this.mavenRepository = mavenRepository;
+		this.gradleCache = gradleCache;
+	}
+
+	/**
+	 * @return locator for the local caches of the current user
+	 */
+	public static DependencyJarLocator getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param workspaceFolder
+	 * @return JARs of all dependencies of the workspace that are available locally
+	 */
+	public List<Path> findDependencyJars(String workspaceFolder) {
+		List<Path> buildFiles = findBuildFiles(Paths.get(workspaceFolder));
+		Map<String, String> properties = new HashMap<>();
+		Map<String, String> managedVersions = new HashMap<>();
+		Set<String> workspaceArtifacts = new HashSet<>();
+		Map<String, Dependency> dependencies = new LinkedHashMap<>();
+
+		List<Document> poms = new ArrayList<>();
+		for (Path buildFile : buildFiles) {
+			if (buildFile.getFileName().toString().equals("pom.xml")) {
+				Document pom = parsePom(buildFile);
+				if (pom != null) {
+					poms.add(pom);
+					readPomProperties(pom.getDocumentElement(), properties, workspaceArtifacts);
+				}
+			} else {
+				readGradleDependencies(buildFile, dependencies);
+			}
+		}
+		for (Document pom : poms) {
+			Element project = pom.getDocumentElement();
+			for (Element management : getChildren(project, "dependencyManagement")) {
+				for (Dependency dependency : readPomDependencies(management, properties)) {
+					if (dependency.version != null) {
+						managedVersions.putIfAbsent(dependency.getKey(), dependency.version);
+					}
+				}
+			}
+			for (Dependency dependency : readPomDependencies(project, properties)) {
+				dependencies.putIfAbsent(dependency.getKey(), dependency);
+			}
+		}
+
+		List<Path> jars = new ArrayList<>();
+		for (Dependency dependency : dependencies.values()) {
+			if (workspaceArtifacts.contains(dependency.getKey())) {
+				// modules of the workspace are solved from their sources
+				continue;
+			}
+			String version = dependency.version != null ? dependency.version
+					: managedVersions.get(dependency.getKey());
+			findJar(dependency.groupId, dependency.artifactId, version).ifPresent(jars::add);
+		}
+		return jars;
+	}
+
+	private List<Path> findBuildFiles(Path workspace) {
+		List<Path> buildFiles = new ArrayList<>();
+		try {
+			Files.walkFileTree(workspace, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					return dir.equals(workspace) || !SKIPPED_FOLDERS.contains(dir.getFileName().toString())
+							? FileVisitResult.CONTINUE
+							: FileVisitResult.SKIP_SUBTREE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					String fileName = file.getFileName().toString();
+					if (fileName.equals("pom.xml") || fileName.equals("build.gradle")
+							|| fileName.equals("build.gradle.kts")) {
+						buildFiles.add(file);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			logger.warn("Could not search build files of '{}': {}", workspace, e.getMessage());
+		}
+		buildFiles.sort(null);
+		return buildFiles;
+	}
+
+	private Document parsePom(Path pomFile) {
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			factory.setExpandEntityReferences(false);
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			return builder.parse(pomFile.toFile());
+		} catch (Exception e) {
+			logger.warn("Could not read '{}': {}", pomFile, e.getMessage());
+			return null;
+		}
+	}
+
+	private void readPomProperties(Element project, Map<String, String> properties, Set<String> workspaceArtifacts) {
+		Optional<Element> parent = getChildren(project, "parent").stream().findFirst();
+		String groupId = getChildText(project, "groupId");
+		if (groupId == null && parent.isPresent()) {
+			groupId = getChildText(parent.get(), "groupId");
+		}
+		String version = getChildText(project, "version");
+		if (version == null && parent.isPresent()) {
+			version = getChildText(parent.get(), "version");
+		}
+		String artifactId = getChildText(project, "artifactId");
+		if (groupId != null && artifactId != null) {
+			workspaceArtifacts.add(groupId + ":" + artifactId);
+		}
+		if (version != null) {
+			properties.putIfAbsent("project.version", version);
+		}
+		if (groupId != null) {
+			properties.putIfAbsent("project.groupId", groupId);
+		}
+		for (Element propertiesElement : getChildren(project, "properties")) {
+			for (Element property : getChildren(propertiesElement, null)) {
+				properties.putIfAbsent(property.getTagName(), property.getTextContent().trim());
+			}
+		}
+	}
+
+	private List<Dependency> readPomDependencies(Element parent, Map<String, String> properties) {
+		List<Dependency> dependencies = new ArrayList<>();
+		for (Element dependenciesElement : getChildren(parent, "dependencies")) {
+			for (Element dependency : getChildren(dependenciesElement, "dependency")) {
+				String type = getChildText(dependency, "type");
+				String scope = getChildText(dependency, "scope");
+				if ((type != null && !type.equals("jar")) || "import".equals(scope)) {
+					continue;
+				}
+				String groupId = resolve(getChildText(dependency, "groupId"), properties);
+				String artifactId = resolve(getChildText(dependency, "artifactId"), properties);
+				if (groupId != null && artifactId != null) {
+					dependencies.add(
+							new Dependency(groupId, artifactId, resolve(getChildText(dependency, "version"), properties)));
+				}
+			}
+		}
+		return dependencies;
+	}
+
+	private void readGradleDependencies(Path buildFile, Map<String, Dependency> dependencies) {
+		String content;
+		try {
+			content = new String(Files.readAllBytes(buildFile), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			logger.warn("Could not read '{}': {}", buildFile, e.getMessage());
+			return;
+		}
+		Matcher matcher = GRADLE_DEPENDENCY.matcher(content);
+		while (matcher.find()) {
+			Dependency dependency = new Dependency(matcher.group(1), matcher.group(2), matcher.group(3));
+			dependencies.putIfAbsent(dependency.getKey(), dependency);
+		}
+		matcher = GRADLE_MAP_DEPENDENCY.matcher(content);
+		while (matcher.find()) {
+			Dependency dependency = new Dependency(matcher.group(1), matcher.group(2), matcher.group(3));
+			dependencies.putIfAbsent(dependency.getKey(), dependency);
+		}
+	}
+
+	/**
+	 * @param value
+	 * @param properties
+	 * @return the given value with all known properties replaced or null if a
+	 *         property is unknown
+	 */
+	private String resolve(String value, Map<String, String> properties) {
+		String resolved = value;
+		// properties may refer to other properties
+		for (int i = 0; resolved != null && resolved.contains("${") && i < 5; i++) {
+			Matcher matcher = PROPERTY.matcher(resolved);
+			StringBuffer result = new StringBuffer();
+			while (matcher.find()) {
+				String property = properties.get(matcher.group(1));
+				if (property == null) {
+					return null;
+				}
+				matcher.appendReplacement(result, Matcher.quoteReplacement(property));
+			}
+			matcher.appendTail(result);
+			resolved = result.toString();
+		}
+		return resolved != null && resolved.contains("${") ? null : resolved;
+	}
+
+	/**
+	 * @param groupId
+	 * @param artifactId
+	 * @param version
+	 *            may be null or a range, then the highest local version is used
+	 * @return JAR of the given artifact in the Maven repository or the Gradle
+	 *         cache
+	 */
+	Optional<Path> findJar(String groupId, String artifactId, String version) {
+		Path mavenArtifact = mavenRepository.resolve(groupId.replace('.', File.separatorChar)).resolve(artifactId);
+		Path gradleArtifact = gradleCache.resolve(groupId).resolve(artifactId);
+		String jarName = artifactId + "-%s.jar";
+
+		List<String> versions = new ArrayList<>();
+		if (version != null && isConcreteVersion(version)) {
+			versions.add(version);
+		} else {
+			versions.addAll(getLocalVersionsDescending(mavenArtifact, gradleArtifact));
+		}
+
+		for (String candidate : versions) {
+			Path mavenJar = mavenArtifact.resolve(candidate).resolve(String.format(jarName, candidate));
+			if (Files.isRegularFile(mavenJar)) {
+				return Optional.of(mavenJar);
+			}
+			Path gradleVersion = gradleArtifact.resolve(candidate);
+			if (Files.isDirectory(gradleVersion)) {
+				try (Stream<Path> hashFolders = Files.list(gradleVersion)) {
+					Optional<Path> gradleJar = hashFolders
+							.map(hashFolder -> hashFolder.resolve(String.format(jarName, candidate)))
+							.filter(Files::isRegularFile).findFirst();
+					if (gradleJar.isPresent()) {
+						return gradleJar;
+					}
+				} catch (IOException | UncheckedIOException e) {
+					logger.warn("Could not search '{}': {}", gradleVersion, e.getMessage());
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	private boolean isConcreteVersion(String version) {
+		return !version.contains("[") && !version.contains("(") && !version.contains("+")
+				&& !version.equals("LATEST") && !version.equals("RELEASE");
+	}
+
+	private List<String> getLocalVersionsDescending(Path... artifactFolders) {
+		Set<String> versions = new HashSet<>();
+		for (Path artifactFolder : artifactFolders) {
+			if (!Files.isDirectory(artifactFolder)) {
+				continue;
+			}
+			try (Stream<Path> versionFolders = Files.list(artifactFolder)) {
+				versionFolders.filter(Files::isDirectory).map(folder -> folder.getFileName().toString())
+						.forEach(versions::add);
+			} catch (IOException | UncheckedIOException e) {
+				logger.warn("Could not search '{}': {}", artifactFolder, e.getMessage());
+			}
+		}
+		List<String> sortedVersions = new ArrayList<>(versions);
+		sortedVersions.sort(DependencyJarLocator::compareVersions);
+		Collections.reverse(sortedVersions);
+		return sortedVersions;
+	}
+
+	/**
+	 * Compares versions by their numeric and textual parts, e.g.
+	 * <code>1.10.0 &gt; 1.9.2</code>
+	 *
+	 * @param first
+	 * @param second
+	 * @return comparison result
+	 */
+	static int compareVersions(String first, String second) {
+		String[] firstParts = first.split("[.\\-]");
+		String[] secondParts = second.split("[.\\-]");
+		for (int i = 0; i < Math.max(firstParts.length, secondParts.length); i++) {
+			String firstPart = i < firstParts.length ? firstParts[i] : "0";
+			String secondPart = i < secondParts.length ? secondParts[i] : "0";
+			int result;
+			if (firstPart.matches("\\d+") && secondPart.matches("\\d+")) {
+				result = Long.compare(Long.parseLong(firstPart), Long.parseLong(secondPart));
+			} else {
+				result = firstPart.compareTo(secondPart);
+			}
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @param parent
+	 * @param tagName
+	 *            null for all child elements
+	 * @return direct child elements of the given element
+	 */
+	private static List<Element> getChildren(Element parent, String tagName) {
+		List<Element> children = new ArrayList<>();
+		NodeList nodes = parent.getChildNodes();
+		for (int i = 0; i < nodes.getLength(); i++) {
+			Node node = nodes.item(i);
+			if (node instanceof Element && (tagName == null || tagName.equals(((Element) node).getTagName()))) {
+				children.add((Element) node);
+			}
+		}
+		return children;
+	}
+
+	private static String getChildText(Element parent, String tagName) {
+		List<Element> children = getChildren(parent, tagName);
+		return children.isEmpty() ? null : children.get(0).getTextContent().trim();
+	}
+
+	private static class Dependency {
+		private final String groupId;
+		private final String artifactId;
+		private final String version;
+
+		Dependency(String groupId, String artifactId, String version) {
+			this.groupId = groupId;
+			this.artifactId = artifactId;
+			this.version = version;
+		}
+
+		String getKey() {
+			return groupId + ":" + artifactId;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package de.refactoringbot.refactoring.resolution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.javassistmodel.JavassistFactory;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+/**
+ * Type solver for the classes of dependency JARs. The names of the classes are
+ * taken from the {@link JarClassIndex}, so the JARs are only opened when the
+ * first class is actually solved, and a class file is only loaded when its type
+ * is solved for the first time.
+ *
+ * All JARs are added to one class pool in their declared order, so the pool
+ * loads a class from the same JAR as the index and finds the super types of a
+ * class in the other JARs.
+ */
+public class DependencyJarTypeSolver implements TypeSolver {
+
+	private static final Logger logger = LoggerFactory.getLogger(DependencyJarTypeSolver.class);
+
+	private final List<Path> jars;
+	// canonical name (nested classes separated by dots) -> binary name and JAR
+	private final Map<String, JarClass> classes = new HashMap<>();
+	private final ClassPool classPool = new ClassPool(false);
+	// JARs whose classes were indexed, in their declared order
+	private final List<Path> indexedJars = new ArrayList<>();
+	private boolean jarsOpened = false;
+	private final Map<String, ResolvedReferenceTypeDeclaration> solvedTypes = new HashMap<>();
+	private TypeSolver parent;
+
+	/**
+	 * @param jars
+	 *            dependency JARs, a class contained in several JARs is taken from
+	 *            the first one
+	 * @param index
+	 */
+	public DependencyJarTypeSolver(List<Path> jars, JarClassIndex index) {
+		this.jars = new ArrayList<>(jars);
+		for (Path jar : jars) {
+			try {
+				for (String binaryName : index.getClassNames(jar)) {
+					classes.putIfAbsent(binaryName.replace('$', '.'), new JarClass(binaryName, jar));
+				}
+				indexedJars.add(jar);
+			} catch (IOException e) {
+				logger.warn("Could not index dependency '{}': {}", jar, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * @return all JARs of the solver
+	 */
+	public List<Path> getJars() {
+		return jars;
+	}
+
+	@Override
+	public TypeSolver getParent() {
+		return parent;
+	}
+
+	@Override
+	public void setParent(TypeSolver parent) {
+		if (parent == this) {
+			throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+		}
+		this.parent = parent;
+	}
+
+	@Override
+	public synchronized SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+		ResolvedReferenceTypeDeclaration solvedType = solvedTypes.get(name);
+		if (solvedType != null) {
+			return SymbolReference.solved(solvedType);
+		}
+
+		JarClass jarClass = classes.get(name);
+		if (jarClass == null) {
+			return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+		}
+		try {
+			openJars();
+			CtClass ctClass = classPool.get(jarClass.binaryName);
+			solvedType = JavassistFactory.toTypeDeclaration(ctClass, getRoot());
+			solvedTypes.put(name, solvedType);
+			return SymbolReference.solved(solvedType);
+		} catch (NotFoundException | RuntimeException e) {
+			logger.warn("Could not load '{}' from '{}': {}", jarClass.binaryName, jarClass.jar, e.getMessage());
+			return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+		}
+	}
+
+	/**
+	 * Adds all indexed JARs to the class pool when the first class is loaded
+	 */
+	private void openJars() {
+		if (jarsOpened) {
+			return;
+		}
+		jarsOpened = true;
+		for (Path jar : indexedJars) {
+			try {
+				classPool.appendClassPath(jar.toString());
+			} catch (NotFoundException e) {
+				logger.warn("Could not open dependency '{}': {}", jar, e.getMessage());
+			}
+		}
+	}
+
+	private static class JarClass {
+		private final String binaryName;
+		private final Path jar;
+
+		JarClass(String binaryName, Path jar) {
+			this.binaryName = binaryName;
+			this.jar = jar;
+		}
+	}
+}
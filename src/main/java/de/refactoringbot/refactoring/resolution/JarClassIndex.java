@@ -0,0 +1,220 @@
+package de.refactoringbot.refactoring.resolution;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the classes contained in dependency JARs. Every JAR is read once:
+ * the binary names of its classes are stored in a compact index file that is
+ * shared by all configurations, as the JARs come from the same local caches.
+ * An index file is rebuilt when the size or modification time of its JAR
+ * changes.
+ *
+ * The index file starts with the size and modification time of the JAR,
+ * followed by the packages of the JAR. Each package is written on a line
+ * starting with <code>/</code>, followed by the names of its classes, one per
+ * line. Anonymous and local classes are not indexed.
+ */
+public class JarClassIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(JarClassIndex.class);
+
+	private static final int MAX_CACHED_JARS = 512;
+	private static final String PACKAGE_PREFIX = "/";
+
+	private static final JarClassIndex INSTANCE = new JarClassIndex(
+			new File(System.getProperty("java.io.tmpdir"), "refactoring-bot-jar-index"));
+
+	private final Map<Path, List<String>> cachedClassNames = new LinkedHashMap<Path, List<String>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, List<String>> eldest) {
+			return size() > MAX_CACHED_JARS;
+		}
+	};
+	private File indexDirectory;
+
+	JarClassIndex(File indexDirectory) {
+		this.indexDirectory = indexDirectory;
+	}
+
+	/**
+	 * @return the index shared by all workspaces
+	 */
+	public static JarClassIndex getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param indexDirectory
+	 *            directory the index files are stored in
+	 */
+	public synchronized void setIndexDirectory(File indexDirectory) {
+		this.indexDirectory = indexDirectory;
+		cachedClassNames.clear();
+	}
+
+	/**
+	 * @param jar
+	 * @return binary names of all classes of the given JAR, e.g.
+	 *         <code>org.example.Outer$Inner</code>
+	 * @throws IOException
+	 *             if the JAR can not be read
+	 */
+	public List<String> getClassNames(Path jar) throws IOException {
+		Path key = jar.toAbsolutePath().normalize();
+		synchronized (this) {
+			List<String> classNames = cachedClassNames.get(key);
+			if (classNames != null) {
+				return classNames;
+			}
+		}
+
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		String header = attributes.size() + " " + attributes.lastModifiedTime().toMillis();
+		File indexFile = getIndexFile(key);
+		List<String> classNames = readIndexFile(indexFile, header);
+		if (classNames == null) {
+			classNames = readClassNames(key);
+			writeIndexFile(indexFile, header, classNames);
+		}
+
+		classNames = Collections.unmodifiableList(classNames);
+		synchronized (this) {
+			cachedClassNames.put(key, classNames);
+		}
+		return classNames;
+	}
+
+	private synchronized File getIndexFile(Path jar) {
+		String fileName = jar.getFileName().toString();
+		return new File(indexDirectory, fileName.substring(0, fileName.length() - ".jar".length()) + "-"
+				+ hash(jar.toString()) + ".idx");
+	}
+
+	private List<String> readClassNames(Path jar) throws IOException {
+		List<String> classNames = new ArrayList<>();
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				String entryName = entries.nextElement().getName();
+				if (!entryName.endsWith(".class") || entryName.startsWith("META-INF/")) {
+					continue;
+				}
+				String binaryName = entryName.substring(0, entryName.length() - ".class".length()).replace('/', '.');
+				if (isIndexed(binaryName)) {
+					classNames.add(binaryName);
+				}
+			}
+		}
+		Collections.sort(classNames);
+		return classNames;
+	}
+
+	/**
+	 * @param binaryName
+	 * @return false for module and package descriptors and for anonymous and local
+	 *         classes, which can not be referenced by name
+	 */
+	private boolean isIndexed(String binaryName) {
+		String simpleName = binaryName.substring(binaryName.lastIndexOf('.') + 1);
+		if (simpleName.equals("module-info") || simpleName.equals("package-info")) {
+			return false;
+		}
+		for (String part : simpleName.split("\\$")) {
+			if (part.isEmpty() || Character.isDigit(part.charAt(0))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private List<String> readIndexFile(File indexFile, String header) {
+		if (!indexFile.isFile()) {
+			return null;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+			if (!header.equals(reader.readLine())) {
+				// the JAR was replaced
+				return null;
+			}
+			List<String> classNames = new ArrayList<>();
+			String packagePrefix = "";
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(PACKAGE_PREFIX)) {
+					String packageName = line.substring(PACKAGE_PREFIX.length());
+					packagePrefix = packageName.isEmpty() ? "" : packageName + ".";
+				} else if (!line.isEmpty()) {
+					classNames.add(packagePrefix + line);
+				}
+			}
+			return classNames;
+		} catch (IOException e) {
+			logger.warn("Could not read JAR index '{}'. It will be rebuilt.", indexFile, e);
+			return null;
+		}
+	}
+
+	private void writeIndexFile(File indexFile, String header, List<String> classNames) {
+		try {
+			indexFile.getParentFile().mkdirs();
+			// write to a temporary file first so that a crash never leaves a broken index
+			File tempFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+			try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+				writer.write(header);
+				writer.newLine();
+				String currentPackage = null;
+				for (String className : classNames) {
+					int lastDot = className.lastIndexOf('.');
+					String packageName = lastDot >= 0 ? className.substring(0, lastDot) : "";
+					if (!packageName.equals(currentPackage)) {
+						writer.write(PACKAGE_PREFIX + packageName);
+						writer.newLine();
+						currentPackage = packageName;
+					}
+					writer.write(className.substring(lastDot + 1));
+					writer.newLine();
+				}
+			}
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | UncheckedIOException e) {
+			logger.error("Could not persist JAR index '{}'!", indexFile, e);
+		}
+	}
+
+	private String hash(String text) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for (int i = 0; i < 6; i++) {
+				hex.append(String.format("%02x", digest[i]));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is not supported by the JVM", e);
+		}
+	}
+}
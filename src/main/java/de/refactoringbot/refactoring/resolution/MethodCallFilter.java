@@ -0,0 +1,78 @@
+package de.refactoringbot.refactoring.resolution;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+import de.refactoringbot.refactoring.parsing.FileContentScanner;
+
+/**
+ * Syntactic filter for calls of a set of method declarations. It rules out
+ * method calls whose name or number of arguments can not match any of the
+ * declarations, and files that do not mention any of their names, so that
+ * neither those calls have to be resolved nor those files have to be parsed.
+ */
+public class MethodCallFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodCallFilter.class);
+
+	private final Map<String, Set<Integer>> argumentCountsByName = new HashMap<>();
+	private final Map<String, Integer> minimumVarArgsCountByName = new HashMap<>();
+
+	/**
+	 * @param methodDeclarations
+	 *            declarations whose calls are searched
+	 */
+	public MethodCallFilter(Collection<MethodDeclaration> methodDeclarations) {
+		for (MethodDeclaration methodDeclaration : methodDeclarations) {
+			String name = methodDeclaration.getNameAsString();
+			int parameterCount = methodDeclaration.getParameters().size();
+			argumentCountsByName.computeIfAbsent(name, key -> new HashSet<>()).add(parameterCount);
+			if (parameterCount > 0 && methodDeclaration.getParameter(parameterCount - 1).isVarArgs()) {
+				// the variable arity parameter may be passed no argument at all
+				minimumVarArgsCountByName.merge(name, parameterCount - 1, Math::min);
+			}
+		}
+	}
+
+	/**
+	 * @param methodCall
+	 * @return false if the given call can not call any of the declarations, true
+	 *         if it has to be resolved to tell
+	 */
+	public boolean mightCall(MethodCallExpr methodCall) {
+		String name = methodCall.getNameAsString();
+		Set<Integer> argumentCounts = argumentCountsByName.get(name);
+		if (argumentCounts == null) {
+			return false;
+		}
+		int argumentCount = methodCall.getArguments().size();
+		Integer minimumVarArgsCount = minimumVarArgsCountByName.get(name);
+		return argumentCounts.contains(argumentCount)
+				|| (minimumVarArgsCount != null && argumentCount >= minimumVarArgsCount);
+	}
+
+	/**
+	 * @param filePath
+	 * @return false if the given file does not mention the name of any of the
+	 *         declarations, true if it has to be parsed to tell
+	 */
+	public boolean mightBeCalledIn(String filePath) {
+		try {
+			return FileContentScanner.containsAny(Paths.get(filePath), argumentCountsByName.keySet());
+		} catch (IOException e) {
+			logger.warn("Could not scan '{}': {}", filePath, e.getMessage());
+			return true;
+		}
+	}
+}
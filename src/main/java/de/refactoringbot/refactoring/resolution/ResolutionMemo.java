@@ -0,0 +1,103 @@
+package de.refactoringbot.refactoring.resolution;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+import de.refactoringbot.refactoring.RefactoringHelper;
+
+/**
+ * Memo of the qualified signatures resolved during a single refactoring. Every
+ * method declaration and method call is resolved at most once, failed
+ * resolutions are remembered as well. Nodes are identified by identity, so the
+ * memo must only live as long as the compilation units it was filled from are
+ * unchanged, i.e. for one refactoring.
+ */
+public class ResolutionMemo {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResolutionMemo.class);
+
+	private final Map<Node, Resolution> resolutions = new IdentityHashMap<>();
+
+	/**
+	 * @param methodDeclaration
+	 * @return qualified signature of the given method declaration
+	 * @throws BotRefactoringException
+	 *             if the declaration can not be resolved
+	 */
+	public String getQualifiedSignature(MethodDeclaration methodDeclaration) throws BotRefactoringException {
+		Resolution resolution = resolutions.get(methodDeclaration);
+		if (resolution == null) {
+			try {
+				resolution = Resolution.resolved(
+						RefactoringHelper.getQualifiedMethodSignatureAsString(methodDeclaration));
+			} catch (BotRefactoringException e) {
+				resolution = Resolution.failed(e.getMessage());
+			}
+			resolutions.put(methodDeclaration, resolution);
+		}
+
+		if (resolution.qualifiedSignature == null) {
+			throw new BotRefactoringException(resolution.errorMessage);
+		}
+		return resolution.qualifiedSignature;
+	}
+
+	/**
+	 * @param methodCall
+	 * @return qualified signature of the method called by the given method call or
+	 *         null if the call can not be resolved
+	 */
+	public String getQualifiedSignature(MethodCallExpr methodCall) {
+		Resolution resolution = resolutions.get(methodCall);
+		if (resolution == null) {
+			try {
+				resolution = Resolution.resolved(methodCall.resolve().getQualifiedSignature());
+			} catch (Exception e) {
+				// TODO could be the case that an external dependency could not be resolved. In
+				// such case it is fine to ignore the call. However, it is an issue if a method
+				// call that needs to be refactored can not be resolved.
+				logger.error(e.getMessage());
+				resolution = Resolution.failed(e.getMessage());
+			}
+			resolutions.put(methodCall, resolution);
+		}
+		return resolution.qualifiedSignature;
+	}
+
+	/**
+	 * @return number of memoized resolutions, including the failed ones
+	 */
+	public int size() {
+		return resolutions.size();
+	}
+
+	/**
+	 * Result of a resolution: either a qualified signature or the message of the
+	 * error that prevented the resolution
+	 */
+	private static class Resolution {
+		private final String qualifiedSignature;
+		private final String errorMessage;
+
+		private Resolution(String qualifiedSignature, String errorMessage) {
+			this.qualifiedSignature = qualifiedSignature;
+			this.errorMessage = errorMessage;
+		}
+
+		static Resolution resolved(String qualifiedSignature) {
+			return new Resolution(qualifiedSignature, null);
+		}
+
+		static Resolution failed(String errorMessage) {
+			return new Resolution(null, errorMessage);
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package de.refactoringbot.refactoring.resolution;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.javaparser.Navigator;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
+
+/**
+ * Type solver for the Java files of a source root. In contrast to the
+ * JavaParserTypeSolver it parses the files through the shared
+ * {@link CompilationUnitCache} and can be invalidated per file, so it can stay
+ * alive as long as its workspace.
+ *
+ * Solved types are kept until their file is invalidated, so every change of a
+ * file outside of git commits has to be reported with
+ * {@link #invalidateFiles}. Types that could not be solved are remembered until
+ * files of the root are invalidated. Both caches are bounded and evict the
+ * least recently used entries first.
+ */
+public class SourceRootTypeSolver implements TypeSolver {
+
+	private static final Logger logger = LoggerFactory.getLogger(SourceRootTypeSolver.class);
+
+	/**
+	 * Default number of solved and unsolved types that are cached
+	 */
+	public static final int DEFAULT_MAX_CACHED_TYPES = 10000;
+
+	private final Path root;
+	private final Map<String, SolvedType> solvedTypes;
+	private final Map<String, Boolean> unsolvedTypes;
+	private TypeSolver parent;
+
+	public SourceRootTypeSolver(String root) {
+		this(root, DEFAULT_MAX_CACHED_TYPES);
+	}
+
+	SourceRootTypeSolver(String root, int maxCachedTypes) {
+		this.root = Paths.get(root).toAbsolutePath().normalize();
+		this.solvedTypes = createLruMap(maxCachedTypes);
+		this.unsolvedTypes = createLruMap(maxCachedTypes);
+	}
+
+	public String getSourceRoot() {
+		return root.toString();
+	}
+
+	@Override
+	public synchronized TypeSolver getParent() {
+		return parent;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The solver outlives the combined solvers it is part of, so its parent may be
+	 * replaced.
+	 */
+	@Override
+	public synchronized void setParent(TypeSolver parent) {
+		if (parent == this) {
+			throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+		}
+		this.parent = parent;
+	}
+
+	@Override
+	public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+		SolvedType cached = getCachedType(name);
+		if (cached != null) {
+			return SymbolReference.solved(cached.declaration);
+		}
+		if (isKnownAsUnsolved(name)) {
+			return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+		}
+
+		// files are parsed without holding the lock of the solver
+		SolvedType solved = searchType(name);
+		cacheResult(name, solved);
+		return solved != null ? SymbolReference.solved(solved.declaration)
+				: SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+	}
+
+	/**
+	 * Removes all types declared in the given files and all types that could not
+	 * be solved, as the files may declare them now
+	 *
+	 * @param filePaths
+	 *            absolute paths of changed or deleted files
+	 */
+	public synchronized void invalidateFiles(Collection<String> filePaths) {
+		for (String filePath : filePaths) {
+			Path file = Paths.get(filePath).toAbsolutePath().normalize();
+			solvedTypes.values().removeIf(solvedType -> solvedType.file.equals(file));
+		}
+		unsolvedTypes.clear();
+	}
+
+	/**
+	 * Removes all cached types
+	 */
+	public synchronized void invalidateAll() {
+		solvedTypes.clear();
+		unsolvedTypes.clear();
+	}
+
+	/**
+	 * @return number of cached solved types
+	 */
+	public synchronized int getCachedTypeCount() {
+		return solvedTypes.size();
+	}
+
+	private synchronized SolvedType getCachedType(String name) {
+		return solvedTypes.get(name);
+	}
+
+	private synchronized boolean isKnownAsUnsolved(String name) {
+		return unsolvedTypes.containsKey(name);
+	}
+
+	private synchronized void cacheResult(String name, SolvedType solved) {
+		if (solved != null) {
+			solvedTypes.put(name, solved);
+			unsolvedTypes.remove(name);
+		} else {
+			solvedTypes.remove(name);
+			unsolvedTypes.put(name, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Looks up the type like the JavaParserTypeSolver: the longest prefix of the
+	 * qualified name that matches a file of the root names the file, the rest of
+	 * the name names the (nested) type in that file. Only the file named after the
+	 * type is parsed, so types that are not declared in a file of their own name
+	 * are not found.
+	 *
+	 * @param name
+	 * @return solved type or null
+	 */
+	private SolvedType searchType(String name) {
+		String[] nameElements = name.split("\\.");
+		for (int i = nameElements.length; i > 0; i--) {
+			StringBuilder filePath = new StringBuilder(root.toString());
+			for (int j = 0; j < i; j++) {
+				filePath.append(File.separator).append(nameElements[j]);
+			}
+			String typeName = buildTypeName(nameElements, i);
+
+			SolvedType solved = findType(Paths.get(filePath.toString() + ".java"), typeName);
+			if (solved != null) {
+				return solved;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param nameElements
+	 * @param fileNameIndex
+	 * @return name of the type inside of the file named by the element before the
+	 *         given index, e.g. <code>Outer.Inner</code>
+	 */
+	private String buildTypeName(String[] nameElements, int fileNameIndex) {
+		StringBuilder typeName = new StringBuilder(nameElements[fileNameIndex - 1]);
+		for (int j = fileNameIndex; j < nameElements.length; j++) {
+			typeName.append('.').append(nameElements[j]);
+		}
+		return typeName.toString();
+	}
+
+	private SolvedType findType(Path file, String typeName) {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try {
+			CompilationUnit compilationUnit = CompilationUnitCache.getInstance().getCompilationUnit(file.toString());
+			Optional<TypeDeclaration<?>> typeDeclaration = Navigator.findType(compilationUnit, typeName);
+			if (!typeDeclaration.isPresent()) {
+				return null;
+			}
+			return new SolvedType(file, JavaParserFacade.get(this).getTypeDeclaration(typeDeclaration.get()));
+		} catch (FileNotFoundException | ParseProblemException e) {
+			logger.warn("Could not parse '{}' while solving type '{}': {}", file, typeName, e.getMessage());
+			return null;
+		}
+	}
+
+	private static <V> Map<String, V> createLruMap(int maxEntries) {
+		return new LinkedHashMap<String, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * A solved type together with the file it was found in
+	 */
+	private static class SolvedType {
+		private final Path file;
+		private final ResolvedReferenceTypeDeclaration declaration;
+
+		SolvedType(Path file, ResolvedReferenceTypeDeclaration declaration) {
+			this.file = file;
+			this.declaration = declaration;
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package de.refactoringbot.refactoring.resolution;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import de.refactoringbot.refactoring.index.CommitTrackingIndex;
+
+/**
+ * Symbol solver of a workspace that is shared by all refactorings and stays
+ * alive between jobs. It keeps a {@link SourceRootTypeSolver} per Java root, so
+ * the types solved by one refactoring are reused by the next one instead of
+ * parsing and solving them again with a new solver for every job. The roots are
+ * combined by a {@link WorkspaceTypeSolver}, which only asks the roots that
+ * contain the package of a type.
+ *
+ * The solvers of the roots keep their types until their files are invalidated:
+ * when the HEAD of the workspace moves, the changed files are invalidated by the
+ * {@link de.refactoringbot.refactoring.index.WorkspaceIndexUpdater}, files that
+ * are written or restored in the working tree are invalidated by their writers.
+ * The number of workspaces with a symbol solver is
+ * bounded; the solver of the least recently used workspace is dropped first.
+ *
+ * If enabled, types of the dependencies of the workspace are solved from the
+ * JARs in the local Maven repository and Gradle cache, see
+ * {@link DependencyJarLocator}. The JARs are located again whenever the HEAD
+ * of the workspace moves.
+ */
+public class WorkspaceSymbolSolver implements CommitTrackingIndex {
+
+	/**
+	 * Maximum number of workspaces whose symbol solvers are kept
+	 */
+	public static final int MAX_WORKSPACES = 16;
+
+	private static final Map<String, WorkspaceSymbolSolver> workspaceSolvers = new LinkedHashMap<String, WorkspaceSymbolSolver>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, WorkspaceSymbolSolver> eldest) {
+			return size() > MAX_WORKSPACES;
+		}
+	};
+
+	private static volatile boolean resolveDependencyJars = false;
+
+	private final String workspaceFolder;
+	private final Map<String, SourceRootTypeSolver> rootSolvers = new HashMap<>();
+	private List<Path> dependencyJars;
+	private List<Path> configuredJars;
+	private List<String> configuredRoots;
+	private List<String> configuredFiles;
+	private WorkspaceTypeSolver typeSolver;
+	private JavaSymbolSolver symbolSolver;
+	private String indexedCommit;
+
+	WorkspaceSymbolSolver(String workspaceFolder) {
+		this.workspaceFolder = workspaceFolder;
+	}
+
+	/**
+	 * @param workspaceFolder
+	 * @return symbol solver of the given workspace, which is created on first
+	 *         access
+	 */
+	public static WorkspaceSymbolSolver forWorkspace(String workspaceFolder) {
+		synchronized (workspaceSolvers) {
+			return workspaceSolvers.computeIfAbsent(new File(workspaceFolder).getAbsolutePath(),
+					WorkspaceSymbolSolver::new);
+		}
+	}
+
+	/**
+	 * Drops the symbol solver of the given workspace, e.g. because the workspace
+	 * was deleted
+	 *
+	 * @param workspaceFolder
+	 */
+	public static void removeWorkspace(String workspaceFolder) {
+		synchronized (workspaceSolvers) {
+			workspaceSolvers.remove(new File(workspaceFolder).getAbsolutePath());
+		}
+	}
+
+	/**
+	 * @param enabled
+	 *            true if types of dependencies should be solved from the JARs in
+	 *            the local caches
+	 */
+	public static void setResolveDependencyJars(boolean enabled) {
+		resolveDependencyJars = enabled;
+	}
+
+	/**
+	 * @return dependency JARs of the workspace, empty if solving types from JARs
+	 *         is disabled
+	 */
+	public synchronized List<Path> getDependencyJars() {
+		if (!resolveDependencyJars) {
+			return Collections.emptyList();
+		}
+		if (dependencyJars == null) {
+			dependencyJars = DependencyJarLocator.getInstance().findDependencyJars(workspaceFolder);
+		}
+		return dependencyJars;
+	}
+
+	/**
+	 * Configures the StaticJavaParser to resolve symbols with the solver of this
+	 * workspace for the given Java roots
+	 *
+	 * @param javaRoots
+	 * @param javaFiles
+	 *            all Java files of the workspace
+	 */
+	public void configureStaticJavaParser(List<String> javaRoots, List<String> javaFiles) {
+		StaticJavaParser.getConfiguration().setSymbolResolver(getSymbolSolver(javaRoots, javaFiles));
+	}
+
+	/**
+	 * Returns the symbol solver for the given Java roots. The solver and its index
+	 * of the packages of the roots are only created again if the roots, files or
+	 * dependency JARs differ from the previous call, the solvers of the roots and
+	 * their cached types are reused in any case.
+	 *
+	 * @param javaRoots
+	 * @param javaFiles
+	 *            all Java files of the workspace, may be null
+	 * @return symbolSolver
+	 */
+	public synchronized JavaSymbolSolver getSymbolSolver(List<String> javaRoots, List<String> javaFiles) {
+		List<String> roots = new ArrayList<>();
+		for (String javaRoot : javaRoots) {
+			roots.add(Paths.get(javaRoot).toAbsolutePath().normalize().toString());
+		}
+		List<Path> jars = getDependencyJars();
+		if (symbolSolver != null && roots.equals(configuredRoots) && Objects.equals(javaFiles, configuredFiles)
+				&& jars.equals(configuredJars)) {
+			return symbolSolver;
+		}
+
+		rootSolvers.keySet().retainAll(new HashSet<>(roots));
+		List<SourceRootTypeSolver> solversOfRoots = new ArrayList<>();
+		for (String root : roots) {
+			solversOfRoots.add(rootSolvers.computeIfAbsent(root, SourceRootTypeSolver::new));
+		}
+		List<TypeSolver> externalSolvers = new ArrayList<>();
+		externalSolvers.add(new ReflectionTypeSolver());
+		if (!jars.isEmpty()) {
+			externalSolvers.add(new DependencyJarTypeSolver(jars, JarClassIndex.getInstance()));
+		}
+		typeSolver = new WorkspaceTypeSolver(solversOfRoots, javaFiles, externalSolvers);
+
+		configuredJars = jars;
+		configuredRoots = roots;
+		configuredFiles = javaFiles != null ? new ArrayList<>(javaFiles) : null;
+		symbolSolver = new JavaSymbolSolver(typeSolver);
+		return symbolSolver;
+	}
+
+	/**
+	 * Removes the cached types of the given files from the solvers of all roots
+	 *
+	 * @param filePaths
+	 *            absolute paths of changed or deleted files
+	 */
+	public synchronized void invalidateFiles(Set<String> filePaths) {
+		for (SourceRootTypeSolver rootSolver : rootSolvers.values()) {
+			rootSolver.invalidateFiles(filePaths);
+		}
+		if (typeSolver != null) {
+			typeSolver.clearUnsolvedTypes();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String getIndexedCommit() {
+		return indexedCommit;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Types that could not be solved are dropped in any case, as the new commit may
+	 * add them. The dependency JARs are located again on first access.
+	 */
+	@Override
+	public synchronized void applyChanges(String commitId, Set<String> changedFiles, Set<String> deletedFiles) {
+		Set<String> invalidatedFiles = new HashSet<>(changedFiles);
+		invalidatedFiles.addAll(deletedFiles);
+		invalidateFiles(invalidatedFiles);
+		// only Java files are diffed, so the build files may have changed as well
+		dependencyJars = null;
+		indexedCommit = commitId;
+	}
+}
@@ -0,0 +1,222 @@
+package de.refactoringbot.refactoring.resolution;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+
+/**
+ * Type solver of all Java roots of a workspace. Instead of asking every root in
+ * turn like the CombinedTypeSolver, it knows which roots contain which packages
+ * and only asks the roots that contain a package the type may belong to. Types
+ * that are not found in the roots are solved by the external solvers (e.g. the
+ * JDK), in the given order. Names that could not be solved at all are cached,
+ * as they are typically looked up again and again.
+ *
+ * The packages of the roots are derived from the folders of the Java files, like
+ * the JavaParserTypeSolver expects them, so the index is built once from the
+ * file list of the workspace. If no files are given, all roots are asked for
+ * every type.
+ */
+public class WorkspaceTypeSolver implements TypeSolver {
+
+	private static final Logger logger = LoggerFactory.getLogger(WorkspaceTypeSolver.class);
+
+	/**
+	 * Maximum number of names that could not be solved which are cached
+	 */
+	public static final int MAX_UNSOLVED_TYPES = 10000;
+
+	private final List<SourceRootTypeSolver> rootSolvers;
+	private final Map<String, List<SourceRootTypeSolver>> rootSolversByPackage;
+	private final List<TypeSolver> externalSolvers;
+	private final Map<String, Boolean> unsolvedTypes = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_UNSOLVED_TYPES;
+		}
+	};
+	private TypeSolver parent;
+
+	/**
+	 * @param rootSolvers
+	 * @param javaFiles
+	 *            all Java files of the roots, may be null
+	 * @param externalSolvers
+	 *            solvers of types outside of the roots
+	 */
+	public WorkspaceTypeSolver(List<SourceRootTypeSolver> rootSolvers, Collection<String> javaFiles,
+			List<TypeSolver> externalSolvers) {
+		this.rootSolvers = new ArrayList<>(rootSolvers);
+		this.rootSolversByPackage = javaFiles != null ? indexPackages(rootSolvers, javaFiles) : null;
+		this.externalSolvers = new ArrayList<>(externalSolvers);
+		for (SourceRootTypeSolver rootSolver : rootSolvers) {
+			rootSolver.setParent(this);
+		}
+		for (TypeSolver externalSolver : externalSolvers) {
+			externalSolver.setParent(this);
+		}
+	}
+
+	@Override
+	public TypeSolver getParent() {
+		return parent;
+	}
+
+	@Override
+	public void setParent(TypeSolver parent) {
+		if (parent == this) {
+			throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+		}
+		this.parent = parent;
+	}
+
+	@Override
+	public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+		if (isKnownAsUnsolved(name)) {
+			return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+		}
+
+		for (TypeSolver solver : getCandidateSolvers(name)) {
+			SymbolReference<ResolvedReferenceTypeDeclaration> reference = solver.tryToSolveType(name);
+			if (reference.isSolved()) {
+				return reference;
+			}
+		}
+
+		addUnsolved(name);
+		return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+	}
+
+	/**
+	 * Removes all cached names that could not be solved, e.g. because files of
+	 * the roots changed
+	 */
+	public synchronized void clearUnsolvedTypes() {
+		unsolvedTypes.clear();
+	}
+
+	/**
+	 * @param name
+	 * @return solvers of the roots that contain a package the type may belong to,
+	 *         followed by the external solvers. The package of a nested type is a
+	 *         shorter prefix of its name, so all prefixes are checked, the longest
+	 *         first.
+	 */
+	List<TypeSolver> getCandidateSolvers(String name) {
+		List<TypeSolver> candidates = new ArrayList<>();
+		if (rootSolversByPackage == null) {
+			candidates.addAll(rootSolvers);
+		} else {
+			String packageName = name;
+			int lastDot = packageName.lastIndexOf('.');
+			while (lastDot >= 0) {
+				packageName = packageName.substring(0, lastDot);
+				addNew(candidates, rootSolversByPackage.getOrDefault(packageName, Collections.emptyList()));
+				lastDot = packageName.lastIndexOf('.');
+			}
+			// default package
+			addNew(candidates, rootSolversByPackage.getOrDefault("", Collections.emptyList()));
+		}
+		candidates.addAll(externalSolvers);
+		return candidates;
+	}
+
+	private void addNew(List<TypeSolver> candidates, List<SourceRootTypeSolver> solvers) {
+		for (SourceRootTypeSolver solver : solvers) {
+			if (!candidates.contains(solver)) {
+				candidates.add(solver);
+			}
+		}
+	}
+
+	private synchronized boolean isKnownAsUnsolved(String name) {
+		return unsolvedTypes.containsKey(name);
+	}
+
+	private synchronized void addUnsolved(String name) {
+		unsolvedTypes.put(name, Boolean.TRUE);
+	}
+
+	/**
+	 * @param rootSolvers
+	 * @param javaFiles
+	 * @return solvers of the roots by the packages they contain. A file belongs to
+	 *         the innermost root that contains it. Roots that contain none of the
+	 *         given files are indexed with the Java files found inside of them.
+	 */
+	private static Map<String, List<SourceRootTypeSolver>> indexPackages(List<SourceRootTypeSolver> rootSolvers,
+			Collection<String> javaFiles) {
+		Map<String, List<SourceRootTypeSolver>> solversByPackage = new HashMap<>();
+		Set<SourceRootTypeSolver> indexedRoots = new HashSet<>();
+		Map<Path, SourceRootTypeSolver> ownersByFolder = new HashMap<>();
+		for (String javaFile : javaFiles) {
+			Path folder = Paths.get(javaFile).toAbsolutePath().normalize().getParent();
+			if (folder == null) {
+				continue;
+			}
+			SourceRootTypeSolver owner = ownersByFolder.computeIfAbsent(folder,
+					key -> findOwner(rootSolvers, key));
+			if (owner != null) {
+				addPackage(solversByPackage, owner, folder);
+				indexedRoots.add(owner);
+			}
+		}
+
+		for (SourceRootTypeSolver rootSolver : rootSolvers) {
+			if (indexedRoots.contains(rootSolver)) {
+				continue;
+			}
+			try (Stream<Path> paths = Files.walk(Paths.get(rootSolver.getSourceRoot()))) {
+				paths.filter(path -> path.toString().endsWith(".java")).map(Path::getParent).distinct()
+						.forEach(folder -> addPackage(solversByPackage, rootSolver, folder));
+			} catch (IOException | UncheckedIOException e) {
+				logger.warn("Could not index packages of '{}': {}", rootSolver.getSourceRoot(), e.getMessage());
+			}
+		}
+		return solversByPackage;
+	}
+
+	private static SourceRootTypeSolver findOwner(List<SourceRootTypeSolver> rootSolvers, Path folder) {
+		SourceRootTypeSolver owner = null;
+		for (SourceRootTypeSolver rootSolver : rootSolvers) {
+			Path root = Paths.get(rootSolver.getSourceRoot());
+			if (folder.startsWith(root)
+					&& (owner == null || root.getNameCount() > Paths.get(owner.getSourceRoot()).getNameCount())) {
+				owner = rootSolver;
+			}
+		}
+		return owner;
+	}
+
+	private static void addPackage(Map<String, List<SourceRootTypeSolver>> solversByPackage,
+			SourceRootTypeSolver rootSolver, Path folder) {
+		Path packageFolder = Paths.get(rootSolver.getSourceRoot()).relativize(folder);
+		String packageName = packageFolder.toString().replace(File.separatorChar, '.');
+		List<SourceRootTypeSolver> solvers = solversByPackage.computeIfAbsent(packageName, key -> new ArrayList<>(1));
+		if (!solvers.contains(rootSolver)) {
+			solvers.add(rootSolver);
+		}
+	}
+}
@@ -1,40 +1,35 @@
 package de.refactoringbot.refactoring.supportedrefactorings;
 
-import java.io.FileInputStream;
-import java.io.PrintWriter;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.stereotype.Component;
 
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.Position;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
-import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
 
 import de.refactoringbot.model.botissue.BotIssue;
-import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
 import de.refactoringbot.refactoring.RefactoringHelper;
-import de.refactoringbot.refactoring.RefactoringImpl;
+import de.refactoringbot.refactoring.TextEditRefactoring;
+import de.refactoringbot.refactoring.edit.SourceFile;
 
 /**
  * This class is used for executing the 'add override annotation' refactoring
  */
 @Component
-public class AddOverrideAnnotation implements RefactoringImpl {
+public class AddOverrideAnnotation implements TextEditRefactoring {
 
 	private static final String OVERRIDE_ANNOTATION_NAME = "Override";
 
 	@Override
-	public String performRefactoring(BotIssue issue, GitConfiguration gitConfig) throws Exception {
-		String path = issue.getFilePath();
-
-		FileInputStream in = new FileInputStream(gitConfig.getRepoFolder() + "/" + path);
-		CompilationUnit compilationUnit = LexicalPreservingPrinter.setup(StaticJavaParser.parse(in));
-
+	public String collectEdits(BotIssue issue, SourceFile sourceFile) throws BotRefactoringException {
 		MethodDeclaration methodDeclarationToModify = RefactoringHelper
-				.getMethodDeclarationByLineNumber(issue.getLine(), compilationUnit);
+				.getMethodDeclarationByLineNumber(issue.getLine(), sourceFile.getCompilationUnit());
 		if (methodDeclarationToModify == null) {
 			throw new BotRefactoringException("Could not find a method declaration at specified line!");
 		}
@@ -42,17 +37,37 @@ public class AddOverrideAnnotation implements RefactoringImpl {
 			throw new BotRefactoringException("Method is already annotated with 'Override'!");
 		}
 
-		methodDeclarationToModify.addMarkerAnnotation(OVERRIDE_ANNOTATION_NAME);
-
-		// Save changes to file
-		PrintWriter out = new PrintWriter(gitConfig.getRepoFolder() + "/" + path);
-		out.println(LexicalPreservingPrinter.print(compilationUnit));
-		out.close();
+		// Add the annotation in a line of its own after the existing annotations
+		Position position = getPositionAfterAnnotations(methodDeclarationToModify);
+		sourceFile.insert(position, "@" + OVERRIDE_ANNOTATION_NAME + sourceFile.getText().getLineSeparator()
+				+ sourceFile.getText().getIndentation(position.line));
 
 		// Return commit message
 		return "Added override annotation to method '" + methodDeclarationToModify.getNameAsString() + "'";
 	}
 
+	/**
+	 * @param declaration
+	 * @return position of the first modifier or, if there is none, of the type
+	 *         parameters or the return type of the given declaration
+	 * @throws BotRefactoringException
+	 */
+	private Position getPositionAfterAnnotations(MethodDeclaration declaration) throws BotRefactoringException {
+		Optional<JavaToken> token;
+		NodeList<AnnotationExpr> annotations = declaration.getAnnotations();
+		if (annotations.isEmpty()) {
+			token = declaration.getTokenRange().map(TokenRange::getBegin);
+		} else {
+			token = annotations.get(annotations.size() - 1).getTokenRange()
+					.flatMap(tokenRange -> tokenRange.getEnd().getNextToken());
+		}
+		while (token.isPresent() && token.get().getCategory().isWhitespaceOrComment()) {
+			token = token.get().getNextToken();
+		}
+		return token.flatMap(JavaToken::getRange).map(range -> range.begin).orElseThrow(
+				() -> new BotRefactoringException("Could not find the position of the method declaration!"));
+	}
+
 	/**
 	 * @param declaration
 	 * @return true if given declaration already has an @Override annotation, false
@@ -1,23 +1,21 @@
 package de.refactoringbot.refactoring.supportedrefactorings;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.List;
 
 import org.springframework.stereotype.Component;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.comments.Comment;
-import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
 
 import de.refactoringbot.configuration.BotConfiguration;
 import de.refactoringbot.model.botissue.BotIssue;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
 import de.refactoringbot.refactoring.RefactoringImpl;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
+import de.refactoringbot.refactoring.parsing.DeclarationLineIndex;
 
 /**
  * This class is used for executing the removal of commented out code
@@ -50,10 +48,10 @@ public class RemoveCommentedOutCode implements RefactoringImpl {
 		line = issue.getLine();
 
 		// Read file
-		FileInputStream in = new FileInputStream(path);
-		CompilationUnit compilationUnit = LexicalPreservingPrinter.setup(StaticJavaParser.parse(in));
+		CompilationUnit compilationUnit = CompilationUnitCache.getInstance().getCompilationUnitForModification(path);
 
-		List<Comment> comments = compilationUnit.getAllContainedComments();
+		// Comments that end before the line can never match
+		List<Comment> comments = DeclarationLineIndex.of(compilationUnit).getCommentsFromLine(line);
 
 		// Keeping track of the start and end line of the commented out code to add it
 		// to the output string
@@ -63,6 +61,10 @@ public class RemoveCommentedOutCode implements RefactoringImpl {
 		// Going through all comments and checking if the line matches the one we're
 		// looking for
 		for (Comment comment : comments) {
+			if (comment.getBegin().get().line > line) {
+				// All following comments start even later
+				break;
+			}
 			if ((line >= comment.getBegin().get().line) && (line <= comment.getEnd().get().line)) {
 				if (comment.isLineComment()) {
 					endLine = comment.getEnd().get().line;
@@ -91,9 +93,7 @@ public class RemoveCommentedOutCode implements RefactoringImpl {
 		}
 
 		// Printing the output file with JavaParser
-		PrintWriter out = new PrintWriter(path);
-		out.println(LexicalPreservingPrinter.print(compilationUnit));
-		out.close();
+		CompilationUnitCache.getInstance().saveCompilationUnit(path, compilationUnit);
 
 		// Return commit message
 		return ("Removed " + (endLine - startLine + 1) + " line(s) of commented out code (line " + startLine + "-"
@@ -1,10 +1,9 @@
 package de.refactoringbot.refactoring.supportedrefactorings;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -25,17 +24,19 @@ import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.javadoc.Javadoc;
 import com.github.javaparser.javadoc.JavadocBlockTag;
-import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
 import de.refactoringbot.model.botissue.BotIssue;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
 import de.refactoringbot.refactoring.RefactoringHelper;
 import de.refactoringbot.refactoring.RefactoringImpl;
+import de.refactoringbot.refactoring.index.CallSiteIndex;
+import de.refactoringbot.refactoring.index.TypeHierarchyIndex;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
+import de.refactoringbot.refactoring.parsing.DeclarationLineIndex;
+import de.refactoringbot.refactoring.resolution.MethodCallFilter;
+import de.refactoringbot.refactoring.resolution.ResolutionMemo;
+import de.refactoringbot.refactoring.resolution.WorkspaceSymbolSolver;
 
 /**
  * Refactoring to remove an unused method parameter
@@ -51,22 +52,43 @@ public class RemoveMethodParameter implements RefactoringImpl {
 	 */
 	private List<MethodDeclaration> allRefactoringRelevantMethodDeclarations = new ArrayList<>();
 
+	/**
+	 * Qualified signatures of the refactoring relevant method declarations, which
+	 * method calls are matched against
+	 */
+	private Set<String> targetMethodSignatures = new HashSet<>();
+
+	/**
+	 * Resolutions of method declarations and method calls of this refactoring
+	 */
+	private ResolutionMemo resolutionMemo = new ResolutionMemo();
+
+	/**
+	 * Rules out method calls and files that can not call the refactoring relevant
+	 * method declarations before they are resolved or parsed
+	 */
+	private MethodCallFilter methodCallFilter = new MethodCallFilter(Collections.emptyList());
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public String performRefactoring(BotIssue issue, GitConfiguration gitConfig) throws Exception {
-		configureJavaParserForProject(issue);
+		WorkspaceSymbolSolver.forWorkspace(gitConfig.getRepoFolder()).configureStaticJavaParser(issue.getJavaRoots(),
+				issue.getAllJavaFiles());
 
 		String parameterName = issue.getRefactorString();
 		String issueFilePath = gitConfig.getRepoFolder() + File.separator + issue.getFilePath();
 		MethodDeclaration targetMethod = findAndValidateTargetMethod(issue, issueFilePath, parameterName);
 		ClassOrInterfaceDeclaration targetClass = RefactoringHelper.getClassOrInterfaceOfMethod(targetMethod);
+		TypeHierarchyIndex typeHierarchyIndex = TypeHierarchyIndex.forWorkspace(gitConfig.getRepoFolder());
 		Set<String> qualifiedNamesOfRelatedClassesAndInterfaces = RefactoringHelper
-				.findRelatedClassesAndInterfaces(issue.getAllJavaFiles(), targetClass, targetMethod);
+				.findRelatedClassesAndInterfaces(typeHierarchyIndex, issue.getAllJavaFiles(), issue.getJavaRoots(),
+						targetClass, targetMethod);
 
 		HashSet<String> javaFilesRelevantForRefactoring = findRelevantJavaFiles(issue, parameterName,
-				targetMethod, qualifiedNamesOfRelatedClassesAndInterfaces);
+				targetMethod, qualifiedNamesOfRelatedClassesAndInterfaces, typeHierarchyIndex,
+				CallSiteIndex.forWorkspace(gitConfig.getRepoFolder()));
 		removeParameterFromRelatedMethodDeclarationsAndMethodCalls(javaFilesRelevantForRefactoring, targetMethod,
 				parameterName);
 
@@ -88,18 +110,15 @@ public class RemoveMethodParameter implements RefactoringImpl {
 	 */
 	private MethodDeclaration findAndValidateTargetMethod(BotIssue issue, String filePath, String parameterToBeRemoved)
 			throws BotRefactoringException, FileNotFoundException {
-		List<ClassOrInterfaceDeclaration> classesAndInterfaces = RefactoringHelper
-				.getAllClassesAndInterfacesFromFile(filePath);
+		CompilationUnit cu = CompilationUnitCache.getInstance().getCompilationUnit(filePath);
 
+		List<MethodDeclaration> methodsAtLine = DeclarationLineIndex.of(cu).getMethodDeclarationsAtLine(issue.getLine());
+
+		// only methods of classes and interfaces can be refactored
 		MethodDeclaration targetMethod = null;
-		for (ClassOrInterfaceDeclaration classOrInterface : classesAndInterfaces) {
-			for (MethodDeclaration currentMethod : classOrInterface.getMethods()) {
-				if (RefactoringHelper.isMethodDeclarationAtLine(currentMethod, issue.getLine())) {
-					targetMethod = currentMethod;
-					break;
-				}
-			}
-			if (targetMethod != null) {
+		for (MethodDeclaration currentMethod : methodsAtLine) {
+			if (currentMethod.getParentNode().filter(ClassOrInterfaceDeclaration.class::isInstance).isPresent()) {
+				targetMethod = currentMethod;
 				break;
 			}
 		}
@@ -137,7 +156,7 @@ public class RemoveMethodParameter implements RefactoringImpl {
 	private void validateParameterUnused(MethodDeclaration methodDeclaration, String parameterName)
 			throws BotRefactoringException {
 		if (isParameterUsed(methodDeclaration, parameterName)) {
-			String qualifiedMethodName = RefactoringHelper.getQualifiedMethodSignatureAsString(methodDeclaration);
+			String qualifiedMethodName = resolutionMemo.getQualifiedSignature(methodDeclaration);
 			throw new BotRefactoringException("Parameter '" + parameterName + "' is used in method '"
 					+ qualifiedMethodName + "' and therefore cannot be removed automatically.");
 		}
@@ -152,17 +171,27 @@ public class RemoveMethodParameter implements RefactoringImpl {
 	 * @param parameterToBeRemoved
 	 * @param targetMethod
 	 * @param qualifiedNamesOfRelatedClassesAndInterfaces
+	 * @param typeHierarchyIndex
+	 * @param callSiteIndex
 	 * @return
 	 * @throws FileNotFoundException
 	 * @throws BotRefactoringException
 	 */
 	private HashSet<String> findRelevantJavaFiles(BotIssue issue, String parameterToBeRemoved,
-			MethodDeclaration targetMethod, Set<String> qualifiedNamesOfRelatedClassesAndInterfaces)
+			MethodDeclaration targetMethod, Set<String> qualifiedNamesOfRelatedClassesAndInterfaces,
+			TypeHierarchyIndex typeHierarchyIndex, CallSiteIndex callSiteIndex)
 			throws FileNotFoundException, BotRefactoringException {
 		HashSet<String> javaFilesRelevantForRefactoring = new HashSet<>();
 		String postRefactoringSignature = getPostRefactoringSignature(targetMethod, parameterToBeRemoved);
 
+		// only files declaring related classes or interfaces can contain relevant
+		// method declarations
+		Set<String> filesDeclaringRelatedClassesAndInterfaces = typeHierarchyIndex
+				.getFilesDeclaringTypes(qualifiedNamesOfRelatedClassesAndInterfaces);
 		for (String currentFilePath : issue.getAllJavaFiles()) {
+			if (!filesDeclaringRelatedClassesAndInterfaces.contains(currentFilePath)) {
+				continue;
+			}
 			List<ClassOrInterfaceDeclaration> classesAndInterfacesInCurrentFile = RefactoringHelper
 					.getAllClassesAndInterfacesFromFile(currentFilePath);
 
@@ -190,9 +219,14 @@ public class RemoveMethodParameter implements RefactoringImpl {
 		// search for files containing relevant method calls
 		// we had to first find all relevant target methods in order to find all method
 		// calls that need to be refactored. This is why we need to iterate a second
-		// time through all files
+		// time through all files. The call site index narrows them down to the files
+		// that might contain such calls
+		Set<String> filesWithCallSites = findFilesWithTargetMethodCalls(callSiteIndex, issue.getAllJavaFiles());
 		for (String currentFilePath : issue.getAllJavaFiles()) {
-			if (javaFilesRelevantForRefactoring.contains(currentFilePath)) {
+			// files that do not mention the method name are not parsed at all
+			if (javaFilesRelevantForRefactoring.contains(currentFilePath)
+					|| !filesWithCallSites.contains(currentFilePath)
+					|| !methodCallFilter.mightBeCalledIn(currentFilePath)) {
 				continue;
 			}
 			List<ClassOrInterfaceDeclaration> classesAndInterfacesInCurrentFile = RefactoringHelper
@@ -271,8 +305,12 @@ public class RemoveMethodParameter implements RefactoringImpl {
 		Integer parameterIndex = getMethodParameterIndex(targetMethod, parameterName);
 
 		for (String currentFilePath : javaFilesRelevantForRefactoring) {
-			FileInputStream is = new FileInputStream(currentFilePath);
-			CompilationUnit cu = LexicalPreservingPrinter.setup(StaticJavaParser.parse(is));
+			// lexical preservation is only set up for files that are actually changed
+			if (!containsTargetMethodDeclarationOrCall(
+					CompilationUnitCache.getInstance().getCompilationUnit(currentFilePath))) {
+				continue;
+			}
+			CompilationUnit cu = CompilationUnitCache.getInstance().getCompilationUnitForModification(currentFilePath);
 
 			List<MethodDeclaration> methodDeclarationsInCurrentFile = cu.findAll(MethodDeclaration.class);
 			List<MethodCallExpr> methodCallsInCurrentFile = cu.findAll(MethodCallExpr.class);
@@ -292,12 +330,29 @@ public class RemoveMethodParameter implements RefactoringImpl {
 				}
 			}
 
-			PrintWriter out = new PrintWriter(currentFilePath);
-			out.println(LexicalPreservingPrinter.print(cu));
-			out.close();
+			CompilationUnitCache.getInstance().saveCompilationUnit(currentFilePath, cu);
 		}
 	}
 
+	/**
+	 * @param cu
+	 * @return true if the given compilation unit contains a relevant method
+	 *         declaration or a call of the target method
+	 */
+	private boolean containsTargetMethodDeclarationOrCall(CompilationUnit cu) {
+		for (MethodDeclaration fileMethod : cu.findAll(MethodDeclaration.class)) {
+			if (allRefactoringRelevantMethodDeclarations.contains(fileMethod)) {
+				return true;
+			}
+		}
+		for (MethodCallExpr fileMethodCall : cu.findAll(MethodCallExpr.class)) {
+			if (isTargetMethodCall(fileMethodCall)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * @param methodDeclaration
 	 * @param parameterName
@@ -313,6 +368,33 @@ public class RemoveMethodParameter implements RefactoringImpl {
 		return null;
 	}
 
+	/**
+	 * Resolves the qualified signatures of all relevant method declarations once,
+	 * so that method calls can be matched against them with a lookup.
+	 * 
+	 * @param callSiteIndex
+	 * @param allJavaFiles
+	 * @return all files that might contain calls of the relevant method
+	 *         declarations. If a declaration can not be resolved, all files are
+	 *         returned.
+	 */
+	private Set<String> findFilesWithTargetMethodCalls(CallSiteIndex callSiteIndex, List<String> allJavaFiles) {
+		methodCallFilter = new MethodCallFilter(allRefactoringRelevantMethodDeclarations);
+		boolean allResolved = true;
+		for (MethodDeclaration methodDeclaration : allRefactoringRelevantMethodDeclarations) {
+			try {
+				targetMethodSignatures.add(resolutionMemo.getQualifiedSignature(methodDeclaration));
+			} catch (BotRefactoringException e) {
+				logger.warn(e.getMessage());
+				allResolved = false;
+			}
+		}
+		if (!allResolved) {
+			return new HashSet<>(allJavaFiles);
+		}
+		return callSiteIndex.findFilesWithCallSites(targetMethodSignatures, allJavaFiles);
+	}
+
 	/**
 	 * @param classesAndInterfaces
 	 * @return true if given classes and interfaces contain at least one call
@@ -336,28 +418,12 @@ public class RemoveMethodParameter implements RefactoringImpl {
 	 *         otherwise
 	 */
 	private boolean isTargetMethodCall(MethodCallExpr methodCall) {
-		for (MethodDeclaration targetMethod : allRefactoringRelevantMethodDeclarations) {
-			String qualifiedMethodSignatureOfResolvedMethodCall = null;
-			String qualifiedMethodSignatureOfTargetMethod = null;
-			try {
-				qualifiedMethodSignatureOfResolvedMethodCall = methodCall.resolve().getQualifiedSignature();
-				qualifiedMethodSignatureOfTargetMethod = RefactoringHelper
-						.getQualifiedMethodSignatureAsString(targetMethod);
-			} catch (Exception e) {
-				logger.error(e.getMessage());
-				// TODO could be the case that an external dependency could not be resolved. In
-				// such case it is fine to return false. However, it is an issue if a method
-				// call that needs to be refactored can not be resolved.
-				// see also RefactoringHelper.getQualifiedMethodSignatureAsString
-				return false;
-			}
-
-			if (qualifiedMethodSignatureOfTargetMethod.equals(qualifiedMethodSignatureOfResolvedMethodCall)) {
-				return true;
-			}
+		if (!methodCallFilter.mightCall(methodCall)) {
+			return false;
 		}
-
-		return false;
+		String qualifiedMethodSignatureOfResolvedMethodCall = resolutionMemo.getQualifiedSignature(methodCall);
+		return qualifiedMethodSignatureOfResolvedMethodCall != null
+				&& targetMethodSignatures.contains(qualifiedMethodSignatureOfResolvedMethodCall);
 	}
 
 	/**
@@ -428,14 +494,4 @@ public class RemoveMethodParameter implements RefactoringImpl {
 		String qualifiedNameOfCandidate = candidate.resolve().getQualifiedName();
 		return qualifiedNamesOfRelatedClassesAndInterfaces.contains(qualifiedNameOfCandidate);
 	}
-
-	private void configureJavaParserForProject(BotIssue issue) {
-		CombinedTypeSolver typeSolver = new CombinedTypeSolver();
-		for (String javaRoot : issue.getJavaRoots()) {
-			typeSolver.add(new JavaParserTypeSolver(javaRoot));
-		}
-		typeSolver.add(new ReflectionTypeSolver());
-		JavaSymbolSolver javaSymbolSolver = new JavaSymbolSolver(typeSolver);
-		StaticJavaParser.getConfiguration().setSymbolResolver(javaSymbolSolver);
-	}
 }
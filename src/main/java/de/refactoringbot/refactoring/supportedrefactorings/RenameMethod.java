@@ -1,10 +1,10 @@
 package de.refactoringbot.refactoring.supportedrefactorings;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -18,17 +18,20 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
 import de.refactoringbot.model.botissue.BotIssue;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
 import de.refactoringbot.refactoring.RefactoringHelper;
 import de.refactoringbot.refactoring.RefactoringImpl;
+import de.refactoringbot.refactoring.edit.SourceFile;
+import de.refactoringbot.refactoring.index.CallSiteIndex;
+import de.refactoringbot.refactoring.index.TypeHierarchyIndex;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
+import de.refactoringbot.refactoring.parsing.DeclarationLineIndex;
+import de.refactoringbot.refactoring.resolution.MethodCallFilter;
+import de.refactoringbot.refactoring.resolution.ResolutionMemo;
+import de.refactoringbot.refactoring.resolution.WorkspaceSymbolSolver;
 
 /**
  * Refactoring to rename a method
@@ -45,22 +48,43 @@ public class RenameMethod implements RefactoringImpl {
 	 */
 	private List<MethodDeclaration> allRefactoringRelevantMethodDeclarations = new ArrayList<>();
 
+	/**
+	 * Qualified signatures of the refactoring relevant method declarations, which
+	 * method calls are matched against
+	 */
+	private Set<String> targetMethodSignatures = new HashSet<>();
+
+	/**
+	 * Resolutions of method declarations and method calls of this refactoring
+	 */
+	private ResolutionMemo resolutionMemo = new ResolutionMemo();
+
+	/**
+	 * Rules out method calls and files that can not call the refactoring relevant
+	 * method declarations before they are resolved or parsed
+	 */
+	private MethodCallFilter methodCallFilter = new MethodCallFilter(Collections.emptyList());
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public String performRefactoring(BotIssue issue, GitConfiguration gitConfig) throws Exception {
-		configureJavaParserForProject(issue);
+		WorkspaceSymbolSolver.forWorkspace(gitConfig.getRepoFolder()).configureStaticJavaParser(issue.getJavaRoots(),
+				issue.getAllJavaFiles());
 
 		String newMethodName = issue.getRefactorString();
 		String issueFilePath = gitConfig.getRepoFolder() + File.separator + issue.getFilePath();
 		MethodDeclaration targetMethod = findAndValidateTargetMethod(issue, issueFilePath, newMethodName);
 		ClassOrInterfaceDeclaration targetClass = RefactoringHelper.getClassOrInterfaceOfMethod(targetMethod);
+		TypeHierarchyIndex typeHierarchyIndex = TypeHierarchyIndex.forWorkspace(gitConfig.getRepoFolder());
 		Set<String> qualifiedNamesOfRelatedClassesAndInterfaces = RefactoringHelper
-				.findRelatedClassesAndInterfaces(issue.getAllJavaFiles(), targetClass, targetMethod);
+				.findRelatedClassesAndInterfaces(typeHierarchyIndex, issue.getAllJavaFiles(), issue.getJavaRoots(),
+						targetClass, targetMethod);
 
 		HashSet<String> javaFilesRelevantForRefactoring = findRelevantJavaFiles(issue, newMethodName, targetMethod,
-				qualifiedNamesOfRelatedClassesAndInterfaces);
+				qualifiedNamesOfRelatedClassesAndInterfaces, typeHierarchyIndex,
+				CallSiteIndex.forWorkspace(gitConfig.getRepoFolder()));
 		renameRelatedMethodDeclarationsAndMethodCalls(javaFilesRelevantForRefactoring, newMethodName);
 
 		String oldMethodName = targetMethod.getNameAsString();
@@ -81,18 +105,15 @@ public class RenameMethod implements RefactoringImpl {
 	 */
 	private MethodDeclaration findAndValidateTargetMethod(BotIssue issue, String filePath, String newMethodName)
 			throws BotRefactoringException, FileNotFoundException {
-		List<ClassOrInterfaceDeclaration> classesAndInterfaces = RefactoringHelper
-				.getAllClassesAndInterfacesFromFile(filePath);
+		CompilationUnit cu = CompilationUnitCache.getInstance().getCompilationUnit(filePath);
 
+		List<MethodDeclaration> methodsAtLine = DeclarationLineIndex.of(cu).getMethodDeclarationsAtLine(issue.getLine());
+
+		// only methods of classes and interfaces can be refactored
 		MethodDeclaration targetMethod = null;
-		for (ClassOrInterfaceDeclaration classOrInterface : classesAndInterfaces) {
-			for (MethodDeclaration currentMethod : classOrInterface.getMethods()) {
-				if (RefactoringHelper.isMethodDeclarationAtLine(currentMethod, issue.getLine())) {
-					targetMethod = currentMethod;
-					break;
-				}
-			}
-			if (targetMethod != null) {
+		for (MethodDeclaration currentMethod : methodsAtLine) {
+			if (currentMethod.getParentNode().filter(ClassOrInterfaceDeclaration.class::isInstance).isPresent()) {
+				targetMethod = currentMethod;
 				break;
 			}
 		}
@@ -118,17 +139,26 @@ public class RenameMethod implements RefactoringImpl {
 	 * @param newMethodName
 	 * @param targetMethod
 	 * @param qualifiedNamesOfRelatedClassesAndInterfaces
+	 * @param typeHierarchyIndex
+	 * @param callSiteIndex
 	 * @return
 	 * @throws FileNotFoundException
 	 * @throws BotRefactoringException
 	 */
 	private HashSet<String> findRelevantJavaFiles(BotIssue issue, String newMethodName, MethodDeclaration targetMethod,
-			Set<String> qualifiedNamesOfRelatedClassesAndInterfaces)
-			throws FileNotFoundException, BotRefactoringException {
+			Set<String> qualifiedNamesOfRelatedClassesAndInterfaces, TypeHierarchyIndex typeHierarchyIndex,
+			CallSiteIndex callSiteIndex) throws FileNotFoundException, BotRefactoringException {
 		HashSet<String> javaFilesRelevantForRefactoring = new HashSet<>();
 		String postRefactoringSignature = getPostRefactoringSignature(targetMethod, newMethodName);
 
+		// only files declaring related classes or interfaces can contain relevant
+		// method declarations
+		Set<String> filesDeclaringRelatedClassesAndInterfaces = typeHierarchyIndex
+				.getFilesDeclaringTypes(qualifiedNamesOfRelatedClassesAndInterfaces);
 		for (String currentFilePath : issue.getAllJavaFiles()) {
+			if (!filesDeclaringRelatedClassesAndInterfaces.contains(currentFilePath)) {
+				continue;
+			}
 			List<ClassOrInterfaceDeclaration> classesAndInterfacesInCurrentFile = RefactoringHelper
 					.getAllClassesAndInterfacesFromFile(currentFilePath);
 
@@ -156,9 +186,14 @@ public class RenameMethod implements RefactoringImpl {
 		// search for files containing relevant method calls
 		// we had to first find all relevant target methods in order to find all method
 		// calls that need to be refactored. This is why we need to iterate a second
-		// time through all files
+		// time through all files. The call site index narrows them down to the files
+		// that might contain such calls
+		Set<String> filesWithCallSites = findFilesWithTargetMethodCalls(callSiteIndex, issue.getAllJavaFiles());
 		for (String currentFilePath : issue.getAllJavaFiles()) {
-			if (javaFilesRelevantForRefactoring.contains(currentFilePath)) {
+			// files that do not mention the method name are not parsed at all
+			if (javaFilesRelevantForRefactoring.contains(currentFilePath)
+					|| !filesWithCallSites.contains(currentFilePath)
+					|| !methodCallFilter.mightBeCalledIn(currentFilePath)) {
 				continue;
 			}
 			List<ClassOrInterfaceDeclaration> classesAndInterfacesInCurrentFile = RefactoringHelper
@@ -179,7 +214,7 @@ public class RenameMethod implements RefactoringImpl {
 	 */
 	private String getPostRefactoringSignature(MethodDeclaration methodDeclaration, String newMethodName) {
 		MethodDeclaration copy = methodDeclaration.clone();
-		renameMethod(copy, newMethodName);
+		copy.setName(newMethodName);
 		return RefactoringHelper.getLocalMethodSignatureAsString(copy);
 	}
 
@@ -200,6 +235,33 @@ public class RenameMethod implements RefactoringImpl {
 		}
 	}
 
+	/**
+	 * Resolves the qualified signatures of all relevant method declarations once,
+	 * so that method calls can be matched against them with a lookup.
+	 * 
+	 * @param callSiteIndex
+	 * @param allJavaFiles
+	 * @return all files that might contain calls of the relevant method
+	 *         declarations. If a declaration can not be resolved, all files are
+	 *         returned.
+	 */
+	private Set<String> findFilesWithTargetMethodCalls(CallSiteIndex callSiteIndex, List<String> allJavaFiles) {
+		methodCallFilter = new MethodCallFilter(allRefactoringRelevantMethodDeclarations);
+		boolean allResolved = true;
+		for (MethodDeclaration methodDeclaration : allRefactoringRelevantMethodDeclarations) {
+			try {
+				targetMethodSignatures.add(resolutionMemo.getQualifiedSignature(methodDeclaration));
+			} catch (BotRefactoringException e) {
+				logger.warn(e.getMessage());
+				allResolved = false;
+			}
+		}
+		if (!allResolved) {
+			return new HashSet<>(allJavaFiles);
+		}
+		return callSiteIndex.findFilesWithCallSites(targetMethodSignatures, allJavaFiles);
+	}
+
 	/**
 	 * @param classesAndInterfaces
 	 * @return true if given classes and interfaces contain at least one call
@@ -223,28 +285,12 @@ public class RenameMethod implements RefactoringImpl {
 	 *         otherwise
 	 */
 	private boolean isTargetMethodCall(MethodCallExpr methodCall) {
-		for (MethodDeclaration targetMethod : allRefactoringRelevantMethodDeclarations) {
-			String qualifiedMethodSignatureOfResolvedMethodCall = null;
-			String qualifiedMethodSignatureOfTargetMethod = null;
-			try {
-				qualifiedMethodSignatureOfResolvedMethodCall = methodCall.resolve().getQualifiedSignature();
-				qualifiedMethodSignatureOfTargetMethod = RefactoringHelper
-						.getQualifiedMethodSignatureAsString(targetMethod);
-			} catch (Exception e) {
-				logger.error(e.getMessage());
-				// TODO could be the case that an external dependency could not be resolved. In
-				// such case it is fine to return false. However, it is an issue if a method
-				// call that needs to be refactored can not be resolved.
-				// see also RefactoringHelper.getQualifiedMethodSignatureAsString
-				return false;
-			}
-
-			if (qualifiedMethodSignatureOfTargetMethod.equals(qualifiedMethodSignatureOfResolvedMethodCall)) {
-				return true;
-			}
+		if (!methodCallFilter.mightCall(methodCall)) {
+			return false;
 		}
-
-		return false;
+		String qualifiedMethodSignatureOfResolvedMethodCall = resolutionMemo.getQualifiedSignature(methodCall);
+		return qualifiedMethodSignatureOfResolvedMethodCall != null
+				&& targetMethodSignatures.contains(qualifiedMethodSignatureOfResolvedMethodCall);
 	}
 
 	/**
@@ -261,17 +307,19 @@ public class RenameMethod implements RefactoringImpl {
 
 	/**
 	 * Rename all relevant method declarations and method calls in the given java
-	 * files
+	 * files. Only the names are replaced in the text of the files, files without
+	 * relevant declarations or calls are not written.
 	 * 
 	 * @param javaFilesRelevantForRefactoring
 	 * @param newMethodName
-	 * @throws FileNotFoundException
+	 * @throws BotRefactoringException
+	 * @throws IOException
 	 */
 	private void renameRelatedMethodDeclarationsAndMethodCalls(HashSet<String> javaFilesRelevantForRefactoring,
-			String newMethodName) throws FileNotFoundException {
+			String newMethodName) throws BotRefactoringException, IOException {
 		for (String currentFilePath : javaFilesRelevantForRefactoring) {
-			FileInputStream is = new FileInputStream(currentFilePath);
-			CompilationUnit cu = LexicalPreservingPrinter.setup(StaticJavaParser.parse(is));
+			SourceFile sourceFile = CompilationUnitCache.getInstance().getSourceFile(currentFilePath);
+			CompilationUnit cu = sourceFile.getCompilationUnit();
 
 			List<MethodDeclaration> methodDeclarationsInCurrentFile = cu.findAll(MethodDeclaration.class);
 			List<MethodCallExpr> methodCallsInCurrentFile = cu.findAll(MethodCallExpr.class);
@@ -279,51 +327,43 @@ public class RenameMethod implements RefactoringImpl {
 			// rename all target method calls
 			for (MethodCallExpr fileMethodCall : methodCallsInCurrentFile) {
 				if (isTargetMethodCall(fileMethodCall)) {
-					renameMethodCall(fileMethodCall, newMethodName);
+					renameMethodCall(sourceFile, fileMethodCall, newMethodName);
 				}
 			}
 
 			// rename all relevant method declarations
 			for (MethodDeclaration fileMethod : methodDeclarationsInCurrentFile) {
 				if (allRefactoringRelevantMethodDeclarations.contains(fileMethod)) {
-					renameMethod(fileMethod, newMethodName);
+					renameMethod(sourceFile, fileMethod, newMethodName);
 				}
 			}
 
-			PrintWriter out = new PrintWriter(currentFilePath);
-			out.println(LexicalPreservingPrinter.print(cu));
-			out.close();
+			if (sourceFile.hasEdits()) {
+				CompilationUnitCache.getInstance().saveSourceFile(sourceFile);
+			}
 		}
 	}
 
 	/**
 	 * Renames the given method to the given new method name
 	 * 
+	 * @param sourceFile
 	 * @param methodDeclaration
 	 * @param newMethodName
 	 */
-	private void renameMethod(MethodDeclaration methodDeclaration, String newMethodName) {
-		methodDeclaration.setName(newMethodName);
+	private void renameMethod(SourceFile sourceFile, MethodDeclaration methodDeclaration, String newMethodName) {
+		sourceFile.replace(methodDeclaration.getName(), newMethodName);
 	}
 
 	/**
 	 * Renames the given method call to the given method name
 	 * 
+	 * @param sourceFile
 	 * @param methodCall
 	 * @param newMethodName
 	 */
-	private void renameMethodCall(MethodCallExpr methodCall, String newMethodName) {
-		methodCall.setName(newMethodName);
-	}
-
-	private void configureJavaParserForProject(BotIssue issue) {
-		CombinedTypeSolver typeSolver = new CombinedTypeSolver();
-		for (String javaRoot : issue.getJavaRoots()) {
-			typeSolver.add(new JavaParserTypeSolver(javaRoot));
-		}
-		typeSolver.add(new ReflectionTypeSolver());
-		JavaSymbolSolver javaSymbolSolver = new JavaSymbolSolver(typeSolver);
-		StaticJavaParser.getConfiguration().setSymbolResolver(javaSymbolSolver);
+	private void renameMethodCall(SourceFile sourceFile, MethodCallExpr methodCall, String newMethodName) {
+		sourceFile.replace(methodCall.getName(), newMethodName);
 	}
 
 }
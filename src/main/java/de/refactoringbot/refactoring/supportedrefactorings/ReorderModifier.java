@@ -1,70 +1,58 @@
 package de.refactoringbot.refactoring.supportedrefactorings;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.PrintWriter;
 import java.util.EnumSet;
 
 import org.springframework.stereotype.Component;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.Modifier.Keyword;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
 
 import de.refactoringbot.model.botissue.BotIssue;
-import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
 import de.refactoringbot.refactoring.RefactoringHelper;
-import de.refactoringbot.refactoring.RefactoringImpl;
+import de.refactoringbot.refactoring.TextEditRefactoring;
+import de.refactoringbot.refactoring.edit.SourceFile;
 
 /**
  * This class is used to bring method and field modifiers into the correct
  * order, following the Java Language Specification (JLS)
  */
 @Component
-public class ReorderModifier implements RefactoringImpl {
+public class ReorderModifier implements TextEditRefactoring {
 
 	/**
 	 * Reorder modifiers of a given field or method to comply with the JLS
 	 */
 	@Override
-	public String performRefactoring(BotIssue issue, GitConfiguration gitConfig) throws Exception {
-		String filepath = gitConfig.getRepoFolder() + File.separator + issue.getFilePath();
-		FileInputStream in = new FileInputStream(filepath);
-		CompilationUnit compilationUnit = LexicalPreservingPrinter.setup(StaticJavaParser.parse(in));
+	public String collectEdits(BotIssue issue, SourceFile sourceFile) throws BotRefactoringException {
+		CompilationUnit compilationUnit = sourceFile.getCompilationUnit();
 
 		FieldDeclaration field = RefactoringHelper.getFieldDeclarationByLineNumber(issue.getLine(), compilationUnit);
 		MethodDeclaration method = RefactoringHelper.getMethodDeclarationByLineNumber(issue.getLine(),
 				compilationUnit);
-		boolean isModifierListUnchanged = false;
-		NodeList<Modifier> modifiersInCorrectOrder;
+		NodeList<Modifier> modifiers;
 		if (field != null) {
-			modifiersInCorrectOrder = getModifiersInCorrectOrder(field.getModifiers());
-			isModifierListUnchanged = field.getModifiers().equals(modifiersInCorrectOrder);
-			field.setModifiers(new NodeList<Modifier>());
-			field.setModifiers(modifiersInCorrectOrder);
+			modifiers = field.getModifiers();
 		} else if (method != null) {
-			modifiersInCorrectOrder = getModifiersInCorrectOrder(method.getModifiers());
-			isModifierListUnchanged = method.getModifiers().equals(modifiersInCorrectOrder);
-			method.setModifiers(new NodeList<Modifier>());
-			method.setModifiers(modifiersInCorrectOrder);
+			modifiers = method.getModifiers();
 		} else {
 			throw new BotRefactoringException("Could not find method or field declaration at the given line!");
 		}
 
-		if (isModifierListUnchanged) {
+		NodeList<Modifier> modifiersInCorrectOrder = getModifiersInCorrectOrder(modifiers);
+		if (modifiers.equals(modifiersInCorrectOrder)) {
 			throw new BotRefactoringException("All modifiers are in correct order! Nothing to refactor.");
 		}
 
-		// Save changes to file
-		PrintWriter out = new PrintWriter(filepath);
-		out.println(LexicalPreservingPrinter.print(compilationUnit));
-		out.close();
+		// Replace each modifier with the one that belongs to its place, so that
+		// annotations and comments between the modifiers stay where they are
+		for (int i = 0; i < modifiers.size(); i++) {
+			sourceFile.replace(modifiers.get(i), modifiersInCorrectOrder.get(i).getKeyword().asString());
+		}
 
 		// Return commit message
 		return "Reordered modifiers to comply with the Java Language Specification";
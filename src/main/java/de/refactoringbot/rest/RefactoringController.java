@@ -1,5 +1,8 @@
 package de.refactoringbot.rest;
 
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +15,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import de.refactoringbot.model.exceptions.BotRefactoringException;
 import de.refactoringbot.model.exceptions.DatabaseConnectionException;
-import de.refactoringbot.services.main.RefactoringService;
+import de.refactoringbot.model.job.RefactoringJob;
+import de.refactoringbot.services.main.RefactoringJobService;
 import io.swagger.annotations.ApiOperation;
 import javassist.NotFoundException;
 
@@ -28,23 +32,25 @@ import javassist.NotFoundException;
 public class RefactoringController {
 
 	@Autowired
-	RefactoringService refactoringService;
+	RefactoringJobService jobService;
 	
 	private static final Logger logger = LoggerFactory.getLogger(RefactoringController.class);
 
 	/**
-	 * This method performs refactorings with comments within Pull-Requests of a
-	 * Filehoster like GitHub.
+	 * This method enqueues a job that performs refactorings with comments within
+	 * Pull-Requests of a Filehoster like GitHub.
 	 * 
 	 * @param configID
-	 * @return allRequests
+	 * @return job
 	 */
 	@PostMapping(value = "/{configID}/refactorWithComments", produces = "application/json")
-	@ApiOperation(value = "Perform refactorings with Pull-Request-Comments.")
+	@ApiOperation(value = "Perform refactorings with Pull-Request-Comments. Returns the ID of the refactoring job.")
 	public ResponseEntity<?> refactorWithComments(@PathVariable Long configID) {
-		// Refactor with comments and respond with result
+		// Enqueue refactoring with comments and respond with the job
 		try {
-			return refactoringService.performRefactoring(configID, true);
+			return acceptJob(jobService.submitJob(configID, true));
+		} catch (RejectedExecutionException r) {
+			return new ResponseEntity<>(r.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
 		} catch (DatabaseConnectionException d) {
 			logger.error(d.getMessage(), d);
 			return new ResponseEntity<>(d.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -59,18 +65,20 @@ public class RefactoringController {
 	}
 
 	/**
-	 * This method performs refactorings according to findings with an analysis
-	 * service like SonarQube.
+	 * This method enqueues a job that performs refactorings according to findings
+	 * with an analysis service like SonarQube.
 	 * 
 	 * @param configID
-	 * @return allRefactoredIssues
+	 * @return job
 	 */
 	@PostMapping(value = "/{configID}/refactorWithAnalysisService", produces = "application/json")
-	@ApiOperation(value = "Perform refactorings with analysis service.")
+	@ApiOperation(value = "Perform refactorings with analysis service. Returns the ID of the refactoring job.")
 	public ResponseEntity<?> refactorWithSonarQube(@PathVariable Long configID) {
-		// Refactor with analysis service and respond with result
+		// Enqueue refactoring with analysis service and respond with the job
 		try {
-			return refactoringService.performRefactoring(configID, false);
+			return acceptJob(jobService.submitJob(configID, false));
+		} catch (RejectedExecutionException r) {
+			return new ResponseEntity<>(r.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
 		} catch (DatabaseConnectionException d) {
 			logger.error(d.getMessage(), d);
 			return new ResponseEntity<>(d.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -83,4 +91,12 @@ public class RefactoringController {
 			return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	/**
+	 * @param job
+	 * @return response with the accepted job and its location
+	 */
+	private ResponseEntity<?> acceptJob(RefactoringJob job) {
+		return ResponseEntity.accepted().location(URI.create("/jobs/" + job.getJobId())).body(job);
+	}
 }
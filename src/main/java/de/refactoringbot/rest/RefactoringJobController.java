@@ -0,0 +1,87 @@
+package de.refactoringbot.rest;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import de.refactoringbot.model.job.RefactoringJob;
+import de.refactoringbot.model.job.RefactoringJobStatus;
+import de.refactoringbot.services.main.RefactoringJobService;
+import io.swagger.annotations.ApiOperation;
+
+/**
+ * This REST-Controller creates an REST-API which allows the user to follow
+ * the refactoring jobs of the bot and to get their results.
+ *
+ */
+@RestController
+@RequestMapping(path = "/jobs")
+public class RefactoringJobController {
+
+	@Autowired
+	RefactoringJobService jobService;
+
+	/**
+	 * This method returns the status and the progress of a refactoring job.
+	 * 
+	 * @param jobID
+	 * @return job
+	 */
+	@GetMapping(value = "/{jobID}", produces = "application/json")
+	@ApiOperation(value = "Get the status of a refactoring job.")
+	public ResponseEntity<?> getJob(@PathVariable String jobID) {
+		Optional<RefactoringJob> job = jobService.getJob(jobID);
+		if (!job.isPresent()) {
+			return new ResponseEntity<>("Job with given ID does not exist!", HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<>(job.get(), HttpStatus.OK);
+	}
+
+	/**
+	 * This method streams the progress messages of a refactoring job as
+	 * server-sent events. The stream ends with the final status of the job.
+	 * 
+	 * @param jobID
+	 * @return progress
+	 */
+	@GetMapping(value = "/{jobID}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@ApiOperation(value = "Stream the progress of a refactoring job.")
+	public ResponseEntity<SseEmitter> streamProgress(@PathVariable String jobID) {
+		Optional<RefactoringJob> job = jobService.getJob(jobID);
+		if (!job.isPresent()) {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<>(jobService.streamProgress(job.get()), HttpStatus.OK);
+	}
+
+	/**
+	 * This method returns the refactored issues of a finished refactoring job.
+	 * 
+	 * @param jobID
+	 * @return refactoredIssues
+	 */
+	@GetMapping(value = "/{jobID}/result", produces = "application/json")
+	@ApiOperation(value = "Get the refactored issues of a finished refactoring job.")
+	public ResponseEntity<?> getResult(@PathVariable String jobID) {
+		Optional<RefactoringJob> job = jobService.getJob(jobID);
+		if (!job.isPresent()) {
+			return new ResponseEntity<>("Job with given ID does not exist!", HttpStatus.NOT_FOUND);
+		}
+		RefactoringJobStatus status = job.get().getStatus();
+		if (status == RefactoringJobStatus.FAILED) {
+			return new ResponseEntity<>(job.get().getErrorMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+		if (status != RefactoringJobStatus.FINISHED) {
+			return new ResponseEntity<>("Job is not finished yet!", HttpStatus.CONFLICT);
+		}
+		return new ResponseEntity<>(job.get().getRefactoredIssues(), HttpStatus.OK);
+	}
+}
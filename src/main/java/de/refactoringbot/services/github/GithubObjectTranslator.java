@@ -11,7 +11,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import de.refactoringbot.api.github.GithubDataGrabber;
-import de.refactoringbot.model.botissue.BotIssue;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.configuration.GitConfigurationDTO;
 import de.refactoringbot.model.exceptions.GitHubAPIException;
@@ -168,19 +167,22 @@ public class GithubObjectTranslator {
 
 	/**
 	 * This method creates an object that can be used to create a Pull-Request on
-	 * GitHub after a analysis service refactoring.
+	 * GitHub after a analysis service refactoring of one or more issues.
 	 * 
+	 * @param title
+	 * @param refactorings
+	 *            list of the refactorings that is appended to the description
 	 * @param gitConfig
 	 * @param newBranch
 	 * @return createRequest
 	 */
-	public GithubCreateRequest makeCreateRequestWithAnalysisService(BotIssue issue, GitConfiguration gitConfig,
-			String newBranch) {
+	public GithubCreateRequest makeCreateRequestWithAnalysisService(String title, String refactorings,
+			GitConfiguration gitConfig, String newBranch) {
 		GithubCreateRequest createRequest = new GithubCreateRequest();
 
 		// Fill object with data
-		createRequest.setTitle(issue.getCommitMessage());
-		createRequest.setBody(PULL_REQUEST_DESCRIPTION);
+		createRequest.setTitle(title);
+		createRequest.setBody(PULL_REQUEST_DESCRIPTION + refactorings);
 		createRequest.setHead(gitConfig.getBotName() + ":" + newBranch);
 		createRequest.setBase("master");
 		createRequest.setMaintainer_can_modify(true);
@@ -12,7 +12,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import de.refactoringbot.api.gitlab.GitlabDataGrabber;
-import de.refactoringbot.model.botissue.BotIssue;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.configuration.GitConfigurationDTO;
 import de.refactoringbot.model.exceptions.GitLabAPIException;
@@ -171,20 +170,29 @@ public class GitlabObjectTranslator {
 
 	/**
 	 * This method creates an object that can be used to create a Pull-Request on
-	 * GitLab after a SonarQube refactoring.
+	 * GitLab after a SonarQube refactoring of one or more issues. The request of a
+	 * single issue keeps the title naming the analysis service.
 	 * 
-	 * @param issue
+	 * @param title
+	 *            title of a request with several refactorings
+	 * @param refactorings
+	 *            list of the refactorings that is appended to the description,
+	 *            empty for a single issue
 	 * @param gitConfig
 	 * @param newBranch
 	 * @return createRequest
 	 */
-	public GitLabCreateRequest makeCreateRequestWithAnalysisService(BotIssue issue, GitConfiguration gitConfig,
-			String newBranch) {
+	public GitLabCreateRequest makeCreateRequestWithAnalysisService(String title, String refactorings,
+			GitConfiguration gitConfig, String newBranch) {
 		GitLabCreateRequest createRequest = new GitLabCreateRequest();
 
 		// Fill object with data
-		createRequest.setTitle("Bot Merge-Request Refactoring with '" + gitConfig.getAnalysisService() + "'");
-		createRequest.setDescription(PULL_REQUEST_DESCRIPTION);
+		if (refactorings.isEmpty()) {
+			createRequest.setTitle("Bot Merge-Request Refactoring with '" + gitConfig.getAnalysisService() + "'");
+		} else {
+			createRequest.setTitle(title);
+		}
+		createRequest.setDescription(PULL_REQUEST_DESCRIPTION + refactorings);
 		createRequest.setSource_branch(newBranch);
 		createRequest.setTarget_branch("master");
 		createRequest.setAllow_collaboration(true);
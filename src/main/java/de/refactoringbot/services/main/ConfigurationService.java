@@ -19,6 +19,7 @@ import de.refactoringbot.model.configuration.ConfigurationRepository;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.configuration.GitConfigurationDTO;
 import de.refactoringbot.model.exceptions.DatabaseConnectionException;
+import de.refactoringbot.refactoring.index.WorkspaceIndexUpdater;
 import de.refactoringbot.services.github.GithubObjectTranslator;
 import javassist.NotFoundException;
 
@@ -43,6 +44,10 @@ public class ConfigurationService {
 	GitService gitService;
 	@Autowired
 	BotService botService;
+	@Autowired
+	GitWorktreeManager worktreeManager;
+	@Autowired
+	GitRepositoryCache repositoryCache;
 
 	private static final Logger logger = LoggerFactory.getLogger(ConfigurationService.class);
 
@@ -134,7 +139,10 @@ public class ConfigurationService {
 			repo.delete(createdConfig);
 			// Try to delete local folder
 			File forkFolder = new File(botConfig.getBotRefactoringDirectory() + createdConfig.getConfigurationId());
+			repositoryCache.evict(forkFolder);
+			WorkspaceIndexUpdater.removeWorkspace(forkFolder.getPath());
 			FileUtils.deleteDirectory(forkFolder);
+			worktreeManager.removeWorktrees(createdConfig.getConfigurationId());
 
 			// Try to delete Repo
 			grabber.deleteRepository(createdConfig);
@@ -155,7 +163,10 @@ public class ConfigurationService {
 	public GitConfiguration finalizeGitConfiguration(GitConfiguration config) throws Exception {
 		// Delete local folder for config if exists (if database was resetted)
 		if (new File(botConfig.getBotRefactoringDirectory() + config.getConfigurationId()).exists()) {
+			repositoryCache.evict(new File(botConfig.getBotRefactoringDirectory() + config.getConfigurationId()));
+			WorkspaceIndexUpdater.removeWorkspace(botConfig.getBotRefactoringDirectory() + config.getConfigurationId());
 			FileUtils.deleteDirectory(new File(botConfig.getBotRefactoringDirectory() + config.getConfigurationId()));
+			worktreeManager.removeWorktrees(config.getConfigurationId());
 		}
 
 		// Create new local folder for the fork
@@ -241,7 +252,10 @@ public class ConfigurationService {
 	public void deleteConfigurationFolder(GitConfiguration config) throws IOException {
 		try {
 			File forkFolder = new File(botConfig.getBotRefactoringDirectory() + config.getConfigurationId());
+			repositoryCache.evict(forkFolder);
+			WorkspaceIndexUpdater.removeWorkspace(forkFolder.getPath());
 			FileUtils.deleteDirectory(forkFolder);
+			worktreeManager.removeWorktrees(config.getConfigurationId());
 		} catch (Exception e) {
 			logger.error(e.getMessage(), e);
 			throw new IOException(
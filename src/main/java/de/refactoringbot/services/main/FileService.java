@@ -1,27 +1,39 @@
 package de.refactoringbot.services.main;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.PackageDeclaration;
-import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+
+import de.refactoringbot.refactoring.parsing.PackageDeclarationScanner;
+import de.refactoringbot.refactoring.parsing.ParallelParser;
+
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * This class has methods that work with Files and Folders of Java-Projects.
@@ -34,30 +46,155 @@ public class FileService {
 
 	private static final Logger logger = LoggerFactory.getLogger(FileService.class);
 
+	private final Map<String, CachedJavaFiles> javaFilesByWorkspace = new ConcurrentHashMap<>();
+	private final Map<String, CachedJavaRoots> javaRootsByWorkspace = new ConcurrentHashMap<>();
+
 	/**
 	 * This method returns all Javafile-Paths of a project from a configuration.
+	 * Inside git repositories the Java files tracked by the git index are listed
+	 * and cached until the HEAD commit or the index changes. Other folders are
+	 * walked without descending into folders of version control, build output
+	 * and dependencies.
 	 * 
 	 * @param repoFolderPath
 	 * @return allJavaFiles
 	 * @throws IOException
 	 */
 	public List<String> getAllJavaFiles(String repoFolderPath) throws IOException {
-		// Init all java files path-list
-		List<String> allJavaFiles = new ArrayList<>();
-
 		// Get root folder of project
-		File dir = new File(repoFolderPath);
+		Path root = Paths.get(repoFolderPath).toRealPath();
 
-		// Get paths to all java files of the project
-		List<File> files = (List<File>) FileUtils.listFiles(dir, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
-		for (File file : files) {
-			if (file.getCanonicalPath().endsWith(".java")) {
-				allJavaFiles.add(file.getCanonicalPath());
+		File gitDir = root.resolve(Constants.DOT_GIT).toFile();
+		if (!gitDir.isDirectory()) {
+			return walkJavaFiles(root);
+		}
+
+		try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build()) {
+			ObjectId head = repository.resolve(Constants.HEAD);
+			File indexFile = repository.getIndexFile();
+			String cacheKey = (head != null ? head.name() : "") + ":" + indexFile.lastModified() + ":"
+					+ indexFile.length();
+
+			CachedJavaFiles cached = javaFilesByWorkspace.get(root.toString());
+			if (cached != null && cached.cacheKey.equals(cacheKey)) {
+				return new ArrayList<>(cached.javaFiles);
+			}
+
+			List<String> allJavaFiles = listTrackedJavaFiles(root, repository);
+			javaFilesByWorkspace.put(root.toString(), new CachedJavaFiles(cacheKey, allJavaFiles));
+			return allJavaFiles;
+		}
+	}
+
+	/**
+	 * @param root
+	 * @param repository
+	 * @return all Java files of the git index that exist in the working tree
+	 * @throws IOException
+	 */
+	private List<String> listTrackedJavaFiles(Path root, Repository repository) throws IOException {
+		List<String> allJavaFiles = new ArrayList<>();
+		DirCache dirCache = repository.readDirCache();
+		for (int i = 0; i < dirCache.getEntryCount(); i++) {
+			DirCacheEntry entry = dirCache.getEntry(i);
+			String path = entry.getPathString();
+			// skip files of unresolved merge conflicts, files outside of a sparse checkout
+			// do not exist in the working tree
+			if (path.endsWith(".java") && entry.getStage() == DirCacheEntry.STAGE_0) {
+				Path javaFile = root.resolve(path);
+				if (Files.isRegularFile(javaFile)) {
+					allJavaFiles.add(javaFile.toString());
+				}
 			}
 		}
 		return allJavaFiles;
 	}
 
+	/**
+	 * @param root
+	 * @return all Java files inside the given folder, except those inside ignored
+	 *         folders
+	 * @throws IOException
+	 */
+	private List<String> walkJavaFiles(Path root) throws IOException {
+		List<String> allJavaFiles = new ArrayList<>();
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				return isIgnoredFolder(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (attrs.isRegularFile() && file.getFileName().toString().endsWith(".java")) {
+					allJavaFiles.add(file.toString());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException exc) {
+				logger.warn("Could not visit '{}': {}", file, exc.getMessage());
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return allJavaFiles;
+	}
+
+	/**
+	 * Build output folders are only ignored next to the build file that creates
+	 * them, so that packages with the same name are still found.
+	 * 
+	 * @param dir
+	 * @return true if the given folder can not contain sources of the project
+	 */
+	private boolean isIgnoredFolder(Path dir) {
+		String name = dir.getFileName() != null ? dir.getFileName().toString() : "";
+		Path parent = dir.getParent();
+		switch (name) {
+		case Constants.DOT_GIT:
+		case "node_modules":
+			return true;
+		case "target":
+			return parent != null && Files.exists(parent.resolve("pom.xml"));
+		case "build":
+			return parent != null && (Files.exists(parent.resolve("build.gradle"))
+					|| Files.exists(parent.resolve("build.gradle.kts")));
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * This method returns all root folders' absolute paths of the given java files
+	 * of a workspace. The roots are cached per commit of the workspace and only
+	 * searched again if the commit or the set of java files has changed.
+	 * 
+	 * @param repoFolderPath
+	 * @param allJavaFiles
+	 * @return javaRoots
+	 * @throws FileNotFoundException
+	 */
+	public List<String> findJavaRoots(String repoFolderPath, List<String> allJavaFiles)
+			throws FileNotFoundException {
+		String headCommit = getHeadCommit(repoFolderPath);
+		if (headCommit == null) {
+			return findJavaRoots(allJavaFiles);
+		}
+
+		String workspace = new File(repoFolderPath).getAbsolutePath();
+		int javaFilesHash = new HashSet<>(allJavaFiles).hashCode();
+		CachedJavaRoots cached = javaRootsByWorkspace.get(workspace);
+		if (cached != null && cached.headCommit.equals(headCommit) && cached.javaFilesHash == javaFilesHash) {
+			return new ArrayList<>(cached.javaRoots);
+		}
+
+		List<String> javaRoots = findJavaRoots(allJavaFiles);
+		javaRootsByWorkspace.put(workspace, new CachedJavaRoots(headCommit, javaFilesHash, javaRoots));
+		return javaRoots;
+	}
+
 	/**
 	 * This method returns all root folders' absolute paths of the given java files
 	 * (like the src folder or the src/main/java folder of maven projects)
@@ -69,33 +206,83 @@ public class FileService {
 	public List<String> findJavaRoots(List<String> allJavaFiles) throws FileNotFoundException {
 		Set<String> javaRoots = new HashSet<>();
 
+		// only the header of each file is scanned for the package declaration
+		Map<String, String> packageNames = new HashMap<>();
+		List<String> filesWithUnscannableHeader = new ArrayList<>();
 		for (String javaFile : allJavaFiles) {
-			FileInputStream filepath = new FileInputStream(javaFile);
-
-			CompilationUnit compilationUnit;
-                        
 			try {
-				compilationUnit = LexicalPreservingPrinter.setup(StaticJavaParser.parse(filepath));
-			} catch (Exception e) {
-				logger.error(e.getMessage(), e);
-				continue;
+				PackageDeclarationScanner.scan(Paths.get(javaFile))
+						.ifPresent(packageName -> packageNames.put(javaFile, packageName));
+			} catch (IOException e) {
+				logger.debug(e.getMessage());
+				filesWithUnscannableHeader.add(javaFile);
 			}
+		}
 
-			File file = new File(javaFile);
-			List<PackageDeclaration> packageDeclarations = compilationUnit.findAll(PackageDeclaration.class);
-			if (!packageDeclarations.isEmpty()) {
-				// current java file should contain exactly one package declaration
-				PackageDeclaration packageDeclaration = packageDeclarations.get(0);
-				String rootPackage = packageDeclaration.getNameAsString().split("\\.")[0];
-				String javaRoot = file.getAbsolutePath()
-						.split(Pattern.quote(File.separator) + rootPackage + Pattern.quote(File.separator))[0];
-
-                                // If we have a made-up package name the path will not exist, so we don't add it
-                                if (Files.exists(Paths.get(javaRoot))) {
-                                    javaRoots.add(javaRoot);
-                                }
-			}
+		// parse files with unusual headers completely
+		packageNames.putAll(ParallelParser.getInstance().analyzeAll(filesWithUnscannableHeader,
+				Collections.emptyList(), (javaFile, parser) -> ParallelParser.parse(parser, javaFile)
+						.getPackageDeclaration().map(PackageDeclaration::getNameAsString).orElse(null)));
+
+		for (Map.Entry<String, String> packageName : packageNames.entrySet()) {
+			File file = new File(packageName.getKey());
+			// current java file should contain exactly one package declaration
+			String rootPackage = packageName.getValue().split("\\.")[0];
+			String javaRoot = file.getAbsolutePath()
+					.split(Pattern.quote(File.separator) + rootPackage + Pattern.quote(File.separator))[0];
+
+                        // If we have a made-up package name the path will not exist, so we don't add it
+                        if (Files.exists(Paths.get(javaRoot))) {
+                            javaRoots.add(javaRoot);
+                        }
 		}
 		return new ArrayList<>(javaRoots);
 	}
+
+	/**
+	 * @param repoFolderPath
+	 * @return id of the current HEAD commit of the given folder or null if it is
+	 *         not a git repository
+	 */
+	private String getHeadCommit(String repoFolderPath) {
+		File gitDir = new File(repoFolderPath, ".git");
+		if (!gitDir.isDirectory()) {
+			return null;
+		}
+		try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).build()) {
+			ObjectId head = repository.resolve(Constants.HEAD);
+			return head != null ? head.name() : null;
+		} catch (IOException e) {
+			logger.warn("Could not resolve HEAD of '{}': {}", repoFolderPath, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Java files of a workspace at a commit and state of its git index
+	 */
+	private static class CachedJavaFiles {
+		private final String cacheKey;
+		private final List<String> javaFiles;
+
+		CachedJavaFiles(String cacheKey, List<String> javaFiles) {
+			this.cacheKey = cacheKey;
+			this.javaFiles = new ArrayList<>(javaFiles);
+		}
+	}
+
+	/**
+	 * Java roots of a workspace at a commit
+	 */
+	private static class CachedJavaRoots {
+		private final String headCommit;
+		private final int javaFilesHash;
+		private final List<String> javaRoots;
+
+		CachedJavaRoots(String headCommit, int javaFilesHash, List<String> javaRoots) {
+			this.headCommit = headCommit;
+			this.javaFilesHash = javaFilesHash;
+			this.javaRoots = new ArrayList<>(javaRoots);
+		}
+	}
 }
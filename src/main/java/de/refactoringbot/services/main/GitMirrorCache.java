@@ -0,0 +1,160 @@
+package de.refactoringbot.services.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import de.refactoringbot.configuration.BotConfiguration;
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.model.exceptions.GitWorkflowException;
+
+/**
+ * This class keeps a bare mirror of every upstream repository, which is shared
+ * by all configurations of that upstream and of its forks.
+ *
+ * Workspaces borrow the objects of the mirror through
+ * <code>objects/info/alternates</code>. A clone therefore only downloads the
+ * objects that the fork does not share with its upstream, and the upstream
+ * branches of a workspace are fetched from the local mirror. A mirror is
+ * fetched again when it is used after the scheduling delay has passed since its
+ * last fetch, no matter how many configurations use it in between.
+ *
+ * Objects are never removed from a mirror, as workspaces may depend on them.
+ */
+@Service
+public class GitMirrorCache {
+
+	private static final String MIRROR_FOLDER = "mirrors";
+	private static final String OBJECTS_FOLDER = "objects";
+
+	@Autowired
+	BotConfiguration botConfig;
+	@Value("${scheduling.delayInMS:10000}")
+	long fetchIntervalInMS = 10000;
+
+	private static final Logger logger = LoggerFactory.getLogger(GitMirrorCache.class);
+
+	// time of the last fetch of every mirror, guarded by this
+	private final Map<File, Long> lastFetches = new HashMap<>();
+	private final Map<File, Object> mirrorLocks = new ConcurrentHashMap<>();
+
+	/**
+	 * @return true if workspaces use the mirrors of their upstreams
+	 */
+	public boolean isEnabled() {
+		return Boolean.TRUE.equals(botConfig.getUpstreamMirrors());
+	}
+
+	/**
+	 * This method creates the mirror of the upstream of the given configuration
+	 * if necessary and fetches its branches, unless that already happened within
+	 * the scheduling delay.
+	 *
+	 * @param gitConfig
+	 * @param credentialsProvider
+	 *            credentials for the upstream
+	 * @return folder of the mirror
+	 * @throws GitWorkflowException
+	 */
+	public File updateMirror(GitConfiguration gitConfig, CredentialsProvider credentialsProvider)
+			throws GitWorkflowException {
+		File mirror = getMirrorFolder(gitConfig.getRepoGitLink());
+		synchronized (mirrorLocks.computeIfAbsent(mirror, folder -> new Object())) {
+			synchronized (this) {
+				Long lastFetch = lastFetches.get(mirror);
+				if (lastFetch != null && System.currentTimeMillis() - lastFetch < fetchIntervalInMS) {
+					return mirror;
+				}
+			}
+			try {
+				if (!new File(mirror, OBJECTS_FOLDER).isDirectory()) {
+					createMirror(mirror, gitConfig.getRepoGitLink());
+				}
+				try (Git git = Git.open(mirror)) {
+					git.fetch().setRemote("upstream")
+							.setRefSpecs(new RefSpec("+" + Constants.R_HEADS + "*:" + Constants.R_HEADS + "*"))
+							.setTagOpt(TagOpt.NO_TAGS).setCredentialsProvider(credentialsProvider).call();
+				}
+			} catch (Exception e) {
+				logger.error(e.getMessage(), e);
+				throw new GitWorkflowException("Could not update the mirror of '" + gitConfig.getRepoGitLink() + "'!");
+			}
+			synchronized (this) {
+				lastFetches.put(mirror, System.currentTimeMillis());
+			}
+			return mirror;
+		}
+	}
+
+	/**
+	 * This method lets the given repository borrow the objects of the given
+	 * mirror. Repositories that are open already do not see the objects until
+	 * they are opened again.
+	 *
+	 * @param repository
+	 * @param mirror
+	 * @return true if the repository did not borrow the objects before
+	 * @throws IOException
+	 */
+	public boolean borrowObjects(Repository repository, File mirror) throws IOException {
+		File alternates = new File(repository.getDirectory(),
+				OBJECTS_FOLDER + File.separator + "info" + File.separator + "alternates");
+		String mirrorObjects = new File(mirror, OBJECTS_FOLDER).getAbsolutePath();
+		if (alternates.isFile() && Files.readAllLines(alternates.toPath(), StandardCharsets.UTF_8)
+				.contains(mirrorObjects)) {
+			return false;
+		}
+		alternates.getParentFile().mkdirs();
+		Files.write(alternates.toPath(), (mirrorObjects + "\n").getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		return true;
+	}
+
+	private void createMirror(File mirror, String upstreamUrl) throws Exception {
+		try (Git git = Git.init().setBare(true).setDirectory(mirror).call()) {
+			StoredConfig config = git.getRepository().getConfig();
+			config.setString(ConfigConstants.CONFIG_REMOTE_SECTION, "upstream", ConfigConstants.CONFIG_KEY_URL,
+					upstreamUrl);
+			config.save();
+		}
+		logger.info("Created mirror of '{}' in '{}'.", upstreamUrl, mirror);
+	}
+
+	/**
+	 * @param upstreamUrl
+	 * @return folder of the mirror, which is named after the hash of the URL
+	 */
+	private File getMirrorFolder(String upstreamUrl) {
+		String normalizedUrl = upstreamUrl.trim().toLowerCase(Locale.ROOT);
+		while (normalizedUrl.endsWith("/")) {
+			normalizedUrl = normalizedUrl.substring(0, normalizedUrl.length() - 1);
+		}
+		if (normalizedUrl.endsWith(Constants.DOT_GIT_EXT)) {
+			normalizedUrl = normalizedUrl.substring(0, normalizedUrl.length() - Constants.DOT_GIT_EXT.length());
+		}
+		String hash = ObjectId
+				.fromRaw(Constants.newMessageDigest().digest(normalizedUrl.getBytes(StandardCharsets.UTF_8))).name();
+		return new File(botConfig.getBotRefactoringDirectory() + MIRROR_FOLDER, hash).getAbsoluteFile();
+	}
+}
@@ -0,0 +1,99 @@
+package de.refactoringbot.services.main;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.PostConstruct;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.lib.RepositoryCache.FileKey;
+import org.eclipse.jgit.lib.RepositoryCacheConfig;
+import org.eclipse.jgit.util.FS;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import de.refactoringbot.configuration.BotConfiguration;
+
+/**
+ * This class keeps the repositories of the workspaces and worktrees open
+ * between git operations, so that their configuration, refs and pack files are
+ * not read again for every operation.
+ *
+ * The repositories are held in the repository cache of JGit, which counts the
+ * open handles of every repository. A repository without open handles is closed
+ * after the configured idle time.
+ *
+ */
+@Service
+public class GitRepositoryCache {
+
+	@Autowired
+	BotConfiguration botConfig;
+
+	@PostConstruct
+	public void configureCache() {
+		RepositoryCacheConfig cacheConfig = new RepositoryCacheConfig();
+		cacheConfig.setExpireAfter(botConfig.getRepositoryCacheIdleTimeInMS());
+		cacheConfig.setCleanupDelay(RepositoryCacheConfig.AUTO_CLEANUP_DELAY);
+		cacheConfig.install();
+	}
+
+	/**
+	 * This method opens the repository of the given folder. Closing the returned
+	 * handle releases the repository, it stays cached until it was idle for the
+	 * configured time.
+	 *
+	 * @param folder
+	 *            workspace or worktree with a '.git' folder
+	 * @return handle of the cached repository
+	 * @throws IOException
+	 */
+	public Git open(File folder) throws IOException {
+		Repository repository = RepositoryCache.open(getKey(folder), true);
+		return new CachedGit(repository);
+	}
+
+	/**
+	 * This method removes the repository of the given folder from the cache, e.g.
+	 * before the folder is deleted or cloned again. The repository is closed as
+	 * soon as its last handle is closed.
+	 *
+	 * @param folder
+	 */
+	public void evict(File folder) {
+		FileKey key = getKey(folder);
+		if (!RepositoryCache.getRegisteredKeys().contains(key)) {
+			return;
+		}
+		try {
+			Repository repository = RepositoryCache.open(key, true);
+			RepositoryCache.unregister(key);
+			repository.close();
+		} catch (IOException e) {
+			// the folder is already gone
+			RepositoryCache.unregister(key);
+		}
+	}
+
+	private FileKey getKey(File folder) {
+		return FileKey.exact(new File(folder.getAbsoluteFile(), Constants.DOT_GIT), FS.DETECTED);
+	}
+
+	/**
+	 * Git handle that releases the cached repository when it is closed.
+	 */
+	private static class CachedGit extends Git {
+
+		CachedGit(Repository repository) {
+			super(repository);
+		}
+
+		@Override
+		public void close() {
+			getRepository().close();
+		}
+	}
+}
@@ -1,21 +1,58 @@
 package de.refactoringbot.services.main;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.CheckoutCommand;
+import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.CreateBranchCommand;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.RemoteAddCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.RefAlreadyExistsException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
 import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.CoreConfig.AutoCRLF;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.util.io.AutoLFInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +63,7 @@ import de.refactoringbot.model.configuration.FileHoster;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
 import de.refactoringbot.model.exceptions.GitWorkflowException;
+import de.refactoringbot.refactoring.index.WorkspaceIndexUpdater;
 
 /**
  * This class uses git programmatically with JGIT.
@@ -38,9 +76,20 @@ public class GitService {
 
 	@Autowired
 	BotConfiguration botConfig;
+	@Autowired
+	GitRepositoryCache repositoryCache;
+	@Autowired
+	GitMirrorCache mirrorCache;
 
 	private static final Logger logger = LoggerFactory.getLogger(GitService.class);
 
+	/**
+	 * Files that are checked out by a sparse checkout: Java sources and the build
+	 * files that declare the dependencies of the sources
+	 */
+	private static final String[] SPARSE_CHECKOUT_SUFFIXES = { ".java", "pom.xml", ".gradle", ".gradle.kts",
+			"gradle.properties" };
+
 	/**
 	 * This method initialises the workspace.
 	 * 
@@ -61,7 +110,7 @@ public class GitService {
 	 * @throws GitWorkflowException
 	 */
 	public void addRemote(GitConfiguration gitConfig) throws GitWorkflowException {
-		try (Git git = Git.open(new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId()))) {
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
 			// Add Remote as 'upstream'
 			RemoteAddCommand remoteAddCommand = git.remoteAdd();
 			remoteAddCommand.setName("upstream");
@@ -81,17 +130,27 @@ public class GitService {
 	 * @throws GitWorkflowException
 	 */
 	public void fetchRemote(GitConfiguration gitConfig) throws GitWorkflowException {
-		try (Git git = Git.open(new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId()))) {
+		File mirror = null;
+		if (mirrorCache.isEnabled()) {
+			mirror = mirrorCache.updateMirror(gitConfig, createCredentialsProvider(gitConfig));
+			borrowMirrorObjects(gitConfig, mirror);
+		}
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
 			// Fetch data
-			if (gitConfig.getRepoService().equals(FileHoster.github)) {
-				git.fetch().setRemote("upstream")
-						.setCredentialsProvider(new UsernamePasswordCredentialsProvider(gitConfig.getBotToken(), ""))
-						.call();
-			} else {
-				git.fetch().setRemote("upstream").setCredentialsProvider(
-						new UsernamePasswordCredentialsProvider(gitConfig.getBotName(), gitConfig.getBotToken()))
-						.call();
+			FetchCommand fetchCommand = git.fetch().setRemote("upstream")
+					.setCredentialsProvider(createCredentialsProvider(gitConfig));
+			if (mirror != null) {
+				// the mirror is up to date, nothing is downloaded
+				fetchCommand.setRemote(mirror.getPath()).setRefSpecs(
+						new RefSpec("+" + Constants.R_HEADS + "*:" + Constants.R_REMOTES + "upstream/*"));
+			}
+			if (Boolean.TRUE.equals(gitConfig.getSingleBranchClone())) {
+				// only the branch the refactorings are based on
+				fetchCommand.setRefSpecs(createBranchRefSpec("upstream", Constants.MASTER))
+						.setTagOpt(TagOpt.NO_TAGS);
 			}
+			fetchCommand.call();
+			updateWorkspaceIndexes(git, gitConfig);
 		} catch (Exception e) {
 			logger.error(e.getMessage(), e);
 			throw new GitWorkflowException("Could not fetch data from 'upstream'!");
@@ -105,7 +164,7 @@ public class GitService {
 	 * @throws GitWorkflowException
 	 */
 	public void stashChanges(GitConfiguration gitConfig) throws GitWorkflowException {
-		try (Git git = Git.open(new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId()))) {
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
 			// Open git folder
 			// Stash changes
 			git.stashApply().call();
@@ -116,25 +175,39 @@ public class GitService {
 	}
 
 	/**
-	 * This method clones an repository with its git url.
+	 * This method clones an repository with its git url. Depending on the
+	 * configuration only the master branch is cloned and only Java sources and
+	 * build files are checked out. If mirrors are used, the clone borrows the
+	 * objects of the mirror of the upstream.
 	 * 
 	 * @param gitConfig
 	 * @throws GitWorkflowException
 	 */
 	public void cloneRepository(GitConfiguration gitConfig) throws GitWorkflowException {
 		Git git = null;
+		// a repository and indexes that were cached for the folder before are outdated
+		repositoryCache.evict(getWorkspaceFolder(gitConfig));
+		WorkspaceIndexUpdater.removeWorkspace(getWorkspaceFolder(gitConfig).getPath());
 		try {
-			if (gitConfig.getRepoService().equals(FileHoster.github)) {
-				git = Git.cloneRepository().setURI(gitConfig.getForkGitLink())
-						.setDirectory(new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId()))
-						.setCredentialsProvider(new UsernamePasswordCredentialsProvider(gitConfig.getBotToken(), ""))
-						.call();
-			} else {
-				git = Git.cloneRepository().setURI(gitConfig.getForkGitLink())
-						.setDirectory(new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId()))
-						.setCredentialsProvider(new UsernamePasswordCredentialsProvider(gitConfig.getBotName(),
-								gitConfig.getBotToken()))
-						.call();
+			if (mirrorCache.isEnabled()) {
+				cloneWithMirror(gitConfig,
+						mirrorCache.updateMirror(gitConfig, createCredentialsProvider(gitConfig)));
+				return;
+			}
+			CloneCommand cloneCommand = Git.cloneRepository().setURI(gitConfig.getForkGitLink())
+					.setDirectory(getWorkspaceFolder(gitConfig))
+					.setCredentialsProvider(createCredentialsProvider(gitConfig));
+			if (Boolean.TRUE.equals(gitConfig.getSingleBranchClone())) {
+				cloneCommand.setCloneAllBranches(false)
+						.setBranchesToClone(Collections.singletonList(Constants.R_HEADS + Constants.MASTER))
+						.setBranch(Constants.MASTER);
+			}
+			if (Boolean.TRUE.equals(gitConfig.getSparseCheckout())) {
+				cloneCommand.setNoCheckout(true);
+			}
+			git = cloneCommand.call();
+			if (Boolean.TRUE.equals(gitConfig.getSparseCheckout())) {
+				checkoutClonedMaster(git.getRepository(), true);
 			}
 		} catch (Exception e) {
 			logger.error(e.getMessage(), e);
@@ -147,6 +220,117 @@ public class GitService {
 		}
 	}
 
+	/**
+	 * This method clones the fork into the workspace, borrowing all objects of the
+	 * given mirror, so that only the objects which the fork does not share with
+	 * its upstream are downloaded.
+	 * 
+	 * @param gitConfig
+	 * @param mirror
+	 * @throws Exception
+	 */
+	private void cloneWithMirror(GitConfiguration gitConfig, File mirror) throws Exception {
+		try (Git git = Git.init().setDirectory(getWorkspaceFolder(gitConfig)).call()) {
+			mirrorCache.borrowObjects(git.getRepository(), mirror);
+			RemoteAddCommand remoteAddCommand = git.remoteAdd();
+			remoteAddCommand.setName("origin");
+			remoteAddCommand.setUri(new URIish(gitConfig.getForkGitLink()));
+			remoteAddCommand.call();
+
+			FetchCommand fetchCommand = git.fetch().setRemote("origin")
+					.setCredentialsProvider(createCredentialsProvider(gitConfig));
+			if (Boolean.TRUE.equals(gitConfig.getSingleBranchClone())) {
+				fetchCommand.setRefSpecs(createBranchRefSpec("origin", Constants.MASTER)).setTagOpt(TagOpt.NO_TAGS);
+			}
+			fetchCommand.call();
+			checkoutClonedMaster(git.getRepository(), Boolean.TRUE.equals(gitConfig.getSparseCheckout()));
+		}
+	}
+
+	/**
+	 * Lets an existing workspace borrow the objects of the given mirror.
+	 * 
+	 * @param gitConfig
+	 * @param mirror
+	 * @throws GitWorkflowException
+	 */
+	private void borrowMirrorObjects(GitConfiguration gitConfig, File mirror) throws GitWorkflowException {
+		boolean borrowed;
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
+			borrowed = mirrorCache.borrowObjects(git.getRepository(), mirror);
+		} catch (Exception e) {
+			logger.error(e.getMessage(), e);
+			throw new GitWorkflowException("Could not use the mirror of '" + gitConfig.getRepoGitLink() + "'!");
+		}
+		if (borrowed) {
+			// the cached repository does not know the new objects yet
+			repositoryCache.evict(getWorkspaceFolder(gitConfig));
+		}
+	}
+
+	/**
+	 * Creates the local master branch of a clone without checkout and checks out
+	 * its files. A sparse checkout only writes the Java sources and build files.
+	 * The index contains all files, so that commits keep the files that are not
+	 * checked out. Later checkouts only write the files that differ between the
+	 * commits. JGit can not mark the other files as skip-worktree, which is why
+	 * {@link #getChangedPaths} ignores them when they are missing.
+	 * 
+	 * @param repository
+	 * @param sparse
+	 * @throws IOException
+	 */
+	private void checkoutClonedMaster(Repository repository, boolean sparse) throws IOException {
+		Ref remoteMaster = repository.exactRef(Constants.R_REMOTES + "origin/" + Constants.MASTER);
+		if (remoteMaster == null) {
+			throw new IOException("The cloned repository has no master branch!");
+		}
+		RefUpdate masterUpdate = repository.updateRef(Constants.R_HEADS + Constants.MASTER);
+		masterUpdate.setNewObjectId(remoteMaster.getObjectId());
+		masterUpdate.update();
+		StoredConfig config = repository.getConfig();
+		config.setString(ConfigConstants.CONFIG_BRANCH_SECTION, Constants.MASTER, ConfigConstants.CONFIG_KEY_REMOTE,
+				"origin");
+		config.setString(ConfigConstants.CONFIG_BRANCH_SECTION, Constants.MASTER, ConfigConstants.CONFIG_KEY_MERGE,
+				Constants.R_HEADS + Constants.MASTER);
+		config.save();
+
+		DirCache index = repository.lockDirCache();
+		try (ObjectReader reader = repository.newObjectReader();
+				RevWalk revWalk = new RevWalk(reader);
+				TreeWalk treeWalk = new TreeWalk(reader)) {
+			treeWalk.addTree(revWalk.parseCommit(remoteMaster.getObjectId()).getTree());
+			treeWalk.setRecursive(true);
+			DirCacheBuilder builder = index.builder();
+			while (treeWalk.next()) {
+				DirCacheEntry entry = new DirCacheEntry(treeWalk.getRawPath());
+				entry.setFileMode(treeWalk.getFileMode(0));
+				entry.setObjectId(treeWalk.getObjectId(0));
+				if (!sparse || isSparsePath(treeWalk.getNameString())) {
+					DirCacheCheckout.checkoutEntry(repository, entry, reader, false, null);
+				}
+				builder.add(entry);
+			}
+			builder.commit();
+		} finally {
+			index.unlock();
+		}
+	}
+
+	/**
+	 * @param fileName
+	 *            name or path of the file
+	 * @return true if the file is checked out by a sparse checkout
+	 */
+	private boolean isSparsePath(String fileName) {
+		for (String suffix : SPARSE_CHECKOUT_SUFFIXES) {
+			if (fileName.endsWith(suffix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * This method creates a new branch.
 	 * 
@@ -158,7 +342,7 @@ public class GitService {
 	 */
 	public void createBranch(GitConfiguration gitConfig, String branchName, String newBranch, String origin)
 			throws BotRefactoringException, GitWorkflowException {
-		try (Git git = Git.open(new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId()))) {
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
 			// Try to create new branch
 			@SuppressWarnings("unused")
 			Ref ref = git.checkout().setCreateBranch(true).setName(newBranch)
@@ -166,6 +350,7 @@ public class GitService {
 					.setStartPoint(origin + "/" + branchName).call();
 			// Pull data
 			git.pull();
+			updateWorkspaceIndexes(git, gitConfig);
 			// If branch already exists
 		} catch (RefAlreadyExistsException r) {
 			logger.error(r.getMessage(), r);
@@ -186,13 +371,18 @@ public class GitService {
 	 */
 	public void switchBranch(GitConfiguration gitConfig, String branchName)
 			throws GitWorkflowException, BotRefactoringException {
-		try (Git git = Git.open(new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId()))) {
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
 			// Switch branch
 			@SuppressWarnings("unused")
 			Ref ref = git.checkout().setName(branchName).call();
+			updateWorkspaceIndexes(git, gitConfig);
 			// If branch does not exist locally anymore
 		} catch (RefNotFoundException r) {
 			// Recreate branch with current branch data from remote origin
+			if (Boolean.TRUE.equals(gitConfig.getSingleBranchClone())) {
+				// the branch was not cloned
+				fetchBranch(gitConfig, "origin", branchName);
+			}
 			createBranch(gitConfig, branchName, branchName, "origin");
 		} catch (Exception e) {
 			logger.error(e.getMessage(), e);
@@ -200,35 +390,75 @@ public class GitService {
 		}
 	}
 
+	/**
+	 * This method fetches a single branch of a remote.
+	 * 
+	 * @param gitConfig
+	 * @param remote
+	 * @param branchName
+	 * @throws GitWorkflowException
+	 */
+	private void fetchBranch(GitConfiguration gitConfig, String remote, String branchName)
+			throws GitWorkflowException {
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
+			git.fetch().setRemote(remote).setRefSpecs(createBranchRefSpec(remote, branchName))
+					.setTagOpt(TagOpt.NO_TAGS).setCredentialsProvider(createCredentialsProvider(gitConfig)).call();
+		} catch (Exception e) {
+			logger.error(e.getMessage(), e);
+			throw new GitWorkflowException("Could not fetch the branch '" + branchName + "' from '" + remote + "'!");
+		}
+	}
+
+	/**
+	 * @param remote
+	 * @param branchName
+	 * @return ref spec that fetches the given branch into its remote branch
+	 */
+	private RefSpec createBranchRefSpec(String remote, String branchName) {
+		return new RefSpec("+" + Constants.R_HEADS + branchName + ":" + Constants.R_REMOTES + remote + "/" + branchName);
+	}
+
 	/**
 	 * This method performs 'git push' programmically
 	 * 
 	 * @throws GitWorkflowException
 	 */
 	public void commitAndPushChanges(GitConfiguration gitConfig, String commitMessage) throws GitWorkflowException {
-		try (Git git = Git.open(new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId()))) {
-			StoredConfig storedRepoConfig = git.getRepository().getConfig();
-			// set autocrlf to true to handle line endings of different operating systems
-			// correctly. Otherwise the bot will most likely change the line endings of all
-			// files to the default of its operating system.
-			// Corresponds to 'git config --global core.autocrlf true'
-			storedRepoConfig.setEnum(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_KEY_AUTOCRLF,
-					AutoCRLF.TRUE);
-			// set filemode explicitly to false
-			storedRepoConfig.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_KEY_FILEMODE,
-					false);
-			storedRepoConfig.save();
+		commitAndPushChanges(gitConfig, commitMessage, null);
+	}
+
+	/**
+	 * This method commits the given files and performs 'git push'
+	 * programmatically. Only the given files are compared with the index, which
+	 * is much faster than comparing the whole working tree.
+	 * 
+	 * @param gitConfig
+	 * @param commitMessage
+	 * @param modifiedFiles
+	 *            absolute paths of the changed files, null to commit all changes
+	 *            of the working tree
+	 * @throws GitWorkflowException
+	 */
+	public void commitAndPushChanges(GitConfiguration gitConfig, String commitMessage,
+			Collection<String> modifiedFiles) throws GitWorkflowException {
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
+			configureLineEndings(git);
 
 			// We only add those files to the staging area that have actually been changed.
 			// 'git add .' in this JGit config would sometimes cause files to be added
 			// without content changes (e.g. due to unpredictable whitespace changes).
-			List<DiffEntry> diffEntries = git.diff().call();
-			for (DiffEntry diffEntry : diffEntries) {
-				git.add().addFilepattern(diffEntry.getOldPath()).call();
+			List<String> changedPaths = getChangedPaths(git, gitConfig, modifiedFiles);
+			if (!changedPaths.isEmpty()) {
+				AddCommand add = git.add();
+				for (String changedPath : changedPaths) {
+					add.addFilepattern(changedPath);
+				}
+				add.call();
 			}
 
 			// 'git commit -m'
 			git.commit().setMessage(commitMessage).setCommitter(gitConfig.getBotName(), gitConfig.getBotEmail()).call();
+			updateWorkspaceIndexes(git, gitConfig);
 
 			// push with bot credentials
 			if (gitConfig.getRepoService().equals(FileHoster.github)) {
@@ -248,6 +478,332 @@ public class GitService {
 		}
 	}
 
+	/**
+	 * This method detaches the workspace at the head of the given remote branch,
+	 * on which a new branch is built with
+	 * {@link #commitAndPushInMemory(GitConfiguration, ObjectId, String, String, Collection)}.
+	 * Files are only checked out if the remote branch moved since the last
+	 * refactoring.
+	 * 
+	 * @param gitConfig
+	 * @param branchName
+	 * @param newBranch
+	 * @param origin
+	 * @return commit the new branch is based on
+	 * @throws BotRefactoringException
+	 *             if the new branch already exists
+	 * @throws GitWorkflowException
+	 */
+	public ObjectId checkoutBaseCommit(GitConfiguration gitConfig, String branchName, String newBranch,
+			String origin) throws BotRefactoringException, GitWorkflowException {
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
+			Repository repository = git.getRepository();
+			if (repository.exactRef(Constants.R_HEADS + newBranch) != null) {
+				throw new BotRefactoringException(
+						"Issue was already refactored in the past! The bot database might have been resetted but not the fork itself.");
+			}
+			ObjectId baseCommit = repository.resolve(origin + "/" + branchName + "^{commit}");
+			if (baseCommit == null) {
+				throw new GitWorkflowException("Branch '" + origin + "/" + branchName + "' does not exist!");
+			}
+			if (!baseCommit.equals(repository.resolve(Constants.HEAD))) {
+				git.checkout().setName(baseCommit.name()).call();
+				updateWorkspaceIndexes(git, gitConfig);
+			}
+			return baseCommit;
+		} catch (BotRefactoringException | GitWorkflowException b) {
+			throw b;
+		} catch (Exception e) {
+			logger.error(e.getMessage(), e);
+			throw new GitWorkflowException("Could not check out the head of '" + origin + "/" + branchName + "'!");
+		}
+	}
+
+	/**
+	 * This method commits the changed files on a new branch and pushes it without
+	 * touching the index or the checkout. The changed files are written to the
+	 * object database, the tree of the base commit is copied with the new files
+	 * and the branch is created on the new commit. Afterwards the changed files
+	 * are restored, so that the workspace stays at the base commit.
+	 * 
+	 * @param gitConfig
+	 * @param baseCommit
+	 *            commit returned by {@link #checkoutBaseCommit}
+	 * @param newBranch
+	 * @param commitMessage
+	 * @param modifiedFiles
+	 *            absolute paths of the changed files, null to commit all changes
+	 *            of the working tree
+	 * @throws BotRefactoringException
+	 *             if the new branch already exists
+	 * @throws GitWorkflowException
+	 */
+	public void commitAndPushInMemory(GitConfiguration gitConfig, ObjectId baseCommit, String newBranch,
+			String commitMessage, Collection<String> modifiedFiles)
+			throws BotRefactoringException, GitWorkflowException {
+		File workspaceFolder = getWorkspaceFolder(gitConfig);
+		try (Git git = repositoryCache.open(workspaceFolder)) {
+			configureLineEndings(git);
+			List<String> changedPaths = getChangedPaths(git, gitConfig, modifiedFiles);
+			try {
+				Repository repository = git.getRepository();
+				ObjectId commit;
+				try (ObjectInserter inserter = repository.newObjectInserter();
+						RevWalk revWalk = new RevWalk(repository)) {
+					ObjectId tree = insertTree(inserter, revWalk.parseCommit(baseCommit).getTree(), workspaceFolder,
+							changedPaths);
+					PersonIdent bot = new PersonIdent(gitConfig.getBotName(), gitConfig.getBotEmail());
+					CommitBuilder commitBuilder = new CommitBuilder();
+					commitBuilder.setTreeId(tree);
+					commitBuilder.setParentId(baseCommit);
+					commitBuilder.setAuthor(bot);
+					commitBuilder.setCommitter(bot);
+					commitBuilder.setMessage(commitMessage);
+					commit = inserter.insert(commitBuilder);
+					inserter.flush();
+				}
+
+				RefUpdate branchUpdate = repository.updateRef(Constants.R_HEADS + newBranch);
+				branchUpdate.setExpectedOldObjectId(ObjectId.zeroId());
+				branchUpdate.setNewObjectId(commit);
+				branchUpdate.setRefLogMessage("commit: " + commitMessage, false);
+				if (branchUpdate.update() != RefUpdate.Result.NEW) {
+					throw new BotRefactoringException(
+							"Issue was already refactored in the past! The bot database might have been resetted but not the fork itself.");
+				}
+
+				// push with bot credentials
+				git.push().setRemote("origin")
+						.setRefSpecs(new RefSpec(Constants.R_HEADS + newBranch + ":" + Constants.R_HEADS + newBranch))
+						.setCredentialsProvider(createCredentialsProvider(gitConfig)).call();
+			} finally {
+				restorePaths(git, gitConfig, baseCommit, changedPaths);
+			}
+		} catch (BotRefactoringException b) {
+			throw b;
+		} catch (TransportException t) {
+			logger.error(t.getMessage(), t);
+			throw new GitWorkflowException("Wrong bot token!");
+		} catch (Exception e) {
+			logger.error(e.getMessage(), e);
+			throw new GitWorkflowException("Could not successfully perform 'git push'!");
+		}
+	}
+
+	/**
+	 * This method restores the given files of the workspace to the given commit,
+	 * e.g. files written by refactorings that failed and were not committed with
+	 * {@link #commitAndPushInMemory}. Only files that differ from the index are
+	 * written.
+	 * 
+	 * @param gitConfig
+	 * @param baseCommit
+	 *            commit returned by {@link #checkoutBaseCommit}
+	 * @param files
+	 *            absolute paths of the files to restore
+	 * @throws GitWorkflowException
+	 */
+	public void restoreFiles(GitConfiguration gitConfig, ObjectId baseCommit, Collection<String> files)
+			throws GitWorkflowException {
+		if (files.isEmpty()) {
+			return;
+		}
+		try (Git git = repositoryCache.open(getWorkspaceFolder(gitConfig))) {
+			restorePaths(git, gitConfig, baseCommit, getChangedPaths(git, gitConfig, files));
+		} catch (Exception e) {
+			logger.error(e.getMessage(), e);
+			throw new GitWorkflowException("Could not restore the files of the workspace!");
+		}
+	}
+
+	/**
+	 * @param git
+	 * @param gitConfig
+	 * @param baseCommit
+	 * @param changedPaths
+	 *            paths relative to the workspace
+	 * @throws GitAPIException
+	 */
+	private void restorePaths(Git git, GitConfiguration gitConfig, ObjectId baseCommit, List<String> changedPaths)
+			throws GitAPIException {
+		if (changedPaths.isEmpty()) {
+			return;
+		}
+		// only the changed files are written back
+		CheckoutCommand restore = git.checkout().setStartPoint(baseCommit.name());
+		File workspaceFolder = getWorkspaceFolder(gitConfig);
+		List<String> restoredFiles = new ArrayList<>();
+		for (String changedPath : changedPaths) {
+			restore.addPath(changedPath);
+			restoredFiles.add(new File(workspaceFolder, changedPath).getPath());
+		}
+		restore.call();
+		// HEAD does not move, so the restored files are not part of the next index update
+		WorkspaceIndexUpdater.updateWorkingTreeFiles(workspaceFolder.getPath(), restoredFiles);
+	}
+
+	/**
+	 * Writes the given files of the workspace to the object database and creates
+	 * a copy of the given tree that contains them.
+	 * 
+	 * @param inserter
+	 * @param baseTree
+	 * @param workspaceFolder
+	 * @param changedPaths
+	 *            paths relative to the workspace
+	 * @return id of the new tree
+	 * @throws IOException
+	 */
+	private ObjectId insertTree(ObjectInserter inserter, RevTree baseTree, File workspaceFolder,
+			List<String> changedPaths) throws IOException {
+		DirCache tree = DirCache.newInCore();
+		DirCacheBuilder builder = tree.builder();
+		try (ObjectReader reader = inserter.newReader()) {
+			builder.addTree(new byte[0], DirCacheEntry.STAGE_0, reader, baseTree);
+		}
+		builder.finish();
+
+		DirCacheEditor editor = tree.editor();
+		for (String changedPath : changedPaths) {
+			File file = new File(workspaceFolder, changedPath);
+			if (!file.isFile()) {
+				editor.add(new DirCacheEditor.DeletePath(changedPath));
+				continue;
+			}
+			// line endings are committed as with 'core.autocrlf true'
+			byte[] content;
+			try (InputStream in = new AutoLFInputStream(new FileInputStream(file), true)) {
+				content = IOUtils.toByteArray(in);
+			}
+			ObjectId blob = inserter.insert(Constants.OBJ_BLOB, content);
+			editor.add(new DirCacheEditor.PathEdit(changedPath) {
+				@Override
+				public void apply(DirCacheEntry entry) {
+					if (entry.getRawMode() == 0) {
+						entry.setFileMode(FileMode.REGULAR_FILE);
+					}
+					entry.setObjectId(blob);
+				}
+			});
+		}
+		editor.finish();
+		return tree.writeTree(inserter);
+	}
+
+	/**
+	 * Compares the given files, or all files if they are unknown, with the index.
+	 * Files outside of a sparse checkout that are missing are not reported as
+	 * deleted.
+	 * 
+	 * @param git
+	 * @param gitConfig
+	 * @param modifiedFiles
+	 *            absolute paths, null for all files of the working tree
+	 * @return paths of the changed files relative to the workspace
+	 * @throws GitAPIException
+	 */
+	private List<String> getChangedPaths(Git git, GitConfiguration gitConfig, Collection<String> modifiedFiles)
+			throws GitAPIException {
+		List<DiffEntry> diffEntries = new ArrayList<>();
+		if (modifiedFiles == null) {
+			diffEntries = git.diff().call();
+		} else {
+			// If the refactoring reported the files it changed, only those are compared
+			List<PathFilter> pathFilters = createPathFilters(getWorkspaceFolder(gitConfig), modifiedFiles);
+			if (!pathFilters.isEmpty()) {
+				diffEntries = git.diff().setPathFilter(PathFilterGroup.create(pathFilters)).call();
+			}
+		}
+		boolean sparse = Boolean.TRUE.equals(gitConfig.getSparseCheckout());
+		List<String> changedPaths = new ArrayList<>();
+		for (DiffEntry diffEntry : diffEntries) {
+			// files outside of a sparse checkout are in the index but not in the working tree
+			if (sparse && diffEntry.getChangeType() == ChangeType.DELETE
+					&& !isSparsePath(diffEntry.getOldPath())) {
+				continue;
+			}
+			changedPaths.add(diffEntry.getOldPath());
+		}
+		return changedPaths;
+	}
+
+	/**
+	 * Sets the line ending and file mode handling of the workspace before files
+	 * are committed.
+	 * 
+	 * @param git
+	 * @throws IOException
+	 */
+	private void configureLineEndings(Git git) throws IOException {
+		StoredConfig storedRepoConfig = git.getRepository().getConfig();
+		// set autocrlf to true to handle line endings of different operating systems
+		// correctly. Otherwise the bot will most likely change the line endings of all
+		// files to the default of its operating system.
+		// Corresponds to 'git config --global core.autocrlf true'
+		storedRepoConfig.setEnum(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_KEY_AUTOCRLF,
+				AutoCRLF.TRUE);
+		// set filemode explicitly to false
+		storedRepoConfig.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_KEY_FILEMODE,
+				false);
+		storedRepoConfig.save();
+	}
+
+	/**
+	 * @param gitConfig
+	 * @return credentials of the bot for the filehoster of the configuration
+	 */
+	private UsernamePasswordCredentialsProvider createCredentialsProvider(GitConfiguration gitConfig) {
+		if (gitConfig.getRepoService().equals(FileHoster.github)) {
+			return new UsernamePasswordCredentialsProvider(gitConfig.getBotToken(), "");
+		}
+		return new UsernamePasswordCredentialsProvider(gitConfig.getBotName(), gitConfig.getBotToken());
+	}
+
+	/**
+	 * Creates filters for the given files of the workspace. Files outside of the
+	 * workspace are ignored.
+	 * 
+	 * @param workspaceFolder
+	 * @param files
+	 *            absolute paths
+	 * @return filters of the paths of the files relative to the workspace
+	 */
+	private List<PathFilter> createPathFilters(File workspaceFolder, Collection<String> files) {
+		Path workspace = workspaceFolder.toPath().toAbsolutePath().normalize();
+		List<PathFilter> pathFilters = new ArrayList<>();
+		for (String file : files) {
+			Path path = Paths.get(file).toAbsolutePath().normalize();
+			if (path.startsWith(workspace) && !path.equals(workspace)) {
+				pathFilters.add(PathFilter.create(workspace.relativize(path).toString().replace(File.separatorChar, '/')));
+			}
+		}
+		return pathFilters;
+	}
+
+	/**
+	 * Applies the changes since the last indexed commit to the indexes of the
+	 * workspace, so that only the changed Java files have to be indexed again.
+	 * 
+	 * @param git
+	 * @param gitConfig
+	 */
+	private void updateWorkspaceIndexes(Git git, GitConfiguration gitConfig) {
+		WorkspaceIndexUpdater.updateToHead(git.getRepository(), getWorkspaceFolder(gitConfig).getPath());
+	}
+
+	/**
+	 * @param gitConfig
+	 * @return folder the configuration works in, which is the workspace of the
+	 *         configuration or the worktree of a job
+	 */
+	private File getWorkspaceFolder(GitConfiguration gitConfig) {
+		if (gitConfig.getRepoFolder() != null) {
+			return new File(gitConfig.getRepoFolder());
+		}
+		// the folder is not stored before the workspace is initialized
+		return new File(botConfig.getBotRefactoringDirectory() + gitConfig.getConfigurationId());
+	}
+
 	/**
 	 * Calculates the absolute line number of the last line in a given diffhunk (the
 	 * *new* line number after changes have been applied). This can be used, for
@@ -0,0 +1,269 @@
+package de.refactoringbot.services.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.RefSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import de.refactoringbot.configuration.BotConfiguration;
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.model.exceptions.GitWorkflowException;
+import de.refactoringbot.refactoring.index.WorkspaceIndexUpdater;
+
+/**
+ * This class hands out worktrees of the workspace of a configuration, so that
+ * several jobs can work on the same repository at the same time without
+ * switching the branches of each other.
+ *
+ * A worktree is a repository of its own with the remotes of the workspace. It
+ * borrows all objects of the workspace through
+ * <code>objects/info/alternates</code> and takes over the remote branches of
+ * the workspace with a local fetch, which copies no objects. Released
+ * worktrees are cleaned and kept for the next job, so their checkouts and
+ * indexes stay warm.
+ */
+@Service
+public class GitWorktreeManager {
+
+	/**
+	 * Maximum number of idle worktrees that are kept per configuration
+	 */
+	public static final int MAX_IDLE_WORKTREES = 8;
+
+	private static final String WORKTREE_FOLDER = "worktrees";
+	private static final String OBJECTS_FOLDER = "objects";
+
+	@Autowired
+	BotConfiguration botConfig;
+	@Autowired
+	GitRepositoryCache repositoryCache;
+
+	private static final Logger logger = LoggerFactory.getLogger(GitWorktreeManager.class);
+
+	// guarded by this
+	private final Map<Long, Deque<File>> idleWorktrees = new HashMap<>();
+	private final Set<File> usedWorktrees = new HashSet<>();
+
+	/**
+	 * This method hands out a worktree of the given configuration which is up to
+	 * date with the remote branches of the workspace and has no local changes.
+	 *
+	 * @param gitConfig
+	 * @return copy of the configuration that works in the worktree
+	 * @throws GitWorkflowException
+	 */
+	public GitConfiguration acquireWorktree(GitConfiguration gitConfig) throws GitWorkflowException {
+		File worktree = reserveWorktree(gitConfig.getConfigurationId());
+		try {
+			prepareWorktree(new File(gitConfig.getRepoFolder()), worktree);
+		} catch (Exception e) {
+			logger.error(e.getMessage(), e);
+			synchronized (this) {
+				usedWorktrees.remove(worktree);
+			}
+			deleteWorktree(worktree);
+			throw new GitWorkflowException("Could not prepare a worktree for the configuration with the ID "
+					+ gitConfig.getConfigurationId() + "!");
+		}
+		return gitConfig.copyWithRepoFolder(worktree.getPath());
+	}
+
+	/**
+	 * This method returns a worktree after its job is finished. Its local changes
+	 * and branches are dropped, so that it can be handed out again.
+	 *
+	 * @param worktreeConfig
+	 *            configuration returned by {@link #acquireWorktree}
+	 */
+	public void releaseWorktree(GitConfiguration worktreeConfig) {
+		File worktree = new File(worktreeConfig.getRepoFolder());
+		boolean reusable;
+		try (Git git = repositoryCache.open(worktree)) {
+			resetWorktree(git);
+			reusable = true;
+		} catch (Exception e) {
+			logger.warn("Could not clean worktree '{}', it will be deleted: {}", worktree, e.getMessage());
+			reusable = false;
+		}
+
+		synchronized (this) {
+			usedWorktrees.remove(worktree);
+			Deque<File> idle = idleWorktrees.computeIfAbsent(worktreeConfig.getConfigurationId(),
+					id -> new ArrayDeque<>());
+			if (reusable && idle.size() < MAX_IDLE_WORKTREES) {
+				idle.push(worktree);
+				return;
+			}
+		}
+		deleteWorktree(worktree);
+	}
+
+	/**
+	 * This method deletes all worktrees of the given configuration, e.g. because
+	 * the configuration was deleted.
+	 *
+	 * @param configurationId
+	 */
+	public void removeWorktrees(Long configurationId) {
+		File configurationFolder = getConfigurationFolder(configurationId);
+		synchronized (this) {
+			idleWorktrees.remove(configurationId);
+		}
+		File[] worktrees = configurationFolder.listFiles(File::isDirectory);
+		if (worktrees != null) {
+			for (File worktree : worktrees) {
+				repositoryCache.evict(worktree);
+				WorkspaceIndexUpdater.removeWorkspace(worktree.getPath());
+			}
+		}
+		FileUtils.deleteQuietly(configurationFolder);
+	}
+
+	/**
+	 * Takes an idle worktree of the configuration or reserves the folder of a new
+	 * one. Worktrees that were left by a previous run of the bot are reused.
+	 *
+	 * @param configurationId
+	 * @return worktree folder
+	 */
+	private synchronized File reserveWorktree(Long configurationId) {
+		Deque<File> idle = idleWorktrees.computeIfAbsent(configurationId, id -> new ArrayDeque<>());
+		File worktree = idle.poll();
+		for (int i = 0; worktree == null; i++) {
+			File candidate = new File(getConfigurationFolder(configurationId), String.valueOf(i));
+			if (!usedWorktrees.contains(candidate)) {
+				worktree = candidate;
+			}
+		}
+		usedWorktrees.add(worktree);
+		return worktree;
+	}
+
+	private File getConfigurationFolder(Long configurationId) {
+		return new File(botConfig.getBotRefactoringDirectory() + WORKTREE_FOLDER,
+				String.valueOf(configurationId));
+	}
+
+	/**
+	 * Creates the worktree if necessary and takes over the remote branches of the
+	 * workspace.
+	 *
+	 * @param workspace
+	 * @param worktree
+	 * @throws Exception
+	 */
+	private void prepareWorktree(File workspace, File worktree) throws Exception {
+		try (Git workspaceGit = repositoryCache.open(workspace)) {
+			if (!new File(worktree, Constants.DOT_GIT).isDirectory()) {
+				createWorktree(workspaceGit, worktree);
+			}
+		}
+		try (Git git = repositoryCache.open(worktree)) {
+			// all objects are borrowed from the workspace, only the refs are copied
+			git.fetch().setRemote(workspace.getAbsolutePath())
+					.setRefSpecs(new RefSpec("+" + Constants.R_REMOTES + "*:" + Constants.R_REMOTES + "*"))
+					.setRemoveDeletedRefs(true).call();
+			resetWorktree(git);
+		}
+	}
+
+	private void createWorktree(Git workspaceGit, File worktree) throws Exception {
+		repositoryCache.evict(worktree);
+		FileUtils.deleteQuietly(worktree);
+		try (Git git = Git.init().setDirectory(worktree).call()) {
+			File alternates = new File(git.getRepository().getDirectory(),
+					OBJECTS_FOLDER + File.separator + "info" + File.separator + "alternates");
+			alternates.getParentFile().mkdirs();
+			File workspaceObjects = new File(workspaceGit.getRepository().getDirectory(), OBJECTS_FOLDER);
+			Files.write(alternates.toPath(),
+					(workspaceObjects.getAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+
+			// pushes of the worktree go to the remotes of the workspace
+			StoredConfig workspaceConfig = workspaceGit.getRepository().getConfig();
+			StoredConfig worktreeConfig = git.getRepository().getConfig();
+			for (String remote : workspaceConfig.getSubsections(ConfigConstants.CONFIG_REMOTE_SECTION)) {
+				for (String name : workspaceConfig.getNames(ConfigConstants.CONFIG_REMOTE_SECTION, remote)) {
+					worktreeConfig.setStringList(ConfigConstants.CONFIG_REMOTE_SECTION, remote, name, Arrays
+							.asList(workspaceConfig.getStringList(ConfigConstants.CONFIG_REMOTE_SECTION, remote, name)));
+				}
+			}
+			worktreeConfig.save();
+		}
+		WorkspaceIndexUpdater.removeWorkspace(worktree.getPath());
+		WorkspaceIndexUpdater.copyIndexes(workspaceGit.getRepository().getWorkTree().getPath(), worktree.getPath());
+	}
+
+	/**
+	 * Drops all local changes and branches. HEAD is detached, so that the next job
+	 * can create its branch.
+	 *
+	 * @param git
+	 * @throws Exception
+	 */
+	private void resetWorktree(Git git) throws Exception {
+		ObjectId head = git.getRepository().resolve(Constants.HEAD);
+		if (head == null) {
+			// nothing was checked out yet
+			return;
+		}
+		// HEAD does not move, so the reset files are not part of the next index update
+		Status status = git.status().call();
+		File worktree = git.getRepository().getWorkTree();
+		List<String> changedFiles = new ArrayList<>();
+		for (String path : status.getUncommittedChanges()) {
+			changedFiles.add(new File(worktree, path).getPath());
+		}
+		for (String path : status.getUntracked()) {
+			changedFiles.add(new File(worktree, path).getPath());
+		}
+		git.reset().setMode(ResetType.HARD).call();
+		git.clean().setCleanDirectories(true).setForce(true).call();
+		WorkspaceIndexUpdater.updateWorkingTreeFiles(worktree.getPath(), changedFiles);
+		// the reset already restored the files, only HEAD is detached
+		RefUpdate detachHead = git.getRepository().updateRef(Constants.HEAD, true);
+		detachHead.setNewObjectId(head);
+		detachHead.forceUpdate();
+		for (Ref branch : git.branchList().call()) {
+			// the list contains the detached HEAD as well
+			if (!branch.getName().startsWith(Constants.R_HEADS)) {
+				continue;
+			}
+			git.branchDelete().setBranchNames(branch.getName()).setForce(true).call();
+		}
+	}
+
+	private void deleteWorktree(File worktree) {
+		repositoryCache.evict(worktree);
+		WorkspaceIndexUpdater.removeWorkspace(worktree.getPath());
+		try {
+			FileUtils.deleteDirectory(worktree);
+		} catch (IOException e) {
+			logger.warn("Could not delete worktree '{}': {}", worktree, e.getMessage());
+		}
+	}
+}
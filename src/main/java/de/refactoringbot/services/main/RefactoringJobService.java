@@ -0,0 +1,206 @@
+package de.refactoringbot.services.main;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+import de.refactoringbot.model.exceptions.DatabaseConnectionException;
+import de.refactoringbot.model.job.RefactoringJob;
+import de.refactoringbot.model.refactoredissue.RefactoredIssue;
+import de.refactoringbot.services.scheduling.ConfigurationJobExecutor;
+import javassist.NotFoundException;
+
+/**
+ * This class runs refactorings as asynchronous jobs. The jobs share the
+ * bounded queue and the workers of the scheduled refactorings, so a job waits
+ * while a scheduled refactoring of its configuration runs and vice versa.
+ *
+ * The progress of a job can be polled or streamed as server-sent events. Only
+ * the most recent finished jobs are kept.
+ *
+ */
+@Service
+public class RefactoringJobService {
+
+	/**
+	 * Maximum number of finished jobs whose results are kept
+	 */
+	public static final int MAX_FINISHED_JOBS = 1000;
+	/**
+	 * Time after which a progress stream is closed
+	 */
+	public static final long PROGRESS_TIMEOUT_IN_MS = 60L * 60L * 1000L;
+
+	@Autowired
+	RefactoringService refactoringService;
+	@Autowired
+	ConfigurationJobExecutor jobExecutor;
+
+	private static final Logger logger = LoggerFactory.getLogger(RefactoringJobService.class);
+
+	private final Map<String, RefactoringJob> jobs = new ConcurrentHashMap<>();
+	// the lists of emitters are guarded by the job they belong to
+	private final Map<String, List<SseEmitter>> progressEmitters = new ConcurrentHashMap<>();
+	// guarded by itself
+	private final Deque<String> finishedJobIds = new ArrayDeque<>();
+
+	/**
+	 * This method checks the configuration and enqueues a refactoring job for it.
+	 *
+	 * @param configID
+	 * @param isCommentRefactoring
+	 * @return job
+	 * @throws DatabaseConnectionException
+	 * @throws NotFoundException
+	 *             if the configuration does not exist
+	 * @throws BotRefactoringException
+	 *             if the configuration is missing analysis service data
+	 * @throws RejectedExecutionException
+	 *             if too many jobs are waiting
+	 */
+	public RefactoringJob submitJob(Long configID, boolean isCommentRefactoring)
+			throws DatabaseConnectionException, NotFoundException, BotRefactoringException {
+		GitConfiguration config = refactoringService.checkConfigurationExistance(configID);
+		if (!isCommentRefactoring
+				&& (config.getAnalysisService() == null || config.getAnalysisServiceProjectKey() == null)) {
+			throw new BotRefactoringException("Configuration is missing analysis service data!");
+		}
+
+		RefactoringJob job = new RefactoringJob(UUID.randomUUID().toString(), configID, isCommentRefactoring);
+		jobs.put(job.getJobId(), job);
+		try {
+			jobExecutor.submit(configID, () -> {
+				runJob(job);
+				return null;
+			});
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.getJobId());
+			throw e;
+		}
+		return job;
+	}
+
+	/**
+	 * @param jobId
+	 * @return job with the given ID
+	 */
+	public Optional<RefactoringJob> getJob(String jobId) {
+		return Optional.ofNullable(jobs.get(jobId));
+	}
+
+	/**
+	 * This method creates a stream of the progress of a job. All previous progress
+	 * messages are sent first. The stream is completed with the final status of the
+	 * job.
+	 *
+	 * @param job
+	 * @return emitter
+	 */
+	public SseEmitter streamProgress(RefactoringJob job) {
+		SseEmitter emitter = new SseEmitter(PROGRESS_TIMEOUT_IN_MS);
+		synchronized (job) {
+			try {
+				for (String message : job.getProgress()) {
+					emitter.send(SseEmitter.event().name("progress").data(message));
+				}
+				if (job.getStatus().isDone()) {
+					emitter.send(SseEmitter.event().name("status").data(job));
+					emitter.complete();
+					return emitter;
+				}
+			} catch (IOException e) {
+				emitter.completeWithError(e);
+				return emitter;
+			}
+			List<SseEmitter> emitters = progressEmitters.computeIfAbsent(job.getJobId(), id -> new ArrayList<>());
+			emitters.add(emitter);
+			Runnable removeEmitter = () -> {
+				synchronized (job) {
+					emitters.remove(emitter);
+				}
+			};
+			emitter.onCompletion(removeEmitter);
+			emitter.onTimeout(removeEmitter);
+		}
+		return emitter;
+	}
+
+	/**
+	 * This method runs the refactoring of a job on a worker of the job executor.
+	 *
+	 * @param job
+	 */
+	@SuppressWarnings("unchecked")
+	private void runJob(RefactoringJob job) {
+		job.start();
+		reportProgress(job, "Started refactoring of configuration " + job.getConfigurationId());
+		try {
+			ResponseEntity<?> response = refactoringService.performRefactoring(job.getConfigurationId(),
+					job.isCommentRefactoring(), message -> reportProgress(job, message));
+			if (Thread.interrupted()) {
+				job.fail("The refactoring timed out!");
+			} else if (response.getStatusCode().is2xxSuccessful() && response.getBody() instanceof List) {
+				job.finish((List<RefactoredIssue>) response.getBody());
+			} else {
+				job.fail(String.valueOf(response.getBody()));
+			}
+		} catch (Exception e) {
+			logger.error(e.getMessage(), e);
+			job.fail(e.getMessage());
+		}
+		finishJob(job);
+	}
+
+	private void reportProgress(RefactoringJob job, String message) {
+		synchronized (job) {
+			job.addProgress(message);
+			List<SseEmitter> emitters = progressEmitters.getOrDefault(job.getJobId(), new ArrayList<>());
+			for (SseEmitter emitter : new ArrayList<>(emitters)) {
+				try {
+					emitter.send(SseEmitter.event().name("progress").data(message));
+				} catch (IOException | IllegalStateException e) {
+					// the client is gone
+					emitter.completeWithError(e);
+				}
+			}
+		}
+	}
+
+	private void finishJob(RefactoringJob job) {
+		synchronized (job) {
+			List<SseEmitter> emitters = progressEmitters.remove(job.getJobId());
+			if (emitters != null) {
+				for (SseEmitter emitter : new ArrayList<>(emitters)) {
+					try {
+						emitter.send(SseEmitter.event().name("status").data(job));
+						emitter.complete();
+					} catch (IOException | IllegalStateException e) {
+						emitter.completeWithError(e);
+					}
+				}
+			}
+		}
+		synchronized (finishedJobIds) {
+			finishedJobIds.add(job.getJobId());
+			while (finishedJobIds.size() > MAX_FINISHED_JOBS) {
+				jobs.remove(finishedJobIds.poll());
+			}
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package de.refactoringbot.services.main;
+
+/**
+ * Receives the progress messages of a refactoring run.
+ */
+@FunctionalInterface
+public interface RefactoringProgress {
+
+	/**
+	 * Ignores all messages
+	 */
+	RefactoringProgress NONE = message -> {
+	};
+
+	/**
+	 * @param message
+	 */
+	void report(String message);
+}
@@ -3,9 +3,20 @@ package de.refactoringbot.services.main;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.eclipse.jgit.lib.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +28,7 @@ import de.refactoringbot.api.main.ApiGrabber;
 import de.refactoringbot.api.sonarqube.SonarQubeDataGrabber;
 import de.refactoringbot.configuration.BotConfiguration;
 import de.refactoringbot.model.botissue.BotIssue;
+import de.refactoringbot.model.botissue.BotIssueGrouping;
 import de.refactoringbot.model.configuration.ConfigurationRepository;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
@@ -31,6 +43,8 @@ import de.refactoringbot.model.refactoredissue.RefactoredIssue;
 import de.refactoringbot.model.refactoredissue.RefactoredIssueRepository;
 import de.refactoringbot.refactoring.RefactoringOperations;
 import de.refactoringbot.refactoring.RefactoringPicker;
+import de.refactoringbot.refactoring.index.CallSiteIndex;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
 import de.refactoringbot.services.sonarqube.SonarQubeObjectTranslator;
 import javassist.NotFoundException;
 
@@ -67,6 +81,8 @@ public class RefactoringService {
 	BotService botService;
 	@Autowired
 	FileService fileService;
+	@Autowired
+	GitWorktreeManager worktreeManager;
 
 	private static final Logger logger = LoggerFactory.getLogger(RefactoringService.class);
 
@@ -80,6 +96,21 @@ public class RefactoringService {
 	 * @throws Exception
 	 */
 	public ResponseEntity<?> performRefactoring(Long configID, boolean isCommentRefactoring) throws Exception {
+		return performRefactoring(configID, isCommentRefactoring, RefactoringProgress.NONE);
+	}
+
+	/**
+	 * This method performs a refactoring from a comment or an analysis service
+	 * issue and reports its progress.
+	 * 
+	 * @param configID
+	 * @param isCommentRefactoring
+	 * @param progress
+	 * @return response
+	 * @throws Exception
+	 */
+	public ResponseEntity<?> performRefactoring(Long configID, boolean isCommentRefactoring,
+			RefactoringProgress progress) throws Exception {
 
 		// Check and create configuration
 		GitConfiguration config = checkConfigurationExistance(configID);
@@ -91,27 +122,33 @@ public class RefactoringService {
 		}
 
 		// Get all pull requests
+		progress.report("Fetching repository and pull requests");
 		BotPullRequests allRequests = getPullRequests(config);
 		// Count all open pull requests created by bot
 		int amountOfBotRequests = botService.getAmountOfBotRequests(allRequests, config);
 
 		// Return all refactored issues
 		if (isCommentRefactoring) {
-			return processComments(config, allRequests);
+			return processComments(config, allRequests, progress);
 		} else {
-			return processAnalysisIssues(config, amountOfBotRequests);
+			return processAnalysisIssues(config, amountOfBotRequests, progress);
 		}
 	}
 
 	/**
 	 * This method processes the refactoring of issues detected by an analysis
-	 * service.
+	 * service. The issues are grouped as configured and every group is refactored
+	 * on its own branch and proposed with a single pull request. If configured,
+	 * several groups are refactored at the same time, each in a worktree of its
+	 * own.
 	 * 
 	 * @param config
-	 * @param allIssues
+	 * @param amountBotRequests
+	 * @param progress
 	 * @return response
 	 */
-	private ResponseEntity<?> processAnalysisIssues(GitConfiguration config, int amountBotRequests) {
+	private ResponseEntity<?> processAnalysisIssues(GitConfiguration config, int amountBotRequests,
+			RefactoringProgress progress) {
 
 		if (amountBotRequests >= config.getMaxAmountRequests()) {
             return new ResponseEntity<String>(
@@ -120,31 +157,59 @@ public class RefactoringService {
 		}
 
 		List<RefactoredIssue> allRefactoredIssues = new ArrayList<>();
+		int parallelism = Math.max(1, botConfig.getAnalysisIssueParallelism());
+		ExecutorService groupExecutor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
 
 		try {
 			// Get issues from analysis service API
+			progress.report("Fetching issues of the analysis service");
 			List<BotIssue> botIssues = apiGrabber.getAnalysisServiceIssues(config);
 
-			// Iterate all issues
-			for (BotIssue botIssue : botIssues) {
+			// Iterate all groups of issues that were not already refactored
+			List<List<BotIssue>> issueGroups = new ArrayList<>(groupAnalysisIssues(botIssues));
+			int nextGroup = 0;
+			while (nextGroup < issueGroups.size()) {
 				// When Bot-Pull-Request-Limit reached -> return
 				if (amountBotRequests >= config.getMaxAmountRequests()) {
 					// Return all refactored issues
 					return new ResponseEntity<>(allRefactoredIssues, HttpStatus.OK);
 				}
 
-				try {
-					// If issue was not already refactored
-					if (isAnalysisIssueValid(botIssue)) {
-						// Perform refactoring
-						allRefactoredIssues.add(refactorIssue(false, config, null, null, botIssue));
+				// Never refactor more groups at once than pull requests may be created
+				int amountOfGroups = Math.min(Math.min(parallelism, config.getMaxAmountRequests() - amountBotRequests),
+						issueGroups.size() - nextGroup);
+				List<List<BotIssue>> currentGroups = issueGroups.subList(nextGroup, nextGroup + amountOfGroups);
+				for (int i = 0; i < currentGroups.size(); i++) {
+					int groupNumber = nextGroup + i + 1;
+					progress.report("Refactoring issue group " + groupNumber + " of " + issueGroups.size() + " ("
+							+ currentGroups.get(i).size() + " issues)");
+				}
+				nextGroup += amountOfGroups;
+
+				if (groupExecutor == null) {
+					// Perform refactorings in the workspace
+					try {
+						allRefactoredIssues.addAll(refactorAnalysisIssues(config, currentGroups.get(0)));
+						amountBotRequests++;
+					} catch (Exception e) {
+						allRefactoredIssues.addAll(processFailedIssueGroup(config, currentGroups.get(0), e));
+					}
+					continue;
+				}
+
+				// Perform refactorings in worktrees
+				List<Future<List<RefactoredIssue>>> refactorings = new ArrayList<>();
+				for (List<BotIssue> issueGroup : currentGroups) {
+					refactorings.add(groupExecutor.submit(() -> refactorAnalysisIssuesInWorktree(config, issueGroup)));
+				}
+				for (int i = 0; i < refactorings.size(); i++) {
+					try {
+						allRefactoredIssues.addAll(refactorings.get(i).get());
 						amountBotRequests++;
+					} catch (ExecutionException e) {
+						Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+						allRefactoredIssues.addAll(processFailedIssueGroup(config, currentGroups.get(i), cause));
 					}
-				} catch (Exception e) {
-					// Create failed Refactored-Object
-					botIssue.setErrorMessage("Bot could not refactor this issue! Internal server error!");
-					allRefactoredIssues.add(processFailedRefactoring(config, null, null, botIssue, false));
-					logger.error(e.getMessage(), e);
 				}
 			}
 
@@ -152,17 +217,290 @@ public class RefactoringService {
 		} catch (Exception e) {
 			logger.error(e.getMessage(), e);
 			return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+		} finally {
+			if (groupExecutor != null) {
+				groupExecutor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * This method refactors the given issues of an analysis service in a worktree
+	 * of the configuration, which is released afterwards.
+	 * 
+	 * @param config
+	 * @param botIssues
+	 * @return refactoredIssues
+	 * @throws Exception
+	 */
+	private List<RefactoredIssue> refactorAnalysisIssuesInWorktree(GitConfiguration config, List<BotIssue> botIssues)
+			throws Exception {
+		GitConfiguration worktreeConfig = worktreeManager.acquireWorktree(config);
+		try {
+			return refactorAnalysisIssues(worktreeConfig, botIssues);
+		} finally {
+			worktreeManager.releaseWorktree(worktreeConfig);
 		}
 	}
 
+	/**
+	 * This method creates failed Refactored-Objects for a group of issues whose
+	 * refactoring failed as a whole.
+	 * 
+	 * @param config
+	 * @param issueGroup
+	 * @param e
+	 * @return failedIssues
+	 */
+	private List<RefactoredIssue> processFailedIssueGroup(GitConfiguration config, List<BotIssue> issueGroup,
+			Exception e) {
+		List<RefactoredIssue> failedIssues = new ArrayList<>();
+		for (BotIssue botIssue : issueGroup) {
+			if (botIssue.getErrorMessage() == null) {
+				botIssue.setErrorMessage("Bot could not refactor this issue! Internal server error!");
+			}
+			failedIssues.add(processFailedRefactoring(config, null, null, botIssue, false));
+		}
+		logger.error(e.getMessage(), e);
+		return failedIssues;
+	}
+
+	/**
+	 * This method groups the issues of an analysis service that were not already
+	 * refactored with the configured grouping. Inside of a group, the issues of a
+	 * file are sorted by descending line numbers, so that refactoring an issue
+	 * does not move the lines of the issues that follow.
+	 * 
+	 * @param botIssues
+	 * @return issueGroups
+	 */
+	private Collection<List<BotIssue>> groupAnalysisIssues(List<BotIssue> botIssues) {
+		BotIssueGrouping grouping = botConfig.getAnalysisIssueGrouping();
+		Map<String, List<BotIssue>> issueGroups = new LinkedHashMap<>();
+		for (BotIssue botIssue : botIssues) {
+			if (isAnalysisIssueValid(botIssue)) {
+				String groupKey = grouping.getGroupKey(botIssue);
+				if (groupKey == null) {
+					groupKey = botIssue.getCommentServiceID();
+				}
+				issueGroups.computeIfAbsent(groupKey, key -> new ArrayList<>()).add(botIssue);
+			}
+		}
+
+		Comparator<Integer> descendingLines = Comparator.nullsLast(Comparator.reverseOrder());
+		for (List<BotIssue> issueGroup : issueGroups.values()) {
+			issueGroup.sort(Comparator.comparing(BotIssue::getFilePath, Comparator.nullsLast(Comparator.naturalOrder()))
+					.thenComparing(BotIssue::getLine, descendingLines));
+		}
+		return issueGroups.values();
+	}
+
+	/**
+	 * This method refactors the given issues of an analysis service on a new
+	 * branch. All successful refactorings are pushed with one commit and proposed
+	 * with one pull request. With in-memory commits the branch is created without
+	 * checking it out and all files written by the refactorings are restored
+	 * afterwards.
+	 * 
+	 * @param config
+	 * @param botIssues
+	 * @return refactoredIssues
+	 * @throws Exception
+	 *             if the branch can not be created or the changes can not be
+	 *             pushed and proposed
+	 */
+	private List<RefactoredIssue> refactorAnalysisIssues(GitConfiguration config, List<BotIssue> botIssues)
+			throws Exception {
+		// Create new branch for refactoring
+		String newBranch = "sonarQube_Refactoring_" + botIssues.get(0).getCommentServiceID();
+		// Check if branch already exists (throws exception if it does)
+		apiGrabber.checkBranch(config, newBranch);
+		if (!Boolean.TRUE.equals(botConfig.getInMemoryCommits())) {
+			gitService.createBranch(config, "master", newBranch, "upstream");
+			return refactorAndCommitAnalysisIssues(config, botIssues, newBranch, null);
+		}
+
+		ObjectId baseCommit = gitService.checkoutBaseCommit(config, "master", newBranch, "upstream");
+		CompilationUnitCache.getInstance().startRecordingSavedFiles();
+		try {
+			return refactorAndCommitAnalysisIssues(config, botIssues, newBranch, baseCommit);
+		} finally {
+			// files written by failed refactorings are not restored by the in-memory commit
+			gitService.restoreFiles(config, baseCommit, CompilationUnitCache.getInstance().stopRecordingSavedFiles());
+		}
+	}
+
+	/**
+	 * This method refactors the given issues on the given branch, commits and
+	 * pushes the successful refactorings and creates a pull request for them.
+	 * 
+	 * @param config
+	 * @param botIssues
+	 * @param newBranch
+	 * @param baseCommit
+	 *            base commit of an in-memory commit, null if the branch is checked
+	 *            out
+	 * @return refactoredIssues
+	 * @throws Exception
+	 */
+	private List<RefactoredIssue> refactorAndCommitAnalysisIssues(GitConfiguration config, List<BotIssue> botIssues,
+			String newBranch, ObjectId baseCommit) throws Exception {
+		// Consecutive issues of the same file whose refactorings only edit that file
+		// are refactored together with a single parse and write of the file
+		List<BotIssue> issuesOfFile = new ArrayList<>();
+		for (BotIssue botIssue : botIssues) {
+			try {
+				// Add current filepaths to Issue
+				addUpToDateFilePaths(botIssue, false, config);
+				if (!issuesOfFile.isEmpty()
+						&& (!refactoring.isTextEditRefactoring(botIssue)
+								|| !issuesOfFile.get(0).getFilePath().equals(botIssue.getFilePath()))) {
+					refactorIssuesOfFile(config, issuesOfFile);
+				}
+				if (refactoring.isTextEditRefactoring(botIssue)) {
+					issuesOfFile.add(botIssue);
+				} else {
+					// Try to refactor
+					botIssue.setCommitMessage(refactoring.pickAndRefactor(botIssue, config));
+				}
+			} catch (Exception e) {
+				botIssue.setErrorMessage("Bot could not refactor this issue! Internal server error!");
+				logger.error(e.getMessage(), e);
+			}
+		}
+		refactorIssuesOfFile(config, issuesOfFile);
+
+		List<BotIssue> successfulIssues = new ArrayList<>();
+		List<BotIssue> failedIssues = new ArrayList<>();
+		for (BotIssue botIssue : botIssues) {
+			if (botIssue.getErrorMessage() == null && botIssue.getCommitMessage() == null) {
+				botIssue.setErrorMessage("Could not create a commit message!");
+			}
+			if (botIssue.getErrorMessage() == null) {
+				successfulIssues.add(botIssue);
+			} else {
+				failedIssues.add(botIssue);
+			}
+		}
+
+		List<RefactoredIssue> refactoredIssues = new ArrayList<>();
+		if (!successfulIssues.isEmpty()) {
+			// Push changes + create Pull-Request
+			if (baseCommit != null) {
+				gitService.commitAndPushInMemory(config, baseCommit, newBranch,
+						buildCommitMessage(config, successfulIssues), collectModifiedFiles(successfulIssues));
+			} else {
+				gitService.commitAndPushChanges(config, buildCommitMessage(config, successfulIssues),
+						collectModifiedFiles(successfulIssues));
+			}
+			apiGrabber.makeCreateRequestWithAnalysisService(buildPullRequestTitle(config, successfulIssues),
+					buildRefactoringList(successfulIssues), config, newBranch);
+
+			// Save refactored issues
+			for (BotIssue botIssue : successfulIssues) {
+				refactoredIssues.add(issueRepo.save(botController.buildRefactoredIssue(botIssue, config)));
+			}
+		}
+		for (BotIssue botIssue : failedIssues) {
+			refactoredIssues.add(processFailedRefactoring(config, null, null, botIssue, false));
+		}
+		return refactoredIssues;
+	}
+
+	/**
+	 * This method refactors the given issues of the same file together and clears
+	 * the given list afterwards.
+	 * 
+	 * @param config
+	 * @param issuesOfFile
+	 */
+	private void refactorIssuesOfFile(GitConfiguration config, List<BotIssue> issuesOfFile) {
+		if (issuesOfFile.isEmpty()) {
+			return;
+		}
+		try {
+			refactoring.pickAndRefactorFile(issuesOfFile, config);
+		} catch (Exception e) {
+			for (BotIssue botIssue : issuesOfFile) {
+				botIssue.setCommitMessage(null);
+				botIssue.setErrorMessage("Bot could not refactor this issue! Internal server error!");
+			}
+			logger.error(e.getMessage(), e);
+		}
+		issuesOfFile.clear();
+	}
+
+	/**
+	 * @param botIssues
+	 * @return files changed by the refactorings of all given issues, null if a
+	 *         refactoring did not report its changes
+	 */
+	private Set<String> collectModifiedFiles(List<BotIssue> botIssues) {
+		Set<String> modifiedFiles = new LinkedHashSet<>();
+		for (BotIssue botIssue : botIssues) {
+			if (botIssue.getModifiedFiles() == null) {
+				return null;
+			}
+			modifiedFiles.addAll(botIssue.getModifiedFiles());
+		}
+		return modifiedFiles;
+	}
+
+	/**
+	 * @param config
+	 * @param botIssues
+	 * @return commit message for the refactorings of all given issues
+	 */
+	private String buildCommitMessage(GitConfiguration config, List<BotIssue> botIssues) {
+		if (botIssues.size() == 1) {
+			return botIssues.get(0).getCommitMessage();
+		}
+		StringBuilder commitMessage = new StringBuilder(buildPullRequestTitle(config, botIssues)).append('\n');
+		for (BotIssue botIssue : botIssues) {
+			commitMessage.append("\n- ").append(botIssue.getCommitMessage());
+		}
+		return commitMessage.toString();
+	}
+
+	/**
+	 * @param config
+	 * @param botIssues
+	 * @return title of the pull request for the refactorings of all given issues,
+	 *         which is the first line of their commit message as well
+	 */
+	private String buildPullRequestTitle(GitConfiguration config, List<BotIssue> botIssues) {
+		if (botIssues.size() == 1) {
+			return botIssues.get(0).getCommitMessage();
+		}
+		return "Refactored " + botIssues.size() + " issues found by '" + config.getAnalysisService() + "'";
+	}
+
+	/**
+	 * @param botIssues
+	 * @return list of the refactorings of all given issues, which is appended to
+	 *         the description of the pull request. Empty for a single issue.
+	 */
+	private String buildRefactoringList(List<BotIssue> botIssues) {
+		if (botIssues.size() <= 1) {
+			return "";
+		}
+		StringBuilder refactorings = new StringBuilder("\n\nRefactorings:\n");
+		for (BotIssue botIssue : botIssues) {
+			refactorings.append("\n- ").append(botIssue.getCommitMessage());
+		}
+		return refactorings.toString();
+	}
+
 	/**
 	 * This method processes the comment driven refactoring.
 	 * 
 	 * @param config
 	 * @param allRequests
+	 * @param progress
 	 * @return response
 	 */
-	private ResponseEntity<?> processComments(GitConfiguration config, BotPullRequests allRequests) {
+	private ResponseEntity<?> processComments(GitConfiguration config, BotPullRequests allRequests,
+			RefactoringProgress progress) {
 		List<RefactoredIssue> allRefactoredIssues = new ArrayList<>();
 
 		for (BotPullRequest request : allRequests.getAllPullRequests()) {
@@ -197,6 +535,8 @@ public class RefactoringService {
 							continue;
 						}
 						// refactor the created BotIssue
+						progress.report("Refactoring comment " + comment.getCommentID() + " of pull request "
+								+ request.getRequestNumber());
 						allRefactoredIssues.add(refactorComment(config, botIssue, request, comment));
 					}
 				}
@@ -224,7 +564,7 @@ public class RefactoringService {
 
 		try {
 			// Perform refactoring
-			refactoredIssue = refactorIssue(true, config, comment, request, botIssue);
+			refactoredIssue = refactorIssue(config, comment, request, botIssue);
 		} catch (BotRefactoringException e) {
 			// If refactoring failed
 			botIssue.setErrorMessage(e.getMessage());
@@ -241,10 +581,9 @@ public class RefactoringService {
 	}
 
 	/**
-	 * This method configures the local workspace, refactors the issue, pushes the
-	 * changes and creates an PR.
+	 * This method configures the local workspace, refactors the issue of a comment
+	 * and pushes the changes to the branch of the pull request.
 	 * 
-	 * @param isCommentRefactoring
 	 * @param config
 	 * @param comment
 	 * @param request
@@ -252,61 +591,33 @@ public class RefactoringService {
 	 * @return allRefactoredIssues
 	 * @throws Exception
 	 */
-	private RefactoredIssue refactorIssue(boolean isCommentRefactoring, GitConfiguration config,
-			BotPullRequestComment comment, BotPullRequest request, BotIssue botIssue) throws Exception {
-		// If refactoring via comment
-		if (isCommentRefactoring) {
-			// Change to existing Refactoring-Branch
-			gitService.switchBranch(config, request.getBranchName());
+	private RefactoredIssue refactorIssue(GitConfiguration config, BotPullRequestComment comment,
+			BotPullRequest request, BotIssue botIssue) throws Exception {
+		// Change to existing Refactoring-Branch
+		gitService.switchBranch(config, request.getBranchName());
 
-			// Add current filepaths to Issue
-			botIssue = addUpToDateFilePaths(botIssue, isCommentRefactoring, config);
+		// Add current filepaths to Issue
+		botIssue = addUpToDateFilePaths(botIssue, true, config);
 
-			// Try to refactor
-			botIssue.setCommitMessage(refactoring.pickAndRefactor(botIssue, config));
+		// Try to refactor
+		botIssue.setCommitMessage(refactoring.pickAndRefactor(botIssue, config));
 
-			// If successful
-			if (botIssue.getCommitMessage() != null) {
-				// Create Refactored-Object
-				RefactoredIssue refactoredIssue = botController.buildRefactoredIssue(botIssue, config);
+		// If successful
+		if (botIssue.getCommitMessage() != null) {
+			// Create Refactored-Object
+			RefactoredIssue refactoredIssue = botController.buildRefactoredIssue(botIssue, config);
 
-				// Push changes
-				gitService.commitAndPushChanges(config, botIssue.getCommitMessage());
-				// Reply to User
-				apiGrabber.replyToUserInsideBotRequest(request, comment, config);
-
-				// Save and return refactored issue
-				return issueRepo.save(refactoredIssue);
-			}
+			// Push changes
+			gitService.commitAndPushChanges(config, botIssue.getCommitMessage(), botIssue.getModifiedFiles());
+			// Reply to User
+			apiGrabber.replyToUserInsideBotRequest(request, comment, config);
 
-			// If analysis service refactoring
-		} else {
-			// Create new branch for refactoring
-			String newBranch = "sonarQube_Refactoring_" + botIssue.getCommentServiceID();
-			// Check if branch already exists (throws exception if it does)
-			apiGrabber.checkBranch(config, newBranch);
-			gitService.createBranch(config, "master", newBranch, "upstream");
-			// Add current filepaths to Issue
-			botIssue = addUpToDateFilePaths(botIssue, isCommentRefactoring, config);
-			// Try to refactor
-			botIssue.setCommitMessage(refactoring.pickAndRefactor(botIssue, config));
-
-			// If successful
-			if (botIssue.getCommitMessage() != null) {
-				// Create Refactored-Object
-				RefactoredIssue refactoredIssue = botController.buildRefactoredIssue(botIssue, config);
-
-				// Push changes + create Pull-Request
-				gitService.commitAndPushChanges(config, botIssue.getCommitMessage());
-				apiGrabber.makeCreateRequestWithAnalysisService(botIssue, config, newBranch);
-
-				// Save and return refactored issue
-				return issueRepo.save(refactoredIssue);
-			}
+			// Save and return refactored issue
+			return issueRepo.save(refactoredIssue);
 		}
 
 		botIssue.setErrorMessage("Could not create a commit message!");
-		return processFailedRefactoring(config, comment, request, botIssue, isCommentRefactoring);
+		return processFailedRefactoring(config, comment, request, botIssue, true);
 	}
 
 	/**
@@ -318,7 +629,7 @@ public class RefactoringService {
 	 * @throws DatabaseConnectionException
 	 * @throws NotFoundException
 	 */
-	private GitConfiguration checkConfigurationExistance(Long configurationId)
+	public GitConfiguration checkConfigurationExistance(Long configurationId)
 			throws DatabaseConnectionException, NotFoundException {
 
 		Optional<GitConfiguration> gitConfig;
@@ -459,7 +770,10 @@ public class RefactoringService {
 	private BotIssue addUpToDateFilePaths(BotIssue botIssue, Boolean isCommentRefactoring, GitConfiguration config)
 			throws IOException {
 		botIssue.setAllJavaFiles(fileService.getAllJavaFiles(config.getRepoFolder()));
-		botIssue.setJavaRoots(fileService.findJavaRoots(botIssue.getAllJavaFiles()));
+		botIssue.setJavaRoots(fileService.findJavaRoots(config.getRepoFolder(), botIssue.getAllJavaFiles()));
+		// keep the call sites of the workspace up to date while the refactoring runs
+		CallSiteIndex.forWorkspace(config.getRepoFolder()).updateInBackground(botIssue.getAllJavaFiles(),
+				botIssue.getJavaRoots());
 
 		if (!isCommentRefactoring) {
 			botIssue.setFilePath(apiGrabber.getAnalysisServiceAbsoluteIssuePath(config, botIssue.getFilePath()));
@@ -0,0 +1,190 @@
+package de.refactoringbot.services.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This class runs the jobs of the configurations on a bounded pool of worker
+ * threads. Jobs of different configurations run in parallel, jobs of the same
+ * configuration run one after another in the order they were submitted, as
+ * they share the local workspace of the configuration.
+ *
+ * The number of jobs waiting for a worker is bounded. A job that runs longer
+ * than the configured timeout is interrupted and its result is discarded.
+ *
+ */
+@Service
+public class ConfigurationJobExecutor {
+
+	@Value("${scheduling.threads:0}")
+	private int threads;
+	@Value("${scheduling.queueCapacity:100}")
+	private int queueCapacity;
+	@Value("${scheduling.timeoutInMS:1800000}")
+	private long timeoutInMS;
+
+	private static final Logger logger = LoggerFactory.getLogger(ConfigurationJobExecutor.class);
+
+	private ThreadPoolExecutor workers;
+	private ScheduledExecutorService watchdog;
+
+	// guarded by this
+	private final Set<Long> activeConfigurations = new HashSet<>();
+	private final Map<Long, Deque<ConfigurationJob<?>>> pendingJobs = new HashMap<>();
+	private int waitingJobs;
+
+	public ConfigurationJobExecutor() {
+	}
+
+	/**
+	 * @param threads
+	 *            number of worker threads, 0 for one per available processor
+	 * @param queueCapacity
+	 *            maximum number of jobs waiting for a worker
+	 * @param timeoutInMS
+	 *            maximum run time of a job
+	 */
+	public ConfigurationJobExecutor(int threads, int queueCapacity, long timeoutInMS) {
+		this.threads = threads;
+		this.queueCapacity = queueCapacity;
+		this.timeoutInMS = timeoutInMS;
+		start();
+	}
+
+	@PostConstruct
+	public void start() {
+		int workerCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		AtomicInteger workerNumber = new AtomicInteger();
+		// jobs only reach the pool when their configuration is idle, the queue of
+		// the pool is bounded by the waiting jobs
+		workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "configuration-job-" + workerNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "configuration-job-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		logger.info("Running configuration jobs with {} threads.", workerCount);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		workers.shutdownNow();
+		watchdog.shutdownNow();
+	}
+
+	/**
+	 * Submits a job of the given configuration. It runs as soon as a worker is
+	 * free and no other job of the configuration runs.
+	 *
+	 * @param configurationId
+	 * @param job
+	 * @return future of the result of the job
+	 * @throws RejectedExecutionException
+	 *             if too many jobs are waiting
+	 */
+	public synchronized <T> Future<T> submit(Long configurationId, Callable<T> job) {
+		if (waitingJobs >= queueCapacity) {
+			throw new RejectedExecutionException("Too many jobs are waiting to be executed!");
+		}
+		ConfigurationJob<T> configurationJob = new ConfigurationJob<>(configurationId, job);
+		waitingJobs++;
+		if (activeConfigurations.add(configurationId)) {
+			workers.execute(configurationJob);
+		} else {
+			pendingJobs.computeIfAbsent(configurationId, id -> new ArrayDeque<>()).add(configurationJob);
+		}
+		return configurationJob;
+	}
+
+	/**
+	 * @param configurationId
+	 * @return true if a job of the given configuration runs or waits
+	 */
+	public synchronized boolean isBusy(Long configurationId) {
+		return activeConfigurations.contains(configurationId);
+	}
+
+	/**
+	 * @return number of jobs waiting for a worker
+	 */
+	public synchronized int getWaitingJobs() {
+		return waitingJobs;
+	}
+
+	private synchronized void onJobStarted() {
+		waitingJobs--;
+	}
+
+	/**
+	 * Hands the next job of the given configuration to the pool or marks the
+	 * configuration as idle
+	 *
+	 * @param configurationId
+	 */
+	private synchronized void onJobFinished(Long configurationId) {
+		Deque<ConfigurationJob<?>> jobs = pendingJobs.get(configurationId);
+		if (jobs != null && !jobs.isEmpty()) {
+			workers.execute(jobs.poll());
+			return;
+		}
+		pendingJobs.remove(configurationId);
+		activeConfigurations.remove(configurationId);
+	}
+
+	private class ConfigurationJob<T> extends FutureTask<T> {
+
+		private final Long configurationId;
+
+		ConfigurationJob(Long configurationId, Callable<T> job) {
+			super(job);
+			this.configurationId = configurationId;
+		}
+
+		@Override
+		public void run() {
+			onJobStarted();
+			ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+				if (cancel(true)) {
+					logger.warn("Job of configuration with the ID {} was interrupted after {} ms.", configurationId,
+							timeoutInMS);
+				}
+			}, timeoutInMS, TimeUnit.MILLISECONDS);
+			try {
+				// returns when the job returns, even if it was interrupted before, so
+				// the next job of the configuration never runs alongside it
+				super.run();
+			} finally {
+				timeout.cancel(false);
+				onJobFinished(configurationId);
+			}
+		}
+	}
+}
@@ -1,5 +1,12 @@
 package de.refactoringbot.services.scheduling;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +34,8 @@ public class SchedulingService {
 	BotConfiguration botConfig;
 	@Autowired
 	ConfigurationRepository repo;
+	@Autowired
+	ConfigurationJobExecutor jobExecutor;
 	
 	@Value("${scheduling.enable:false}")
 	private boolean isSchedulingEnabled;
@@ -35,7 +44,10 @@ public class SchedulingService {
 
 	/**
 	 * This method performs a scheduled refactoring on all configurations with a
-	 * delay of 1 minute. It only performs refactorings with comments.
+	 * delay of 1 minute. It only performs refactorings with comments. The
+	 * configurations are refactored in parallel by the job executor; the next run
+	 * is scheduled after all configurations are finished. Configurations that are
+	 * still busy with another job are skipped.
 	 */
 	@Scheduled(fixedDelayString = "${scheduling.delayInMS:10000}")
 	public void performCommentRefactorings() {
@@ -46,17 +58,39 @@ public class SchedulingService {
 		
 		Iterable<GitConfiguration> allConfigs = repo.findAll();
 		
+		Map<Long, Future<?>> runs = new LinkedHashMap<>();
 		for (GitConfiguration config: allConfigs) {
+			Long configId = config.getConfigurationId();
+			if (jobExecutor.isBusy(configId)) {
+				logger.info("Skipping scheduled comment refactoring of busy configuration with the ID: " + configId);
+				continue;
+			}
 			try {
-				logger.info("Starting scheduled comment refactoring with configuration with the ID: " + config.getConfigurationId());
-				refactoring.performRefactoring(config.getConfigurationId(), true);
-				logger.info("Successfully finished comment refactoring with configuration with the ID: " + config.getConfigurationId());
-			} catch (Exception e) {
-				logger.error(e.getMessage(), e);
+				runs.put(configId, jobExecutor.submit(configId, () -> {
+					logger.info("Starting scheduled comment refactoring with configuration with the ID: " + configId);
+					refactoring.performRefactoring(configId, true);
+					logger.info("Successfully finished comment refactoring with configuration with the ID: " + configId);
+					return null;
+				}));
+			} catch (RejectedExecutionException e) {
+				logger.warn("Skipping scheduled comment refactoring of configuration with the ID " + configId + ": "
+						+ e.getMessage());
 			}
 		}
 		
-		
+		for (Map.Entry<Long, Future<?>> run : runs.entrySet()) {
+			try {
+				run.getValue().get();
+			} catch (CancellationException e) {
+				logger.error("Scheduled comment refactoring with configuration with the ID " + run.getKey()
+						+ " timed out!");
+			} catch (ExecutionException e) {
+				logger.error(e.getCause().getMessage(), e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
 	}
 
 }
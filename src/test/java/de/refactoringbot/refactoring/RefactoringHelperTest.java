@@ -144,6 +144,19 @@ public class RefactoringHelperTest {
 				"de.refactoringbot.resources.refactoringhelper.TestDataClassRefactoringHelper.getLineOfMethod(boolean)");
 	}
 
+	@Test
+	public void testGetResolvedMethodSignatureAsStringOfUnresolvableMethod() throws BotRefactoringException {
+		configureStaticJavaParserForResolving();
+
+		// arrange
+		CompilationUnit cu = StaticJavaParser.parse("class A { void foo(UnknownType parameter) {} }");
+		MethodDeclaration targetMethod = cu.findFirst(MethodDeclaration.class).get();
+		exception.expect(BotRefactoringException.class);
+
+		// act
+		RefactoringHelper.getResolvedMethodSignatureAsString(targetMethod);
+	}
+
 	@Test
 	public void testFindRelatedClassesAndInterfaces() throws BotRefactoringException, IOException {
 		configureStaticJavaParserForResolving();
@@ -0,0 +1,50 @@
+package de.refactoringbot.refactoring.edit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+
+public class SourceTextTest {
+
+	@Rule
+	public final ExpectedException exception = ExpectedException.none();
+
+	@Test
+	public void testApplyEditsFromNodeRanges() throws BotRefactoringException {
+		// arrange
+		String content = "class A {\r\n\t/* keep */ void a() {}\r\n\tvoid b() { a(); }\r\n}";
+		CompilationUnit cu = StaticJavaParser.parse(content);
+		SourceText text = new SourceText(content);
+		MethodDeclaration method = cu.findFirst(MethodDeclaration.class).get();
+
+		// act
+		String result = text.applyEdits(Arrays.asList(text.replace(method.getName(), "c"),
+				text.insert(method.getBegin().get(), "@Deprecated ")));
+
+		// assert
+		assertThat(text.getLineSeparator()).isEqualTo("\r\n");
+		assertThat(result).isEqualTo("class A {\r\n\t/* keep */ @Deprecated void c() {}\r\n\tvoid b() { a(); }\r\n}");
+	}
+
+	@Test
+	public void testOverlappingEditsAreRejected() throws BotRefactoringException {
+		// arrange
+		SourceText text = new SourceText("class A {}");
+
+		// assert
+		exception.expect(BotRefactoringException.class);
+
+		// act
+		text.applyEdits(Arrays.asList(new TextEdit(0, 5, "interface"), new TextEdit(4, 3, "")));
+	}
+}
@@ -0,0 +1,119 @@
+package de.refactoringbot.refactoring.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.refactoringbot.resources.renamemethod.TestDataClassRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataClassWithCallOfTargetMethod;
+import de.refactoringbot.testutils.TestUtils;
+
+public class CallSiteIndexTest {
+
+	private static final String TARGET_METHOD_SIGNATURE = TestDataClassRenameMethod.class.getName()
+			+ ".getLineOfMethodToBeRenamed(boolean)";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private List<String> allJavaFiles = new ArrayList<>();
+	private List<String> javaRoots = new ArrayList<>();
+
+	@Before
+	public void setUp() throws IOException {
+		javaRoots.add(TestUtils.getAbsolutePathOfTestsFolder());
+
+		allJavaFiles.addAll(TestUtils.getRenameMethodTestDataFilePaths());
+	}
+
+	@Test
+	public void testFindFilesWithCallSites() throws IOException {
+		// arrange
+		CallSiteIndex index = CallSiteIndex.createTransient();
+		index.update(allJavaFiles, javaRoots);
+
+		// act
+		Set<String> files = index.findFilesWithCallSites(Collections.singleton(TARGET_METHOD_SIGNATURE),
+				allJavaFiles);
+
+		// assert
+		assertThat(files).containsExactlyInAnyOrder(TestUtils.getTestResourcesFilePath(TestDataClassRenameMethod.class),
+				TestUtils.getTestResourcesFilePath(TestDataClassWithCallOfTargetMethod.class));
+		assertThat(index.getCallSites(TARGET_METHOD_SIGNATURE).get(
+				TestUtils.getTestResourcesFilePath(TestDataClassWithCallOfTargetMethod.class))).hasSize(1);
+	}
+
+	@Test
+	public void testChangedFileIsCandidateUntilIndexedAgain() throws IOException {
+		// arrange
+		File javaFile = folder.newFile("A.java");
+		Files.write(javaFile.toPath(), "class A { void a() {} }".getBytes(StandardCharsets.UTF_8));
+		List<String> files = Collections.singletonList(javaFile.getCanonicalPath());
+		List<String> roots = Collections.singletonList(folder.getRoot().getCanonicalPath());
+		Set<String> signatures = Collections.singleton("A.a()");
+
+		CallSiteIndex index = CallSiteIndex.createTransient();
+		index.update(files, roots);
+		Set<String> candidatesBeforeChange = index.findFilesWithCallSites(signatures, files);
+
+		// act
+		Files.write(javaFile.toPath(), "class A { void a() { a(); } }".getBytes(StandardCharsets.UTF_8));
+		Set<String> candidatesAfterChange = index.findFilesWithCallSites(signatures, files);
+		index.update(files, roots);
+		Set<String> candidatesAfterUpdate = index.findFilesWithCallSites(signatures, files);
+
+		// assert
+		assertThat(candidatesBeforeChange).isEmpty();
+		assertThat(candidatesAfterChange).containsExactlyElementsOf(files);
+		assertThat(candidatesAfterUpdate).containsExactlyElementsOf(files);
+	}
+
+	@Test
+	public void testCallersAreIndexedAgainWhenSuperTypeChanges() throws IOException {
+		// arrange
+		writeFile("A.java", "class A { void foo() {} }");
+		writeFile("Other.java", "class Other { void foo() {} }");
+		File subClass = writeFile("B.java", "class B extends A {}");
+		File caller = writeFile("Caller.java", "class Caller { void call(B b) { b.foo(); } }");
+		List<String> files = new ArrayList<>();
+		for (String fileName : folder.getRoot().list()) {
+			files.add(new File(folder.getRoot(), fileName).getCanonicalPath());
+		}
+		List<String> roots = Collections.singletonList(folder.getRoot().getCanonicalPath());
+		Set<String> signatures = Collections.singleton("Other.foo()");
+
+		CallSiteIndex index = CallSiteIndex.createTransient();
+		index.update(files, roots);
+		Set<String> candidatesBeforeChange = index.findFilesWithCallSites(signatures, files);
+
+		// act
+		Files.write(subClass.toPath(), "class B extends Other {}".getBytes(StandardCharsets.UTF_8));
+		index.update(files, roots);
+		Set<String> candidatesAfterChange = index.findFilesWithCallSites(signatures, files);
+		index.update(files, roots);
+
+		// assert
+		assertThat(candidatesBeforeChange).isEmpty();
+		assertThat(candidatesAfterChange).contains(caller.getCanonicalPath());
+		assertThat(index.getCallSites("Other.foo()")).containsOnlyKeys(caller.getCanonicalPath());
+		assertThat(index.getCallSites("A.foo()")).isEmpty();
+	}
+
+	private File writeFile(String fileName, String content) throws IOException {
+		File javaFile = folder.newFile(fileName);
+		Files.write(javaFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return javaFile;
+	}
+}
@@ -0,0 +1,88 @@
+package de.refactoringbot.refactoring.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import de.refactoringbot.resources.renamemethod.TestDataClassRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataInterfaceRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataSiblingClassRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataSubClassRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataSuperClassRenameMethod;
+import de.refactoringbot.testutils.TestUtils;
+
+public class TypeHierarchyIndexTest {
+
+	private static final String TARGET_METHOD_SIGNATURE = "getLineOfMethodToBeRenamed(boolean)";
+
+	private List<String> allJavaFiles = new ArrayList<>();
+
+	@Before
+	public void configureStaticJavaParserForResolving() throws IOException {
+		CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+		typeSolver.add(new JavaParserTypeSolver(TestUtils.getAbsolutePathOfTestsFolder()));
+		typeSolver.add(new ReflectionTypeSolver());
+		StaticJavaParser.getConfiguration().setSymbolResolver(new JavaSymbolSolver(typeSolver));
+
+		allJavaFiles.addAll(TestUtils.getRenameMethodTestDataFilePaths());
+	}
+
+	@Test
+	public void testFindRelatedTypes() {
+		// arrange
+		TypeHierarchyIndex index = TypeHierarchyIndex.createTransient();
+		index.update(allJavaFiles);
+
+		// act
+		Set<String> relatedTypes = index.findRelatedTypes(TestDataClassRenameMethod.class.getName(),
+				TARGET_METHOD_SIGNATURE);
+
+		// assert
+		assertThat(relatedTypes).containsExactlyInAnyOrder(TestDataClassRenameMethod.class.getName(),
+				TestDataSuperClassRenameMethod.class.getName(), TestDataSubClassRenameMethod.class.getName(),
+				TestDataSiblingClassRenameMethod.class.getName());
+	}
+
+	@Test
+	public void testFindRelatedTypesAfterParallelUpdate() throws IOException {
+		// arrange
+		TypeHierarchyIndex index = TypeHierarchyIndex.createTransient();
+		index.update(allJavaFiles, Collections.singletonList(TestUtils.getAbsolutePathOfTestsFolder()));
+
+		// act
+		Set<String> relatedTypes = index.findRelatedTypes(TestDataClassRenameMethod.class.getName(),
+				TARGET_METHOD_SIGNATURE);
+
+		// assert
+		assertThat(relatedTypes).containsExactlyInAnyOrder(TestDataClassRenameMethod.class.getName(),
+				TestDataSuperClassRenameMethod.class.getName(), TestDataSubClassRenameMethod.class.getName(),
+				TestDataSiblingClassRenameMethod.class.getName());
+	}
+
+	@Test
+	public void testGetAllAncestors() {
+		// arrange
+		TypeHierarchyIndex index = TypeHierarchyIndex.createTransient();
+		index.update(allJavaFiles);
+
+		// act
+		Set<String> ancestors = index.getAllAncestors(TestDataSubClassRenameMethod.class.getName());
+
+		// assert
+		assertThat(ancestors).containsExactlyInAnyOrder(TestDataClassRenameMethod.class.getName(),
+				TestDataSuperClassRenameMethod.class.getName(), TestDataInterfaceRenameMethod.class.getName());
+	}
+}
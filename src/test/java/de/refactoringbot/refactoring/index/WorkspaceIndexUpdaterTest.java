@@ -0,0 +1,86 @@
+package de.refactoringbot.refactoring.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+public class WorkspaceIndexUpdaterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testIndexesFollowCommits() throws Exception {
+		File workspace = folder.getRoot();
+		CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+		typeSolver.add(new JavaParserTypeSolver(workspace));
+		typeSolver.add(new ReflectionTypeSolver());
+		StaticJavaParser.getConfiguration().setSymbolResolver(new JavaSymbolSolver(typeSolver));
+
+		try (Git git = Git.init().setDirectory(workspace).call()) {
+			// arrange
+			File superClass = writeJavaFile("A.java", "class A { void a() {} }");
+			File subClass = writeJavaFile("B.java", "class B extends A {}");
+			RevCommit firstCommit = commitAll(git, "first");
+
+			TypeHierarchyIndex index = TypeHierarchyIndex.forWorkspace(workspace.getPath());
+			index.update(getJavaFiles(superClass, subClass));
+			WorkspaceIndexUpdater.updateToHead(git.getRepository(), workspace.getPath());
+
+			// act
+			Files.delete(subClass.toPath());
+			writeJavaFile("A.java", "class A { void a() {} void b() {} }");
+			RevCommit secondCommit = commitAll(git, "second");
+			WorkspaceIndexUpdater.updateToHead(git.getRepository(), workspace.getPath());
+
+			// assert
+			assertThat(firstCommit).isNotEqualTo(secondCommit);
+			assertThat(index.getIndexedCommit()).isEqualTo(secondCommit.name());
+			assertThat(CallSiteIndex.forWorkspace(workspace.getPath()).getIndexedCommit())
+					.isEqualTo(secondCommit.name());
+			assertThat(index.getType("B")).isNotPresent();
+			// the modified file is reported until it is indexed again
+			assertThat(index.getFilesDeclaringTypes(Collections.emptySet()))
+					.containsExactly(superClass.getCanonicalPath());
+		}
+	}
+
+	private File writeJavaFile(String fileName, String content) throws IOException {
+		File file = new File(folder.getRoot(), fileName);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private RevCommit commitAll(Git git, String message) throws Exception {
+		git.add().addFilepattern(".").call();
+		git.add().setUpdate(true).addFilepattern(".").call();
+		return git.commit().setMessage(message).setAuthor("bot", "bot@example.com")
+				.setCommitter("bot", "bot@example.com").call();
+	}
+
+	private List<String> getJavaFiles(File... files) throws IOException {
+		List<String> javaFiles = new ArrayList<>();
+		for (File file : files) {
+			javaFiles.add(file.getCanonicalPath());
+		}
+		return javaFiles;
+	}
+}
@@ -0,0 +1,90 @@
+package de.refactoringbot.refactoring.parsing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+
+public class CompilationUnitCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testUnchangedFileIsParsedOnce() throws IOException {
+		// arrange
+		CompilationUnitCache cache = new CompilationUnitCache(CompilationUnitCache.DEFAULT_MAX_SOURCE_BYTES);
+		File file = createJavaFile("class A {}");
+
+		// act
+		CompilationUnit first = cache.getCompilationUnit(file.getAbsolutePath());
+		CompilationUnit second = cache.getCompilationUnit(file.getAbsolutePath());
+
+		// assert
+		assertThat(second).isSameAs(first);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void testChangedFileIsParsedAgain() throws IOException {
+		// arrange
+		CompilationUnitCache cache = new CompilationUnitCache(CompilationUnitCache.DEFAULT_MAX_SOURCE_BYTES);
+		File file = createJavaFile("class A {}");
+		CompilationUnit first = cache.getCompilationUnit(file.getAbsolutePath());
+
+		// act
+		Files.write(file.toPath(), "class B { int b; }".getBytes(StandardCharsets.UTF_8));
+		CompilationUnit second = cache.getCompilationUnit(file.getAbsolutePath());
+
+		// assert
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getClassByName("B")).isPresent();
+	}
+
+	@Test
+	public void testCompilationUnitForModificationIsNotShared() throws IOException {
+		// arrange
+		CompilationUnitCache cache = new CompilationUnitCache(CompilationUnitCache.DEFAULT_MAX_SOURCE_BYTES);
+		File file = createJavaFile("class A {}");
+		CompilationUnit shared = cache.getCompilationUnit(file.getAbsolutePath());
+
+		// act
+		CompilationUnit modifiable = cache.getCompilationUnitForModification(file.getAbsolutePath());
+
+		// assert
+		assertThat(modifiable).isNotSameAs(shared);
+		assertThat(cache.size()).isZero();
+		assertThat(shared.containsData(LexicalPreservingPrinter.NODE_TEXT_DATA)).isFalse();
+		assertThat(modifiable.containsData(LexicalPreservingPrinter.NODE_TEXT_DATA)).isTrue();
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() throws IOException {
+		// arrange
+		File first = createJavaFile("class A {}");
+		File second = createJavaFile("class B {}");
+		CompilationUnitCache cache = new CompilationUnitCache(first.length() + second.length() - 1);
+
+		// act
+		cache.getCompilationUnit(first.getAbsolutePath());
+		cache.getCompilationUnit(second.getAbsolutePath());
+
+		// assert
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	private File createJavaFile(String content) throws IOException {
+		File file = folder.newFile();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
@@ -0,0 +1,56 @@
+package de.refactoringbot.refactoring.parsing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+public class DeclarationLineIndexTest {
+
+	private static final String SOURCE = "class A {\n" // 1
+			+ "	int a; int b;\n" // 2
+			+ "	// comment\n" // 3
+			+ "	A() {}\n" // 4
+			+ "	void\n" // 5
+			+ "	m() {}\n" // 6
+			+ "	/* block\n" // 7
+			+ "	   comment */\n" // 8
+			+ "	void n() {}\n" // 9
+			+ "}";
+
+	@Test
+	public void testDeclarationsAtLine() {
+		// arrange
+		CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+		// act
+		DeclarationLineIndex index = DeclarationLineIndex.of(cu);
+
+		// assert
+		assertThat(index).isSameAs(DeclarationLineIndex.of(cu));
+		assertThat(index.getFieldDeclarationsAtLine(2)).hasSize(2);
+		assertThat(index.getConstructorDeclarationsAtLine(4)).hasSize(1);
+		assertThat(index.getMethodDeclarationsAtLine(5)).isEmpty();
+		assertThat(index.getMethodDeclarationsAtLine(6)).extracting(MethodDeclaration::getNameAsString)
+				.containsExactly("m");
+		assertThat(index.getMethodDeclarationsAtLine(10)).isEmpty();
+	}
+
+	@Test
+	public void testCommentsFromLine() {
+		// arrange
+		CompilationUnit cu = StaticJavaParser.parse(SOURCE);
+
+		// act
+		DeclarationLineIndex index = DeclarationLineIndex.of(cu);
+
+		// assert
+		assertThat(index.getCommentsFromLine(1)).hasSize(2);
+		assertThat(index.getCommentsFromLine(4)).hasSize(1);
+		assertThat(index.getCommentsFromLine(8).get(0).isBlockComment()).isTrue();
+		assertThat(index.getCommentsFromLine(9)).isEmpty();
+	}
+}
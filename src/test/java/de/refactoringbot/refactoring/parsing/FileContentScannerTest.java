@@ -0,0 +1,46 @@
+package de.refactoringbot.refactoring.parsing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileContentScannerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testContainsAny() throws Exception {
+		// arrange
+		File file = folder.newFile("A.java");
+		Files.write(file.toPath(), "class A { void foo() { bar(); } }".getBytes(StandardCharsets.UTF_8));
+
+		// act & assert
+		assertThat(FileContentScanner.containsAny(file.toPath(), Arrays.asList("baz", "bar"))).isTrue();
+		assertThat(FileContentScanner.containsAny(file.toPath(), Collections.singleton("fooBar"))).isFalse();
+		assertThat(FileContentScanner.containsAny(file.toPath(), Collections.emptySet())).isFalse();
+	}
+
+	@Test
+	public void testWordSpanningTwoChunksIsFound() throws Exception {
+		// arrange
+		char[] padding = new char[64 * 1024 - 3];
+		Arrays.fill(padding, ' ');
+		File file = folder.newFile("B.java");
+		Files.write(file.toPath(), (new String(padding) + "methodName").getBytes(StandardCharsets.UTF_8));
+
+		// act
+		boolean found = FileContentScanner.containsAny(file.toPath(), Collections.singleton("methodName"));
+
+		// assert
+		assertThat(found).isTrue();
+	}
+}
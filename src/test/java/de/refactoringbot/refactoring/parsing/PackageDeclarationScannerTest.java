@@ -0,0 +1,53 @@
+package de.refactoringbot.refactoring.parsing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Optional;
+
+import org.junit.Test;
+
+public class PackageDeclarationScannerTest {
+
+	@Test
+	public void testPackageAfterCommentsAndAnnotations() throws IOException {
+		// arrange
+		String header = "/* license\n * header */\n// line comment\n"
+				+ "@Deprecated @SuppressWarnings({ \"a)\", \"b\" }) @a.b.Generated(value = ')')\n"
+				+ "package de . refactoringbot /* inline */ .model;\nimport java.util.List;";
+
+		// act
+		Optional<String> packageName = scan(header);
+
+		// assert
+		assertThat(packageName).contains("de.refactoringbot.model");
+	}
+
+	@Test
+	public void testDefaultPackage() throws IOException {
+		// act
+		Optional<String> packageName = scan("import java.util.List;\n/** doc */\npublic class A {}");
+
+		// assert
+		assertThat(packageName).isEmpty();
+	}
+
+	@Test
+	public void testByteOrderMark() throws IOException {
+		// act
+		Optional<String> packageName = scan("\uFEFFpackage a.b;");
+
+		// assert
+		assertThat(packageName).contains("a.b");
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnterminatedCommentIsRejected() throws IOException {
+		scan("/* package a.b;");
+	}
+
+	private Optional<String> scan(String content) throws IOException {
+		return new PackageDeclarationScanner(new StringReader(content)).scanPackageName();
+	}
+}
@@ -0,0 +1,71 @@
+package de.refactoringbot.refactoring.parsing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+
+public class ParallelParserTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAnalyzeAllResolvesWithSymbolSolverPerWorker() throws IOException {
+		// arrange
+		List<String> javaFiles = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			javaFiles.add(createJavaFile("C" + i + ".java",
+					"package p; class C" + i + (i > 0 ? " extends C" + (i - 1) : "") + " {}"));
+		}
+		List<String> javaRoots = Collections.singletonList(folder.getRoot().getAbsolutePath());
+		ParallelParser parser = new ParallelParser(4);
+
+		// act
+		Map<String, Integer> ancestorCounts = parser.analyzeAll(javaFiles, javaRoots,
+				(javaFile, javaParser) -> ParallelParser.parse(javaParser, javaFile)
+						.findFirst(ClassOrInterfaceDeclaration.class).get().resolve().getAllAncestors().size());
+
+		// assert
+		assertThat(ancestorCounts).hasSize(20);
+		// all classes extend java.lang.Object
+		assertThat(ancestorCounts.get(javaFiles.get(19))).isEqualTo(20);
+	}
+
+	@Test
+	public void testFilesThatCanNotBeParsedAreOmitted() throws IOException {
+		// arrange
+		String validFile = createJavaFile("A.java", "class A {}");
+		String invalidFile = createJavaFile("B.java", "class B {");
+		ParallelParser parser = new ParallelParser(2);
+
+		// act
+		Map<String, String> classNames = parser.analyzeAll(Arrays.asList(validFile, invalidFile),
+				Collections.emptyList(), (javaFile, javaParser) -> ParallelParser.parse(javaParser, javaFile)
+						.findFirst(ClassOrInterfaceDeclaration.class).get().getNameAsString());
+
+		// assert
+		assertThat(classNames).containsOnlyKeys(validFile);
+	}
+
+	private String createJavaFile(String fileName, String content) throws IOException {
+		File packageFolder = new File(folder.getRoot(), "p");
+		packageFolder.mkdirs();
+		File file = new File(content.startsWith("package p;") ? packageFolder : folder.getRoot(), fileName);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file.getAbsolutePath();
+	}
+}
@@ -0,0 +1,149 @@
+package de.refactoringbot.refactoring.resolution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+public class DependencyJarTypeSolverTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testClassNamesAreReadFromPersistedIndex() throws Exception {
+		// arrange
+		Path junitJar = getJarOf(Test.class);
+		File indexDirectory = folder.newFolder("index");
+
+		// act
+		List<String> classNames = new JarClassIndex(indexDirectory).getClassNames(junitJar);
+		List<String> persistedClassNames = new JarClassIndex(indexDirectory).getClassNames(junitJar);
+
+		// assert
+		assertThat(indexDirectory.listFiles()).hasSize(1);
+		assertThat(classNames).contains("org.junit.Test", "org.junit.runners.model.FrameworkMethod");
+		assertThat(classNames).noneMatch(className -> className.matches(".*\\$\\d.*"));
+		assertThat(persistedClassNames).isEqualTo(classNames);
+	}
+
+	@Test
+	public void testTypesAreSolvedFromJar() throws Exception {
+		// arrange
+		DependencyJarTypeSolver jarSolver = new DependencyJarTypeSolver(
+				Collections.singletonList(getJarOf(Test.class)), new JarClassIndex(folder.newFolder("index")));
+		CombinedTypeSolver typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver(), jarSolver);
+
+		// act
+		ResolvedReferenceTypeDeclaration temporaryFolder = typeSolver.solveType("org.junit.rules.TemporaryFolder");
+
+		// assert
+		assertThat(temporaryFolder.getQualifiedName()).isEqualTo("org.junit.rules.TemporaryFolder");
+		assertThat(temporaryFolder.getAncestors()).anyMatch(
+				ancestor -> ancestor.getQualifiedName().equals("org.junit.rules.ExternalResource"));
+		assertThat(jarSolver.hasType("org.junit.runner.Description")).isTrue();
+		assertThat(jarSolver.hasType("org.junit.DoesNotExist")).isFalse();
+	}
+
+	@Test
+	public void testClassOfSeveralJarsIsLoadedFromFirstJar() throws Exception {
+		// arrange
+		Path firstJar = createJar("first", "package p; public class Same { public void first() {} }");
+		Path secondJar = createJar("second", "package p; public class Same { public void second() {} }",
+				"package p; public class Other {}");
+		DependencyJarTypeSolver jarSolver = new DependencyJarTypeSolver(Arrays.asList(firstJar, secondJar),
+				new JarClassIndex(folder.newFolder("index")));
+		CombinedTypeSolver typeSolver = new CombinedTypeSolver(new ReflectionTypeSolver(), jarSolver);
+
+		// act
+		typeSolver.solveType("p.Other");
+		ResolvedReferenceTypeDeclaration same = typeSolver.solveType("p.Same");
+
+		// assert
+		assertThat(same.getDeclaredMethods()).extracting(method -> method.getName()).containsExactly("first");
+	}
+
+	@Test
+	public void testDependencyJarsAreLocatedFromPom() throws Exception {
+		// arrange
+		File mavenRepository = folder.newFolder("m2");
+		File managedJar = createFile(mavenRepository, "org/example/managed/1.2/managed-1.2.jar");
+		createFile(mavenRepository, "org/example/latest/1.9.0/latest-1.9.0.jar");
+		File latestJar = createFile(mavenRepository, "org/example/latest/1.10.0/latest-1.10.0.jar");
+		File workspace = folder.newFolder("workspace");
+		createFile(workspace, "pom.xml", "<project><groupId>org.example</groupId><artifactId>app</artifactId>"
+				+ "<properties><managed.version>1.2</managed.version></properties>"
+				+ "<dependencyManagement><dependencies><dependency><groupId>org.example</groupId>"
+				+ "<artifactId>managed</artifactId><version>${managed.version}</version></dependency>"
+				+ "</dependencies></dependencyManagement><dependencies>"
+				+ "<dependency><groupId>org.example</groupId><artifactId>managed</artifactId></dependency>"
+				+ "<dependency><groupId>org.example</groupId><artifactId>latest</artifactId></dependency>"
+				+ "<dependency><groupId>org.example</groupId><artifactId>missing</artifactId>"
+				+ "<version>1.0</version></dependency></dependencies></project>");
+		DependencyJarLocator locator = new DependencyJarLocator(mavenRepository.toPath(),
+				folder.newFolder("gradle").toPath());
+
+		// act
+		List<Path> jars = locator.findDependencyJars(workspace.getPath());
+
+		// assert
+		assertThat(jars).containsExactly(managedJar.toPath(), latestJar.toPath());
+	}
+
+	private Path getJarOf(Class<?> type) throws Exception {
+		return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+	}
+
+	private Path createJar(String name, String... sources) throws Exception {
+		File sourceFolder = folder.newFolder(name + "-sources");
+		File classFolder = folder.newFolder(name + "-classes");
+		List<String> arguments = new ArrayList<>(Arrays.asList("-d", classFolder.getPath()));
+		for (String source : sources) {
+			String className = source.replaceAll(".*public class (\\w+).*", "$1");
+			arguments.add(createFile(sourceFolder, className + ".java", source).getPath());
+		}
+		assertThat(ToolProvider.getSystemJavaCompiler().run(null, null, null, arguments.toArray(new String[0])))
+				.isEqualTo(0);
+
+		File jar = new File(folder.getRoot(), name + ".jar");
+		try (JarOutputStream jarStream = new JarOutputStream(new FileOutputStream(jar))) {
+			for (File classFile : new File(classFolder, "p").listFiles()) {
+				jarStream.putNextEntry(new JarEntry("p/" + classFile.getName()));
+				jarStream.write(Files.readAllBytes(classFile.toPath()));
+				jarStream.closeEntry();
+			}
+		}
+		return jar.toPath();
+	}
+
+	private File createFile(File parent, String fileName) throws Exception {
+		return createFile(parent, fileName, "");
+	}
+
+	private File createFile(File parent, String fileName, String content) throws Exception {
+		File file = new File(parent, fileName);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
@@ -0,0 +1,33 @@
+package de.refactoringbot.refactoring.resolution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+
+public class MethodCallFilterTest {
+
+	@Test
+	public void testMightCall() {
+		// arrange
+		CompilationUnit cu = StaticJavaParser.parse("class A {\n" //
+				+ "	void a(int i) {}\n" //
+				+ "	void b(String s, int... i) {}\n" //
+				+ "	void calls() { a(); a(1); a(1, 2); b(\"\"); b(\"\", 1, 2); c(1); }\n" //
+				+ "}");
+		List<MethodDeclaration> methods = cu.findAll(MethodDeclaration.class);
+		List<MethodCallExpr> calls = cu.findAll(MethodCallExpr.class);
+
+		// act
+		MethodCallFilter filter = new MethodCallFilter(methods.subList(0, 2));
+
+		// assert
+		assertThat(calls).extracting(filter::mightCall).containsExactly(false, true, false, true, true, false);
+	}
+}
@@ -0,0 +1,69 @@
+package de.refactoringbot.refactoring.resolution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import de.refactoringbot.model.exceptions.BotRefactoringException;
+
+public class ResolutionMemoTest {
+
+	private static final String SOURCE = "package p;\n" //
+			+ "class A {\n" //
+			+ "	void a(int i) { a(1); unknown(); }\n" //
+			+ "	void b(Unknown u) {}\n" //
+			+ "}";
+
+	@Test
+	public void testResolutionsAreMemoized() throws Exception {
+		// arrange
+		CompilationUnit cu = parse();
+		MethodDeclaration a = cu.findAll(MethodDeclaration.class).get(0);
+		MethodCallExpr callOfA = cu.findAll(MethodCallExpr.class).get(0);
+		MethodCallExpr unknownCall = cu.findAll(MethodCallExpr.class).get(1);
+		ResolutionMemo memo = new ResolutionMemo();
+
+		// act
+		String signatureOfA = memo.getQualifiedSignature(a);
+		String signatureOfCall = memo.getQualifiedSignature(callOfA);
+		String signatureOfUnknownCall = memo.getQualifiedSignature(unknownCall);
+
+		// assert
+		assertThat(signatureOfA).isEqualTo("p.A.a(int)");
+		assertThat(signatureOfCall).isEqualTo(signatureOfA);
+		assertThat(memo.getQualifiedSignature(callOfA)).isSameAs(signatureOfCall);
+		assertThat(signatureOfUnknownCall).isNull();
+		assertThat(memo.getQualifiedSignature(unknownCall)).isNull();
+		assertThat(memo.size()).isEqualTo(3);
+	}
+
+	@Test
+	public void testFailedDeclarationResolutionIsMemoized() {
+		// arrange
+		CompilationUnit cu = parse();
+		MethodDeclaration b = cu.findAll(MethodDeclaration.class).get(1);
+		ResolutionMemo memo = new ResolutionMemo();
+
+		// act & assert
+		assertThatThrownBy(() -> memo.getQualifiedSignature(b)).isInstanceOf(BotRefactoringException.class)
+				.hasMessageContaining("can't be resolved");
+		assertThatThrownBy(() -> memo.getQualifiedSignature(b)).isInstanceOf(BotRefactoringException.class)
+				.hasMessageContaining("can't be resolved");
+		assertThat(memo.size()).isEqualTo(1);
+	}
+
+	private CompilationUnit parse() {
+		ParserConfiguration configuration = new ParserConfiguration()
+				.setSymbolResolver(new JavaSymbolSolver(new ReflectionTypeSolver()));
+		return new JavaParser(configuration).parse(SOURCE).getResult().get();
+	}
+}
@@ -0,0 +1,87 @@
+package de.refactoringbot.refactoring.resolution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+
+public class SourceRootTypeSolverTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSolvedTypesAreCachedUntilFileIsInvalidated() throws Exception {
+		// arrange
+		File javaFile = writeJavaFile("p/A.java", "package p; class A { class Inner {} }");
+		SourceRootTypeSolver typeSolver = new SourceRootTypeSolver(folder.getRoot().getPath());
+
+		// act
+		ResolvedReferenceTypeDeclaration first = typeSolver.solveType("p.A");
+		ResolvedReferenceTypeDeclaration second = typeSolver.solveType("p.A");
+		writeJavaFile("p/A.java", "package p; class A { void changed() {} }");
+		javaFile.setLastModified(javaFile.lastModified() + 2000);
+		ResolvedReferenceTypeDeclaration beforeInvalidation = typeSolver.solveType("p.A");
+		typeSolver.invalidateFiles(Collections.singleton(javaFile.getPath()));
+		ResolvedReferenceTypeDeclaration afterChange = typeSolver.solveType("p.A");
+
+		// assert
+		assertThat(second).isSameAs(first);
+		assertThat(beforeInvalidation).isSameAs(first);
+		assertThat(afterChange).isNotSameAs(first);
+		assertThat(afterChange.getDeclaredMethods()).hasSize(1);
+		assertThat(typeSolver.hasType("p.A.Inner")).isFalse();
+	}
+
+	@Test
+	public void testUnsolvedTypesAreCachedUntilInvalidated() throws Exception {
+		// arrange
+		SourceRootTypeSolver typeSolver = new SourceRootTypeSolver(folder.getRoot().getPath());
+		assertThat(typeSolver.hasType("p.B")).isFalse();
+		File javaFile = writeJavaFile("p/B.java", "package p; class B {}");
+
+		// act
+		boolean solvedBeforeInvalidation = typeSolver.hasType("p.B");
+		typeSolver.invalidateFiles(Collections.singleton(javaFile.getPath()));
+		boolean solvedAfterInvalidation = typeSolver.hasType("p.B");
+
+		// assert
+		assertThat(solvedBeforeInvalidation).isFalse();
+		assertThat(solvedAfterInvalidation).isTrue();
+		assertThat(typeSolver.getCachedTypeCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testWorkspaceReusesSymbolSolverForSameRoots() {
+		// arrange
+		WorkspaceSymbolSolver workspaceSolver = new WorkspaceSymbolSolver(folder.getRoot().getPath());
+		List<String> javaRoots = Collections.singletonList(folder.getRoot().getPath());
+
+		// act
+		JavaSymbolSolver first = workspaceSolver.getSymbolSolver(javaRoots, null);
+		JavaSymbolSolver second = workspaceSolver.getSymbolSolver(javaRoots, null);
+		JavaSymbolSolver withoutRoots = workspaceSolver.getSymbolSolver(Collections.emptyList(), null);
+
+		// assert
+		assertThat(second).isSameAs(first);
+		assertThat(withoutRoots).isNotSameAs(first);
+	}
+
+	private File writeJavaFile(String fileName, String content) throws IOException {
+		File file = new File(folder.getRoot(), fileName);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
@@ -0,0 +1,71 @@
+package de.refactoringbot.refactoring.resolution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+public class WorkspaceTypeSolverTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testTypesAreSolvedByTheRootOfTheirPackage() throws Exception {
+		// arrange
+		File a = writeJavaFile("moduleA/src/p/a/A.java", "package p.a; public class A { public static class Inner {} }");
+		File b = writeJavaFile("moduleB/src/p/b/B.java", "package p.b; public class B {}");
+		SourceRootTypeSolver rootA = new SourceRootTypeSolver(new File(folder.getRoot(), "moduleA/src").getPath());
+		SourceRootTypeSolver rootB = new SourceRootTypeSolver(new File(folder.getRoot(), "moduleB/src").getPath());
+		ReflectionTypeSolver reflectionTypeSolver = new ReflectionTypeSolver();
+
+		// act
+		WorkspaceTypeSolver typeSolver = new WorkspaceTypeSolver(Arrays.asList(rootA, rootB),
+				Arrays.asList(a.getPath(), b.getPath()), Collections.singletonList(reflectionTypeSolver));
+
+		// assert
+		assertThat(typeSolver.getCandidateSolvers("p.a.A")).containsExactly(rootA, reflectionTypeSolver);
+		assertThat(typeSolver.getCandidateSolvers("p.a.A.Inner")).containsExactly(rootA, reflectionTypeSolver);
+		assertThat(typeSolver.getCandidateSolvers("p.b.B")).containsExactly(rootB, reflectionTypeSolver);
+		assertThat(typeSolver.getCandidateSolvers("java.lang.String")).containsExactly(reflectionTypeSolver);
+		assertThat(typeSolver.solveType("p.a.A.Inner").getQualifiedName()).isEqualTo("p.a.A.Inner");
+		assertThat(typeSolver.solveType("p.b.B").getQualifiedName()).isEqualTo("p.b.B");
+		assertThat(typeSolver.solveType("java.lang.String").getQualifiedName()).isEqualTo("java.lang.String");
+		assertThat(typeSolver.hasType("p.b.Missing")).isFalse();
+		assertThat(rootA.getCachedTypeCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testRootsWithoutGivenFilesAreIndexedFromTheirFolder() throws Exception {
+		// arrange
+		writeJavaFile("src/p/C.java", "package p; public class C {}");
+		SourceRootTypeSolver root = new SourceRootTypeSolver(new File(folder.getRoot(), "src").getPath());
+		List<String> otherFiles = Collections.singletonList(new File(folder.getRoot(), "Other.java").getPath());
+
+		// act
+		WorkspaceTypeSolver typeSolver = new WorkspaceTypeSolver(Collections.singletonList(root), otherFiles,
+				Collections.emptyList());
+
+		// assert
+		assertThat(typeSolver.getCandidateSolvers("p.C")).containsExactly(root);
+		assertThat(typeSolver.hasType("p.C")).isTrue();
+	}
+
+	private File writeJavaFile(String fileName, String content) throws IOException {
+		File file = new File(folder.getRoot(), fileName);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
@@ -13,6 +13,8 @@ import org.slf4j.LoggerFactory;
 import de.refactoringbot.model.botissue.BotIssue;
 import de.refactoringbot.model.configuration.GitConfiguration;
 import de.refactoringbot.model.exceptions.BotRefactoringException;
+import de.refactoringbot.refactoring.edit.SourceFile;
+import de.refactoringbot.refactoring.parsing.CompilationUnitCache;
 import de.refactoringbot.refactoring.supportedrefactorings.AddOverrideAnnotation;
 import de.refactoringbot.resources.addoverrideannotation.TestDataClassMissingOverrideAnnotation;
 
@@ -50,6 +52,29 @@ public class AddOverrideAnnotationTest extends AbstractRefactoringTests {
 		testAddOverrideAnnotation(missingOverrideTestClass.getLineOfMethodWithoutMissingOverrideAnnotation());
 	}
 
+	@Test
+	public void testAddOverrideAnnotationsWithSingleWrite() throws Exception {
+		// arrange
+		File tempFile = createTempCopyOfTestResourcesFile(TestDataClassMissingOverrideAnnotation.class);
+		int firstLine = missingOverrideTestClass.getLineOfMethodWithMissingOverrideAnnotation();
+		int secondLine = missingOverrideTestClass.getLineOfMethodWithMissingOverrideAnnotation3();
+		SourceFile sourceFile = CompilationUnitCache.getInstance().getSourceFile(tempFile.getAbsolutePath());
+		AddOverrideAnnotation refactoring = new AddOverrideAnnotation();
+
+		// act
+		for (int line : new int[] { firstLine, secondLine }) {
+			BotIssue issue = new BotIssue();
+			issue.setLine(line);
+			refactoring.collectEdits(issue, sourceFile);
+		}
+		CompilationUnitCache.getInstance().saveSourceFile(sourceFile);
+
+		// assert
+		// line numbers of both issues refer to the file before the refactoring
+		assertThat(getStrippedContentFromFile(tempFile, firstLine)).isEqualTo("@Override");
+		assertThat(getStrippedContentFromFile(tempFile, secondLine + 1)).isEqualTo("@Override");
+	}
+
 	private void testAddOverrideAnnotation(int lineNumberOfMethodWithMissingOverride) throws Exception {
 		// arrange
 		File tempFile = createTempCopyOfTestResourcesFile(TestDataClassMissingOverrideAnnotation.class);
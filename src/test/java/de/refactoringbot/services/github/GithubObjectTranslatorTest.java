@@ -2,6 +2,9 @@ package de.refactoringbot.services.github;
 
 import org.assertj.core.api.SoftAssertions;
 import org.junit.Test;
+
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.model.github.pullrequest.GithubCreateRequest;
 import de.refactoringbot.model.github.pullrequestcomment.ReplyComment;
 import de.refactoringbot.model.output.botpullrequestcomment.BotPullRequestComment;
 
@@ -22,4 +25,22 @@ public class GithubObjectTranslatorTest {
 		softAssertions.assertThat(failureReply.getBody()).isEqualTo(errorMessage);
 		softAssertions.assertAll();
 	}
+
+	@Test
+	public void makeCreateRequestWithAnalysisService() {
+		GitConfiguration gitConfig = new GitConfiguration();
+		gitConfig.setBotName("bot");
+		String refactorings = "\n\nRefactorings:\n\n- Added override annotation to method 'a'";
+
+		GithubObjectTranslator githubObjectTranslator = new GithubObjectTranslator(null, null, null);
+		GithubCreateRequest createRequest = githubObjectTranslator
+				.makeCreateRequestWithAnalysisService("Refactored 2 issues found by 'sonarqube'", refactorings,
+						gitConfig, "branch");
+
+		SoftAssertions softAssertions = new SoftAssertions();
+		softAssertions.assertThat(createRequest.getTitle()).isEqualTo("Refactored 2 issues found by 'sonarqube'");
+		softAssertions.assertThat(createRequest.getBody()).endsWith(refactorings);
+		softAssertions.assertThat(createRequest.getHead()).isEqualTo("bot:branch");
+		softAssertions.assertAll();
+	}
 }
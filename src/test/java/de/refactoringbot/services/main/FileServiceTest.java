@@ -6,11 +6,16 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.util.ClassUtils;
 
 public class FileServiceTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void testGetAllJavaFiles() throws IOException {
 		// arrange
@@ -25,6 +30,23 @@ public class FileServiceTest {
 		assertThat(allJavaFiles).contains(getAbsoluteFilePathOfThis());
 	}
 
+	@Test
+	public void testGetAllJavaFilesSkipsIgnoredFolders() throws IOException {
+		// arrange
+		FileService fileService = new FileService();
+		File sourceFile = createFile("src/main/java/a/build/A.java");
+		createFile("pom.xml");
+		createFile("target/generated-sources/B.java");
+		createFile("node_modules/c/C.java");
+		createFile("src/main/java/a/build/readme.txt");
+
+		// act
+		List<String> allJavaFiles = fileService.getAllJavaFiles(folder.getRoot().getAbsolutePath());
+
+		// assert
+		assertThat(allJavaFiles).containsExactly(sourceFile.getCanonicalPath());
+	}
+
 	@Test
 	public void testFindJavaRoots() throws IOException {
 		// arrange
@@ -39,6 +61,29 @@ public class FileServiceTest {
 		assertThat(javaRoots).contains(getAbsoluteJavaRootPathOfThis());
 	}
 
+	@Test
+	public void testFindJavaRootsOfWorkspace() throws IOException {
+		// arrange
+		FileService fileService = new FileService();
+		String repoFolderPath = System.getProperty("user.dir");
+		List<String> allJavaFiles = fileService.getAllJavaFiles(repoFolderPath);
+
+		// act
+		List<String> javaRoots = fileService.findJavaRoots(repoFolderPath, allJavaFiles);
+		List<String> cachedJavaRoots = fileService.findJavaRoots(repoFolderPath, allJavaFiles);
+
+		// assert
+		assertThat(javaRoots).contains(getAbsoluteJavaRootPathOfThis());
+		assertThat(cachedJavaRoots).containsExactlyInAnyOrderElementsOf(javaRoots);
+	}
+
+	private File createFile(String path) throws IOException {
+		File file = new File(folder.getRoot(), path);
+		file.getParentFile().mkdirs();
+		file.createNewFile();
+		return file;
+	}
+
 	private String getAbsoluteFilePathOfThis() {
 		String path = "src/test/java/" + ClassUtils.convertClassNameToResourcePath(FileServiceTest.class.getName())
 				+ ".java";
@@ -0,0 +1,123 @@
+package de.refactoringbot.services.main;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.refactoringbot.configuration.BotConfiguration;
+import de.refactoringbot.model.configuration.FileHoster;
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.testutils.TestUtils;
+
+public class GitMirrorCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File upstream;
+	private File workspace;
+	private GitService gitService;
+	private GitConfiguration gitConfig;
+
+	@Before
+	public void createRepositories() throws Exception {
+		upstream = folder.newFolder("upstream");
+		try (Git git = Git.init().setDirectory(upstream).call()) {
+			TestUtils.writeFile(upstream, "A.java", "class A {}");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("initial").setAuthor("bot", "bot@example.org").call();
+		}
+		File fork = new File(folder.getRoot(), "fork");
+		Git.cloneRepository().setURI(upstream.toURI().toString()).setDirectory(fork).setBare(true).call().close();
+		workspace = new File(folder.getRoot(), "workspace");
+
+		BotConfiguration botConfig = new BotConfiguration();
+		botConfig.setBotRefactoringDirectory(folder.getRoot().getPath() + File.separator);
+		botConfig.setUpstreamMirrors(true);
+		gitService = new GitService();
+		gitService.botConfig = botConfig;
+		gitService.repositoryCache = new GitRepositoryCache();
+		gitService.mirrorCache = new GitMirrorCache();
+		gitService.mirrorCache.botConfig = botConfig;
+
+		gitConfig = new GitConfiguration().copyWithRepoFolder(workspace.getPath());
+		gitConfig.setRepoService(FileHoster.github);
+		gitConfig.setForkGitLink(fork.toURI().toString());
+		gitConfig.setRepoGitLink(upstream.toURI().toString());
+		gitConfig.setBotName("bot");
+		gitConfig.setBotToken("token");
+	}
+
+	@After
+	public void evictWorkspace() {
+		gitService.repositoryCache.evict(workspace);
+	}
+
+	@Test
+	public void testCloneBorrowsObjectsOfMirror() throws Exception {
+		// act
+		gitService.initLocalWorkspace(gitConfig);
+
+		// assert
+		assertThat(new File(workspace, "A.java")).hasContent("class A {}");
+		assertThat(new File(workspace, ".git/objects/info/alternates")).isFile();
+		File[] packs = new File(workspace, ".git/objects/pack").listFiles((dir, name) -> name.endsWith(".pack"));
+		assertThat(packs).isNullOrEmpty();
+		try (Git git = Git.open(workspace)) {
+			assertThat(git.status().call().isClean()).isTrue();
+			assertThat(git.getRepository().getBranch()).isEqualTo("master");
+		}
+	}
+
+	@Test
+	public void testMirrorIsFetchedAgainAfterInterval() throws Exception {
+		// arrange
+		gitService.mirrorCache.fetchIntervalInMS = 0;
+		gitService.initLocalWorkspace(gitConfig);
+		gitService.fetchRemote(gitConfig);
+		ObjectId newCommit = commitToUpstream();
+
+		// act
+		gitService.fetchRemote(gitConfig);
+
+		// assert
+		assertThat(resolveUpstreamMaster()).isEqualTo(newCommit);
+	}
+
+	@Test
+	public void testMirrorIsNotFetchedAgainWithinInterval() throws Exception {
+		// arrange
+		gitService.mirrorCache.fetchIntervalInMS = Long.MAX_VALUE;
+		gitService.initLocalWorkspace(gitConfig);
+		gitService.fetchRemote(gitConfig);
+		ObjectId newCommit = commitToUpstream();
+
+		// act
+		gitService.fetchRemote(gitConfig);
+
+		// assert
+		assertThat(resolveUpstreamMaster()).isNotNull().isNotEqualTo(newCommit);
+	}
+
+	private ObjectId commitToUpstream() throws Exception {
+		try (Git git = Git.open(upstream)) {
+			TestUtils.writeFile(upstream, "A.java", "class A { void changed() {} }");
+			git.add().addFilepattern(".").call();
+			return git.commit().setMessage("change").setAuthor("bot", "bot@example.org").call().getId();
+		}
+	}
+
+	private ObjectId resolveUpstreamMaster() throws Exception {
+		try (Git git = Git.open(workspace)) {
+			return git.getRepository().resolve("refs/remotes/upstream/master");
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package de.refactoringbot.services.main;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GitRepositoryCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private GitRepositoryCache repositoryCache = new GitRepositoryCache();
+	private File workspace;
+
+	@Before
+	public void createWorkspace() throws Exception {
+		workspace = folder.newFolder("workspace");
+		Git.init().setDirectory(workspace).call().close();
+	}
+
+	@After
+	public void evictWorkspace() {
+		repositoryCache.evict(workspace);
+	}
+
+	@Test
+	public void testRepositoryStaysOpenBetweenHandles() throws Exception {
+		// arrange
+		Repository firstRepository;
+		try (Git git = repositoryCache.open(workspace)) {
+			firstRepository = git.getRepository();
+		}
+
+		// act
+		Repository secondRepository;
+		try (Git git = repositoryCache.open(workspace)) {
+			secondRepository = git.getRepository();
+		}
+
+		// assert
+		assertThat(secondRepository).isSameAs(firstRepository);
+	}
+
+	@Test
+	public void testEvictedRepositoryIsOpenedAgain() throws Exception {
+		// arrange
+		Repository firstRepository;
+		try (Git git = repositoryCache.open(workspace)) {
+			firstRepository = git.getRepository();
+		}
+
+		// act
+		repositoryCache.evict(workspace);
+		Repository secondRepository;
+		try (Git git = repositoryCache.open(workspace)) {
+			secondRepository = git.getRepository();
+		}
+
+		// assert
+		assertThat(secondRepository).isNotSameAs(firstRepository);
+	}
+}
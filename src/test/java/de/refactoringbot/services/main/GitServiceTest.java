@@ -1,14 +1,36 @@
 package de.refactoringbot.services.main;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
 import org.assertj.core.api.SoftAssertions;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import de.refactoringbot.configuration.BotConfiguration;
+import de.refactoringbot.model.configuration.FileHoster;
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.testutils.TestUtils;
 
 public class GitServiceTest {
 
 	@Rule
 	public final ExpectedException exception = ExpectedException.none();
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
 	
 	@Test
 	public void getLineNumberOfLastLineInDiffHunk() {
@@ -53,4 +75,244 @@ public class GitServiceTest {
 		gitService.getLineNumberOfLastLineInDiffHunk(invalidDiffHunk);
 	}
 
+	@Test
+	public void commitAndPushOnlyModifiedFiles() throws Exception {
+		// arrange
+		File remote = folder.newFolder("remote");
+		Git.init().setBare(true).setDirectory(remote).call().close();
+		File workspace = new File(folder.getRoot(), "workspace");
+		try (Git git = Git.cloneRepository().setURI(remote.toURI().toString()).setDirectory(workspace).call()) {
+			TestUtils.writeFile(workspace, "A.java", "class A {}");
+			TestUtils.writeFile(workspace, "B.java", "class B {}");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("initial").setAuthor("bot", "bot@example.org").call();
+			git.push().call();
+		}
+		TestUtils.writeFile(workspace, "A.java", "class A { void refactored() {} }");
+		TestUtils.writeFile(workspace, "B.java", "class B { void unrelated() {} }");
+
+		GitService gitService = new GitService();
+		gitService.botConfig = new BotConfiguration();
+		gitService.repositoryCache = new GitRepositoryCache();
+		GitConfiguration gitConfig = new GitConfiguration().copyWithRepoFolder(workspace.getPath());
+		gitConfig.setRepoService(FileHoster.github);
+		gitConfig.setBotName("bot");
+		gitConfig.setBotEmail("bot@example.org");
+		gitConfig.setBotToken("token");
+
+		// act
+		gitService.commitAndPushChanges(gitConfig, "Refactored A",
+				Collections.singletonList(new File(workspace, "A.java").getAbsolutePath()));
+
+		// assert
+		try (Git git = Git.open(workspace)) {
+			Status status = git.status().call();
+			assertThat(status.getModified()).containsExactly("B.java");
+			assertThat(status.getChanged()).isEmpty();
+		}
+		try (Git git = Git.open(remote)) {
+			assertThat(git.log().call().iterator().next().getFullMessage()).isEqualTo("Refactored A");
+		}
+		gitService.repositoryCache.evict(workspace);
+	}
+
+	@Test
+	public void commitAndPushInMemoryKeepsWorkspaceAtBaseCommit() throws Exception {
+		// arrange
+		File remote = folder.newFolder("remote");
+		Git.init().setBare(true).setDirectory(remote).call().close();
+		File workspace = new File(folder.getRoot(), "workspace");
+		try (Git git = Git.cloneRepository().setURI(remote.toURI().toString()).setDirectory(workspace).call()) {
+			TestUtils.writeFile(workspace, "A.java", "class A {}");
+			TestUtils.writeFile(workspace, "B.java", "class B {}");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("initial").setAuthor("bot", "bot@example.org").call();
+			git.push().call();
+			git.fetch().call();
+		}
+
+		GitService gitService = new GitService();
+		gitService.botConfig = new BotConfiguration();
+		gitService.repositoryCache = new GitRepositoryCache();
+		GitConfiguration gitConfig = new GitConfiguration().copyWithRepoFolder(workspace.getPath());
+		gitConfig.setRepoService(FileHoster.github);
+		gitConfig.setBotName("bot");
+		gitConfig.setBotEmail("bot@example.org");
+		gitConfig.setBotToken("token");
+
+		// act
+		ObjectId baseCommit = gitService.checkoutBaseCommit(gitConfig, "master", "refactoring", "origin");
+		TestUtils.writeFile(workspace, "A.java", "class A { void refactored() {} }");
+		gitService.commitAndPushInMemory(gitConfig, baseCommit, "refactoring", "Refactored A",
+				Collections.singletonList(new File(workspace, "A.java").getAbsolutePath()));
+
+		// assert
+		try (Git git = Git.open(workspace)) {
+			assertThat(git.getRepository().resolve(Constants.HEAD)).isEqualTo(baseCommit);
+			assertThat(git.status().call().isClean()).isTrue();
+		}
+		try (Git git = Git.open(remote)) {
+			RevCommit commit = git.getRepository().parseCommit(git.getRepository().resolve("refactoring"));
+			assertThat(commit.getFullMessage()).isEqualTo("Refactored A");
+			assertThat(commit.getParent(0).getId()).isEqualTo(baseCommit);
+			try (TreeWalk treeWalk = TreeWalk.forPath(git.getRepository(), "A.java", commit.getTree())) {
+				assertThat(new String(git.getRepository().open(treeWalk.getObjectId(0)).getBytes(),
+						StandardCharsets.UTF_8)).isEqualTo("class A { void refactored() {} }");
+			}
+		}
+		gitService.repositoryCache.evict(workspace);
+	}
+
+	@Test
+	public void singleBranchSparseCloneSupportsRefactoringWorkflow() throws Exception {
+		// arrange
+		File upstream = folder.newFolder("upstream");
+		try (Git git = Git.init().setDirectory(upstream).call()) {
+			TestUtils.writeFile(upstream, "A.java", "class A {}");
+			TestUtils.writeFile(upstream, "README.md", "readme");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("initial").setAuthor("bot", "bot@example.org").call();
+			git.branchCreate().setName("feature").call();
+			git.tag().setName("v1").call();
+		}
+		File fork = new File(folder.getRoot(), "fork");
+		Git.cloneRepository().setURI(upstream.toURI().toString()).setDirectory(fork).setBare(true).call().close();
+		try (Git git = Git.open(upstream)) {
+			TestUtils.writeFile(upstream, "A.java", "class A { void upstream() {} }");
+			TestUtils.writeFile(upstream, "README.md", "new readme");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("upstream change").setAuthor("bot", "bot@example.org").call();
+		}
+		File workspace = new File(folder.getRoot(), "workspace");
+
+		GitService gitService = new GitService();
+		gitService.botConfig = new BotConfiguration();
+		gitService.repositoryCache = new GitRepositoryCache();
+		gitService.mirrorCache = new GitMirrorCache();
+		gitService.mirrorCache.botConfig = gitService.botConfig;
+		GitConfiguration gitConfig = new GitConfiguration().copyWithRepoFolder(workspace.getPath());
+		gitConfig.setRepoService(FileHoster.github);
+		gitConfig.setForkGitLink(fork.toURI().toString());
+		gitConfig.setRepoGitLink(upstream.toURI().toString());
+		gitConfig.setBotName("bot");
+		gitConfig.setBotEmail("bot@example.org");
+		gitConfig.setBotToken("token");
+		gitConfig.setSingleBranchClone(true);
+		gitConfig.setSparseCheckout(true);
+
+		// act
+		gitService.initLocalWorkspace(gitConfig);
+		boolean readmeCheckedOut = new File(workspace, "README.md").exists();
+		gitService.fetchRemote(gitConfig);
+		gitService.createBranch(gitConfig, "master", "refactoring", "upstream");
+		TestUtils.writeFile(workspace, "A.java", "class A { void upstream() {} void refactored() {} }");
+		gitService.commitAndPushChanges(gitConfig, "Refactored A",
+				Collections.singletonList(new File(workspace, "A.java").getAbsolutePath()));
+
+		// assert
+		assertThat(readmeCheckedOut).isFalse();
+		try (Git git = Git.open(workspace)) {
+			assertThat(git.getRepository().getRefDatabase().getRefs(Constants.R_REMOTES).keySet())
+					.contains("origin/master", "upstream/master").doesNotContain("origin/feature");
+		}
+		try (Git git = Git.open(fork)) {
+			RevCommit commit = git.getRepository().parseCommit(git.getRepository().resolve("refactoring"));
+			assertThat(commit.getFullMessage()).isEqualTo("Refactored A");
+			try (TreeWalk treeWalk = TreeWalk.forPath(git.getRepository(), "README.md", commit.getTree())) {
+				assertThat(new String(git.getRepository().open(treeWalk.getObjectId(0)).getBytes(),
+						StandardCharsets.UTF_8)).isEqualTo("new readme");
+			}
+		}
+		gitService.repositoryCache.evict(workspace);
+	}
+
+	@Test
+	public void sparseCheckoutKeepsFilesThatAreNotCheckedOut() throws Exception {
+		// arrange
+		File upstream = folder.newFolder("upstream");
+		try (Git git = Git.init().setDirectory(upstream).call()) {
+			TestUtils.writeFile(upstream, "A.java", "class A {}");
+			TestUtils.writeFile(upstream, "README.md", "readme");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("initial").setAuthor("bot", "bot@example.org").call();
+		}
+		File fork = new File(folder.getRoot(), "fork");
+		Git.cloneRepository().setURI(upstream.toURI().toString()).setDirectory(fork).setBare(true).call().close();
+		File workspace = new File(folder.getRoot(), "workspace");
+
+		GitService gitService = new GitService();
+		gitService.botConfig = new BotConfiguration();
+		gitService.repositoryCache = new GitRepositoryCache();
+		gitService.mirrorCache = new GitMirrorCache();
+		gitService.mirrorCache.botConfig = gitService.botConfig;
+		GitConfiguration gitConfig = new GitConfiguration().copyWithRepoFolder(workspace.getPath());
+		gitConfig.setRepoService(FileHoster.github);
+		gitConfig.setForkGitLink(fork.toURI().toString());
+		gitConfig.setRepoGitLink(upstream.toURI().toString());
+		gitConfig.setBotName("bot");
+		gitConfig.setBotEmail("bot@example.org");
+		gitConfig.setBotToken("token");
+		gitConfig.setSparseCheckout(true);
+
+		// act
+		gitService.initLocalWorkspace(gitConfig);
+		boolean readmeCheckedOut = new File(workspace, "README.md").exists();
+		ObjectId baseCommit = gitService.checkoutBaseCommit(gitConfig, "master", "refactoring", "origin");
+		TestUtils.writeFile(workspace, "A.java", "class A { void refactored() {} }");
+		gitService.commitAndPushInMemory(gitConfig, baseCommit, "refactoring", "Refactored A", null);
+
+		// assert
+		assertThat(readmeCheckedOut).isFalse();
+		try (Git git = Git.open(fork)) {
+			RevCommit commit = git.getRepository().parseCommit(git.getRepository().resolve("refactoring"));
+			try (TreeWalk treeWalk = TreeWalk.forPath(git.getRepository(), "README.md", commit.getTree())) {
+				assertThat(treeWalk).isNotNull();
+			}
+		}
+		gitService.repositoryCache.evict(workspace);
+	}
+
+	@Test
+	public void restoreFilesRestoresFilesOfTheBaseCommit() throws Exception {
+		// arrange
+		File upstream = folder.newFolder("upstream");
+		try (Git git = Git.init().setDirectory(upstream).call()) {
+			TestUtils.writeFile(upstream, "A.java", "class A {}");
+			TestUtils.writeFile(upstream, "B.java", "class B {}");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("initial").setAuthor("bot", "bot@example.org").call();
+		}
+		File fork = new File(folder.getRoot(), "fork");
+		Git.cloneRepository().setURI(upstream.toURI().toString()).setDirectory(fork).setBare(true).call().close();
+		File workspace = new File(folder.getRoot(), "workspace");
+
+		GitService gitService = new GitService();
+		gitService.botConfig = new BotConfiguration();
+		gitService.repositoryCache = new GitRepositoryCache();
+		gitService.mirrorCache = new GitMirrorCache();
+		gitService.mirrorCache.botConfig = gitService.botConfig;
+		GitConfiguration gitConfig = new GitConfiguration().copyWithRepoFolder(workspace.getPath());
+		gitConfig.setRepoService(FileHoster.github);
+		gitConfig.setForkGitLink(fork.toURI().toString());
+		gitConfig.setRepoGitLink(upstream.toURI().toString());
+		gitConfig.setBotName("bot");
+		gitConfig.setBotEmail("bot@example.org");
+		gitConfig.setBotToken("token");
+		gitService.initLocalWorkspace(gitConfig);
+		ObjectId baseCommit = gitService.checkoutBaseCommit(gitConfig, "master", "refactoring", "origin");
+		TestUtils.writeFile(workspace, "A.java", "class A { void halfRefactored() {} }");
+
+		// act
+		gitService.restoreFiles(gitConfig, baseCommit,
+				Arrays.asList(new File(workspace, "A.java").getCanonicalPath(),
+						new File(workspace, "B.java").getCanonicalPath()));
+
+		// assert
+		assertThat(new String(Files.readAllBytes(new File(workspace, "A.java").toPath()), StandardCharsets.UTF_8))
+				.isEqualTo("class A {}");
+		assertThat(new String(Files.readAllBytes(new File(workspace, "B.java").toPath()), StandardCharsets.UTF_8))
+				.isEqualTo("class B {}");
+		gitService.repositoryCache.evict(workspace);
+	}
+
 }
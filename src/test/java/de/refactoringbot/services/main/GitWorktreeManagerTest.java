@@ -0,0 +1,109 @@
+package de.refactoringbot.services.main;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.refactoringbot.configuration.BotConfiguration;
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.refactoring.index.CallSiteIndex;
+import de.refactoringbot.testutils.TestUtils;
+
+public class GitWorktreeManagerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private GitWorktreeManager worktreeManager;
+	private GitConfiguration config;
+	private ObjectId upstreamHead;
+	private File workspace;
+
+	@Before
+	public void createWorkspace() throws Exception {
+		File upstream = folder.newFolder("upstream");
+		try (Git git = Git.init().setDirectory(upstream).call()) {
+			TestUtils.writeFile(upstream, "A.java", "class A {}");
+			git.add().addFilepattern("A.java").call();
+			upstreamHead = git.commit().setMessage("initial").setAuthor("bot", "bot@example.org").call().getId();
+		}
+		workspace = new File(folder.getRoot(), "1");
+		try (Git git = Git.cloneRepository().setURI(upstream.toURI().toString()).setDirectory(workspace).call()) {
+			git.remoteAdd().setName("upstream").setUri(new URIish(upstream.toURI().toString()))
+					.call();
+			git.fetch().setRemote("upstream").call();
+		}
+
+		BotConfiguration botConfig = new BotConfiguration();
+		botConfig.setBotRefactoringDirectory(folder.getRoot().getPath() + File.separator);
+		worktreeManager = new GitWorktreeManager();
+		worktreeManager.botConfig = botConfig;
+		worktreeManager.repositoryCache = new GitRepositoryCache();
+		config = new GitConfiguration().copyWithRepoFolder(workspace.getPath());
+	}
+
+	@Test
+	public void testWorktreeSharesObjectsAndIsCleanedForReuse() throws Exception {
+		// arrange
+		GitConfiguration worktreeConfig = worktreeManager.acquireWorktree(config);
+		File worktree = new File(worktreeConfig.getRepoFolder());
+		try (Git git = Git.open(worktree)) {
+			git.checkout().setCreateBranch(true).setName("refactoring").setStartPoint("upstream/master").call();
+		}
+		TestUtils.writeFile(worktree, "A.java", "class A { void changed() {} }");
+
+		// act
+		GitConfiguration otherWorktreeConfig = worktreeManager.acquireWorktree(config);
+		worktreeManager.releaseWorktree(worktreeConfig);
+		GitConfiguration reusedWorktreeConfig = worktreeManager.acquireWorktree(config);
+
+		// assert
+		assertThat(otherWorktreeConfig.getRepoFolder()).isNotEqualTo(worktreeConfig.getRepoFolder());
+		assertThat(reusedWorktreeConfig.getRepoFolder()).isEqualTo(worktreeConfig.getRepoFolder());
+		assertThat(new String(Files.readAllBytes(new File(worktree, "A.java").toPath()), StandardCharsets.UTF_8))
+				.isEqualTo("class A {}");
+		try (Git git = Git.open(worktree)) {
+			assertThat(git.getRepository().resolve("refs/remotes/upstream/master")).isEqualTo(upstreamHead);
+			assertThat(git.getRepository().getRefDatabase().getRefs(Constants.R_HEADS)).isEmpty();
+			assertThat(git.getRepository().getConfig().getString("remote", "upstream", "url")).isNotNull();
+		}
+		assertThat(new File(worktree, ".git/objects/info/alternates")).isFile();
+	}
+
+	@Test
+	public void testWorktreeIndexesAreSeededFromWorkspaceAndRemoved() throws Exception {
+		// arrange
+		TestUtils.writeFile(workspace, "B.java", "class B { void b() { b(); } }");
+		List<String> javaFiles = Collections.singletonList(new File(workspace, "B.java").getCanonicalPath());
+		List<String> javaRoots = Collections.singletonList(workspace.getCanonicalPath());
+		CallSiteIndex.forWorkspace(workspace.getPath()).update(javaFiles, javaRoots);
+
+		// act
+		GitConfiguration worktreeConfig = worktreeManager.acquireWorktree(config);
+		File worktree = new File(worktreeConfig.getRepoFolder());
+		Set<String> seededCallers = CallSiteIndex.forWorkspace(worktree.getPath()).getCallSites("B.b()").keySet();
+		worktreeManager.releaseWorktree(worktreeConfig);
+		worktreeManager.removeWorktrees(config.getConfigurationId());
+		Set<String> callersAfterRemoval = CallSiteIndex.forWorkspace(worktree.getPath()).getCallSites("B.b()")
+				.keySet();
+
+		// assert
+		assertThat(seededCallers).containsExactly(new File(worktree, "B.java").getCanonicalPath());
+		assertThat(callersAfterRemoval).isEmpty();
+		CallSiteIndex.removeWorkspace(workspace.getPath());
+	}
+}
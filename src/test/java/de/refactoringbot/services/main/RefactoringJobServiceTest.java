@@ -0,0 +1,85 @@
+package de.refactoringbot.services.main;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import de.refactoringbot.model.configuration.GitConfiguration;
+import de.refactoringbot.model.job.RefactoringJob;
+import de.refactoringbot.model.job.RefactoringJobStatus;
+import de.refactoringbot.model.refactoredissue.RefactoredIssue;
+import de.refactoringbot.services.scheduling.ConfigurationJobExecutor;
+
+public class RefactoringJobServiceTest {
+
+	private RefactoringJobService jobService;
+	private ConfigurationJobExecutor jobExecutor;
+
+	@Before
+	public void initMocks() throws Exception {
+		jobService = new RefactoringJobService();
+		jobService.refactoringService = Mockito.mock(RefactoringService.class);
+		Mockito.when(jobService.refactoringService.checkConfigurationExistance(any()))
+				.thenReturn(new GitConfiguration());
+		jobExecutor = new ConfigurationJobExecutor(1, 10, 10000);
+		jobService.jobExecutor = jobExecutor;
+	}
+
+	@After
+	public void shutdown() {
+		jobExecutor.shutdown();
+	}
+
+	@Test
+	public void testJobCollectsProgressAndResult() throws Exception {
+		// arrange
+		RefactoredIssue refactoredIssue = new RefactoredIssue();
+		Mockito.doAnswer(invocation -> {
+			((RefactoringProgress) invocation.getArgument(2)).report("Refactoring comment 1");
+			return new ResponseEntity<>(Collections.singletonList(refactoredIssue), HttpStatus.OK);
+		}).when(jobService.refactoringService).performRefactoring(eq(1L), eq(true), any());
+
+		// act
+		RefactoringJob job = jobService.submitJob(1L, true);
+		waitForJob(job);
+
+		// assert
+		assertThat(jobService.getJob(job.getJobId())).containsSame(job);
+		assertThat(job.getStatus()).isEqualTo(RefactoringJobStatus.FINISHED);
+		assertThat(job.getProgress()).contains("Refactoring comment 1");
+		assertThat(job.getRefactoredIssues()).containsExactly(refactoredIssue);
+	}
+
+	@Test
+	public void testJobFailsWithErrorResponse() throws Exception {
+		// arrange
+		Mockito.doReturn(new ResponseEntity<>("Limit reached!", HttpStatus.BAD_REQUEST))
+				.when(jobService.refactoringService).performRefactoring(eq(1L), eq(true), any());
+
+		// act
+		RefactoringJob job = jobService.submitJob(1L, true);
+		waitForJob(job);
+
+		// assert
+		assertThat(job.getStatus()).isEqualTo(RefactoringJobStatus.FAILED);
+		assertThat(job.getErrorMessage()).isEqualTo("Limit reached!");
+		assertThat(job.getRefactoredIssues()).isEmpty();
+	}
+
+	private void waitForJob(RefactoringJob job) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!job.getStatus().isDone() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package de.refactoringbot.services.scheduling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ConfigurationJobExecutorTest {
+
+	private ConfigurationJobExecutor executor;
+
+	@After
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Test
+	public void testJobsOfSameConfigurationRunOneAfterAnother() throws Exception {
+		// arrange
+		executor = new ConfigurationJobExecutor(4, 10, 10000);
+		CountDownLatch otherConfigurationStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger runningJobsOfConfiguration = new AtomicInteger();
+		AtomicInteger maxRunningJobsOfConfiguration = new AtomicInteger();
+
+		// act
+		Future<?> first = executor.submit(1L, () -> {
+			maxRunningJobsOfConfiguration.accumulateAndGet(runningJobsOfConfiguration.incrementAndGet(), Math::max);
+			release.await();
+			return runningJobsOfConfiguration.decrementAndGet();
+		});
+		Future<?> second = executor.submit(1L, () -> {
+			maxRunningJobsOfConfiguration.accumulateAndGet(runningJobsOfConfiguration.incrementAndGet(), Math::max);
+			return runningJobsOfConfiguration.decrementAndGet();
+		});
+		executor.submit(2L, () -> {
+			otherConfigurationStarted.countDown();
+			return null;
+		});
+		boolean otherConfigurationRanInParallel = otherConfigurationStarted.await(5, TimeUnit.SECONDS);
+		boolean busyWhileRunning = executor.isBusy(1L);
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+		second.get(5, TimeUnit.SECONDS);
+
+		// assert
+		assertThat(otherConfigurationRanInParallel).isTrue();
+		assertThat(busyWhileRunning).isTrue();
+		assertThat(maxRunningJobsOfConfiguration.get()).isEqualTo(1);
+		assertThat(executor.getWaitingJobs()).isZero();
+	}
+
+	@Test
+	public void testQueueIsBoundedAndLongJobsAreInterrupted() throws Exception {
+		// arrange
+		executor = new ConfigurationJobExecutor(1, 1, 200);
+		CountDownLatch started = new CountDownLatch(1);
+
+		// act
+		Future<?> hanging = executor.submit(1L, () -> {
+			started.countDown();
+			Thread.sleep(60000);
+			return null;
+		});
+		started.await(5, TimeUnit.SECONDS);
+		Future<?> waiting = executor.submit(2L, () -> "done");
+
+		// assert
+		assertThatThrownBy(() -> executor.submit(3L, () -> null)).isInstanceOf(RejectedExecutionException.class);
+		assertThatThrownBy(() -> hanging.get(5, TimeUnit.SECONDS)).isInstanceOf(CancellationException.class);
+		assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+	}
+}
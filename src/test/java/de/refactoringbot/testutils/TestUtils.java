@@ -1,6 +1,20 @@
 package de.refactoringbot.testutils;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.util.ClassUtils;
+
+import de.refactoringbot.resources.renamemethod.TestDataClassRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataClassWithCallOfTargetMethod;
+import de.refactoringbot.resources.renamemethod.TestDataInterfaceRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataSiblingClassRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataSubClassRenameMethod;
+import de.refactoringbot.resources.renamemethod.TestDataSuperClassRenameMethod;
 
 public class TestUtils {
 
@@ -13,5 +27,44 @@ public class TestUtils {
 	public static String getAbsolutePathOfTestsFolder() {
 		return new File(TEST_FOLDER_PATH).getAbsolutePath();
 	}
-	
+
+	/**
+	 * @param clazz
+	 *            class of the test resources
+	 * @return canonical path of the Java file of the given class
+	 * @throws IOException
+	 */
+	public static String getTestResourcesFilePath(Class<?> clazz) throws IOException {
+		return new File(TEST_FOLDER_PATH + ClassUtils.convertClassNameToResourcePath(clazz.getName()) + ".java")
+				.getCanonicalPath();
+	}
+
+	/**
+	 * @return canonical paths of the Java files of the type hierarchy used by the
+	 *         rename method tests, including a class with a call of the method
+	 * @throws IOException
+	 */
+	public static List<String> getRenameMethodTestDataFilePaths() throws IOException {
+		List<String> filePaths = new ArrayList<>();
+		filePaths.add(getTestResourcesFilePath(TestDataClassRenameMethod.class));
+		filePaths.add(getTestResourcesFilePath(TestDataSuperClassRenameMethod.class));
+		filePaths.add(getTestResourcesFilePath(TestDataSubClassRenameMethod.class));
+		filePaths.add(getTestResourcesFilePath(TestDataSiblingClassRenameMethod.class));
+		filePaths.add(getTestResourcesFilePath(TestDataInterfaceRenameMethod.class));
+		filePaths.add(getTestResourcesFilePath(TestDataClassWithCallOfTargetMethod.class));
+		return filePaths;
+	}
+
+	/**
+	 * Writes the given content as UTF-8 to the given file
+	 * 
+	 * @param parent
+	 * @param fileName
+	 * @param content
+	 * @throws IOException
+	 */
+	public static void writeFile(File parent, String fileName, String content) throws IOException {
+		Files.write(new File(parent, fileName).toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
 }